@@ -0,0 +1,782 @@
+package com.mystars.backend.catalog;
+
+import com.mystars.backend.repository.ChangeStamp;
+import com.mystars.backend.repository.KeysetCursor;
+import com.mystars.backend.repository.KeysetSort;
+import com.mystars.backend.repository.Page;
+import com.mystars.backend.repository.ProductFilter;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable, columnar snapshot of the product catalog.
+ * Each field lives in its own array indexed by row, and rows are kept sorted by
+ * (name, id) so keyset pages are a binary search followed by a forward scan.
+ * Writes never modify a snapshot; they produce a new one that replaces it atomically.
+ */
+public final class CatalogSnapshot {
+
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final long NO_VERSION = Long.MIN_VALUE;
+    private static final int NO_CATEGORY = -1;
+
+    private static final Comparator<ProductView> ROW_ORDER =
+        Comparator.comparing(ProductView::getName).thenComparing(ProductView::getId);
+
+    private final int rowCount;
+
+    // Row columns
+    private final UUID[] ids;
+    private final String[] names;
+    private final String[] nameKeys;
+    private final String[] descriptions;
+    private final String[] skus;
+    private final String[] imageUrls;
+    private final String[] dimensions;
+    private final long[] priceCents;
+    private final int[] stock;
+    private final boolean[] active;
+    private final int[] categoryOrdinals;
+    private final double[] weights;
+    private final long[] versions;
+    private final LocalDateTime[] createdAt;
+    private final LocalDateTime[] updatedAt;
+
+    // Category table, indexed by ordinal
+    private final UUID[] categoryIds;
+    private final String[] categoryNames;
+
+    // Lookup indexes
+    private final Map<UUID, Integer> rowById;
+    private final Map<String, Integer> rowBySku;
+    private final Map<UUID, Integer> ordinalByCategoryId;
+    private final ChangeStamp changeStamp;
+
+    private CatalogSnapshot(int rowCount, UUID[] ids, String[] names, String[] nameKeys, String[] descriptions,
+                            String[] skus, String[] imageUrls, String[] dimensions, long[] priceCents, int[] stock,
+                            boolean[] active, int[] categoryOrdinals, double[] weights, long[] versions,
+                            LocalDateTime[] createdAt, LocalDateTime[] updatedAt,
+                            UUID[] categoryIds, String[] categoryNames) {
+        this.rowCount = rowCount;
+        this.ids = ids;
+        this.names = names;
+        this.nameKeys = nameKeys;
+        this.descriptions = descriptions;
+        this.skus = skus;
+        this.imageUrls = imageUrls;
+        this.dimensions = dimensions;
+        this.priceCents = priceCents;
+        this.stock = stock;
+        this.active = active;
+        this.categoryOrdinals = categoryOrdinals;
+        this.weights = weights;
+        this.versions = versions;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.categoryIds = categoryIds;
+        this.categoryNames = categoryNames;
+
+        this.rowById = new HashMap<>(rowCount * 2);
+        this.rowBySku = new HashMap<>(rowCount * 2);
+        LocalDateTime lastUpdate = null;
+        for (int row = 0; row < rowCount; row++) {
+            rowById.put(ids[row], row);
+            if (skus[row] != null) {
+                rowBySku.put(skus[row], row);
+            }
+            if (updatedAt[row] != null && (lastUpdate == null || updatedAt[row].isAfter(lastUpdate))) {
+                lastUpdate = updatedAt[row];
+            }
+        }
+        this.changeStamp = ChangeStamp.ofCollection(rowCount, lastUpdate);
+        this.ordinalByCategoryId = new HashMap<>(categoryIds.length * 2);
+        for (int ordinal = 0; ordinal < categoryIds.length; ordinal++) {
+            ordinalByCategoryId.put(categoryIds[ordinal], ordinal);
+        }
+    }
+
+    /**
+     * Build a snapshot from a full list of products.
+     */
+    public static CatalogSnapshot of(Collection<ProductView> products) {
+        List<ProductView> sorted = new ArrayList<>(products);
+        sorted.sort(ROW_ORDER);
+        int n = sorted.size();
+
+        Columns columns = new Columns(n);
+        List<UUID> categoryIds = new ArrayList<>();
+        List<String> categoryNames = new ArrayList<>();
+        Map<UUID, Integer> ordinals = new HashMap<>();
+
+        for (int row = 0; row < n; row++) {
+            ProductView p = sorted.get(row);
+            columns.set(row, p, ordinalOf(p.getCategory(), categoryIds, categoryNames, ordinals));
+        }
+        return columns.build(categoryIds, categoryNames);
+    }
+
+    /**
+     * Return a new snapshot with the given products inserted or replaced, merged into the
+     * existing rows in one pass rather than spliced once per product. Products not newer than
+     * their rows are skipped.
+     */
+    public CatalogSnapshot withAll(Collection<ProductView> products) {
+        Map<UUID, ProductView> changed = newest(products);
+        if (changed.isEmpty()) {
+            return this;
+        }
+        if (changed.size() == 1) {
+            return with(changed.values().iterator().next());
+        }
+
+        List<ProductView> sorted = new ArrayList<>(changed.values());
+        sorted.sort(ROW_ORDER);
+        int[] removed = changed.keySet().stream()
+            .mapToInt(this::rowOf)
+            .filter(row -> row >= 0)
+            .sorted()
+            .toArray();
+        int n = rowCount - removed.length + sorted.size();
+
+        Columns columns = new Columns(n);
+        List<UUID> newCategoryIds = new ArrayList<>(Arrays.asList(categoryIds));
+        List<String> newCategoryNames = new ArrayList<>(Arrays.asList(categoryNames));
+        Map<UUID, Integer> ordinals = new HashMap<>(ordinalByCategoryId);
+
+        // Copy the kept rows in runs, writing each changed product where its key sorts
+        int source = 0;
+        int target = 0;
+        int skip = 0;
+        for (int i = 0; i <= sorted.size(); i++) {
+            ProductView p = i < sorted.size() ? sorted.get(i) : null;
+            int position = p != null ? lowerBound(p.getName(), p.getId()) : rowCount;
+            while (source < position) {
+                int end = skip < removed.length ? Math.min(position, removed[skip]) : position;
+                columns.copy(this, source, end, target);
+                target += end - source;
+                source = end;
+                if (skip < removed.length && source == removed[skip]) {
+                    source++;
+                    skip++;
+                }
+            }
+            if (p != null) {
+                columns.set(target++, p, ordinalOf(p.getCategory(), newCategoryIds, newCategoryNames, ordinals));
+            }
+        }
+        return columns.build(newCategoryIds, newCategoryNames);
+    }
+
+    /**
+     * Return a new snapshot with the given product inserted or replaced, or this snapshot if
+     * it already holds that version of the product or a newer one.
+     */
+    public CatalogSnapshot with(ProductView product) {
+        int removed = rowOf(product.getId());
+        if (removed >= 0 && !product.isNewerThan(version(removed))) {
+            // Observers of concurrent commits race, so an older write can arrive after a newer one
+            return this;
+        }
+        int inserted = lowerBound(product.getName(), product.getId());
+        if (removed >= 0 && removed < inserted) {
+            inserted--;
+        }
+        int n = removed >= 0 ? rowCount : rowCount + 1;
+
+        // Resolve the category ordinal, extending the category table if needed
+        UUID[] newCategoryIds = categoryIds;
+        String[] newCategoryNames = categoryNames;
+        int ordinal = NO_CATEGORY;
+        ProductView.CategoryRef category = product.getCategory();
+        if (category != null) {
+            Integer existing = ordinalByCategoryId.get(category.getId());
+            if (existing == null) {
+                ordinal = categoryIds.length;
+                newCategoryIds = Arrays.copyOf(categoryIds, ordinal + 1);
+                newCategoryNames = Arrays.copyOf(categoryNames, ordinal + 1);
+                newCategoryIds[ordinal] = category.getId();
+                newCategoryNames[ordinal] = intern(category.getName());
+            } else {
+                ordinal = existing;
+                if (category.getName() != null && !category.getName().equals(categoryNames[ordinal])) {
+                    newCategoryNames = categoryNames.clone();
+                    newCategoryNames[ordinal] = intern(category.getName());
+                }
+            }
+        }
+
+        UUID[] newIds = splice(ids, new UUID[n], removed, inserted);
+        String[] newNames = splice(names, new String[n], removed, inserted);
+        String[] newNameKeys = splice(nameKeys, new String[n], removed, inserted);
+        String[] newDescriptions = splice(descriptions, new String[n], removed, inserted);
+        String[] newSkus = splice(skus, new String[n], removed, inserted);
+        String[] newImageUrls = splice(imageUrls, new String[n], removed, inserted);
+        String[] newDimensions = splice(dimensions, new String[n], removed, inserted);
+        long[] newPriceCents = splice(priceCents, new long[n], removed, inserted);
+        int[] newStock = splice(stock, new int[n], removed, inserted);
+        boolean[] newActive = splice(active, new boolean[n], removed, inserted);
+        int[] newCategoryOrdinals = splice(categoryOrdinals, new int[n], removed, inserted);
+        double[] newWeights = splice(weights, new double[n], removed, inserted);
+        long[] newVersions = splice(versions, new long[n], removed, inserted);
+        LocalDateTime[] newCreatedAt = splice(createdAt, new LocalDateTime[n], removed, inserted);
+        LocalDateTime[] newUpdatedAt = splice(updatedAt, new LocalDateTime[n], removed, inserted);
+
+        newIds[inserted] = product.getId();
+        newNames[inserted] = product.getName();
+        newNameKeys[inserted] = normalize(product.getName());
+        newDescriptions[inserted] = product.getDescription();
+        newSkus[inserted] = product.getSku();
+        newImageUrls[inserted] = product.getImageUrl();
+        newDimensions[inserted] = intern(product.getDimensions());
+        newPriceCents[inserted] = toCents(product.getPrice());
+        newStock[inserted] = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+        newActive[inserted] = Boolean.TRUE.equals(product.getIsActive());
+        newCategoryOrdinals[inserted] = ordinal;
+        newWeights[inserted] = product.getWeight() != null ? product.getWeight() : Double.NaN;
+        newVersions[inserted] = product.getVersion() != null ? product.getVersion() : NO_VERSION;
+        newCreatedAt[inserted] = product.getCreatedAt();
+        newUpdatedAt[inserted] = product.getUpdatedAt();
+
+        return new CatalogSnapshot(n, newIds, newNames, newNameKeys, newDescriptions, newSkus, newImageUrls,
+            newDimensions, newPriceCents, newStock, newActive, newCategoryOrdinals, newWeights, newVersions,
+            newCreatedAt, newUpdatedAt, newCategoryIds, newCategoryNames);
+    }
+
+    /**
+     * Return a new snapshot without the given product.
+     */
+    public CatalogSnapshot without(UUID id) {
+        int removed = rowOf(id);
+        if (removed < 0) {
+            return this;
+        }
+        int n = rowCount - 1;
+        return new CatalogSnapshot(n,
+            splice(ids, new UUID[n], removed, -1),
+            splice(names, new String[n], removed, -1),
+            splice(nameKeys, new String[n], removed, -1),
+            splice(descriptions, new String[n], removed, -1),
+            splice(skus, new String[n], removed, -1),
+            splice(imageUrls, new String[n], removed, -1),
+            splice(dimensions, new String[n], removed, -1),
+            splice(priceCents, new long[n], removed, -1),
+            splice(stock, new int[n], removed, -1),
+            splice(active, new boolean[n], removed, -1),
+            splice(categoryOrdinals, new int[n], removed, -1),
+            splice(weights, new double[n], removed, -1),
+            splice(versions, new long[n], removed, -1),
+            splice(createdAt, new LocalDateTime[n], removed, -1),
+            splice(updatedAt, new LocalDateTime[n], removed, -1),
+            categoryIds, categoryNames);
+    }
+
+    /**
+     * Return a new snapshot in which the category has the given name. Rows refer to categories
+     * by ordinal, so only the category table is copied.
+     */
+    public CatalogSnapshot withCategoryName(UUID categoryId, String name) {
+        Integer ordinal = ordinalByCategoryId.get(categoryId);
+        if (ordinal == null || name == null || name.equals(categoryNames[ordinal])) {
+            return this;
+        }
+        String[] newCategoryNames = categoryNames.clone();
+        newCategoryNames[ordinal] = intern(name);
+        return new CatalogSnapshot(rowCount, ids, names, nameKeys, descriptions, skus, imageUrls, dimensions,
+            priceCents, stock, active, categoryOrdinals, weights, versions, createdAt, updatedAt,
+            categoryIds, newCategoryNames);
+    }
+
+    /**
+     * The latest version of each given product that is newer than its row, by product ID.
+     */
+    private Map<UUID, ProductView> newest(Collection<ProductView> products) {
+        Map<UUID, ProductView> newest = new LinkedHashMap<>(products.size() * 2);
+        for (ProductView product : products) {
+            int row = rowOf(product.getId());
+            ProductView seen = newest.get(product.getId());
+            if ((row < 0 || product.isNewerThan(version(row)))
+                    && (seen == null || product.isNewerThan(seen.getVersion()))) {
+                newest.put(product.getId(), product);
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * Version of a row, or null if its product has none.
+     */
+    private Long version(int row) {
+        return versions[row] == NO_VERSION ? null : versions[row];
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    /**
+     * Product count and latest update time over the whole snapshot.
+     */
+    public ChangeStamp changeStamp() {
+        return changeStamp;
+    }
+
+    /**
+     * Row index of a product, or -1 if it is not in the snapshot.
+     */
+    public int rowOf(UUID id) {
+        Integer row = id != null ? rowById.get(id) : null;
+        return row != null ? row : -1;
+    }
+
+    /**
+     * Row index of a product by SKU, or -1 if it is not in the snapshot.
+     */
+    public int rowOfSku(String sku) {
+        Integer row = sku != null ? rowBySku.get(sku) : null;
+        return row != null ? row : -1;
+    }
+
+    /**
+     * Ordinal of a category, or -1 if no product in the snapshot references it.
+     */
+    public int categoryOrdinal(UUID categoryId) {
+        Integer ordinal = categoryId != null ? ordinalByCategoryId.get(categoryId) : null;
+        return ordinal != null ? ordinal : NO_CATEGORY;
+    }
+
+    public Optional<ProductView> findById(UUID id) {
+        int row = rowOf(id);
+        return row >= 0 ? Optional.of(view(row)) : Optional.empty();
+    }
+
+    public Optional<ProductView> findBySku(String sku) {
+        int row = rowOfSku(sku);
+        return row >= 0 ? Optional.of(view(row)) : Optional.empty();
+    }
+
+    // Column accessors for filters
+    public UUID id(int row) {
+        return ids[row];
+    }
+
+    public String nameKey(int row) {
+        return nameKeys[row];
+    }
+
+    public long priceCents(int row) {
+        return priceCents[row];
+    }
+
+    public int stock(int row) {
+        return stock[row];
+    }
+
+    public boolean isActive(int row) {
+        return active[row];
+    }
+
+    public int categoryOrdinalAt(int row) {
+        return categoryOrdinals[row];
+    }
+
+    /**
+     * Materialize a row as a product view.
+     */
+    public ProductView view(int row) {
+        int ordinal = categoryOrdinals[row];
+        ProductView.CategoryRef category = ordinal == NO_CATEGORY
+            ? null : new ProductView.CategoryRef(categoryIds[ordinal], categoryNames[ordinal]);
+        return new ProductView(
+            ids[row],
+            names[row],
+            descriptions[row],
+            priceCents[row] == NO_PRICE ? null : BigDecimal.valueOf(priceCents[row], 2),
+            stock[row],
+            skus[row],
+            imageUrls[row],
+            active[row],
+            category,
+            Double.isNaN(weights[row]) ? null : weights[row],
+            dimensions[row],
+            createdAt[row],
+            updatedAt[row],
+            versions[row] == NO_VERSION ? null : versions[row]);
+    }
+
+    /**
+     * Materialize every row, in (name, id) order.
+     */
+    public List<ProductView> views() {
+        List<ProductView> views = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            views.add(view(row));
+        }
+        return views;
+    }
+
+    /**
+     * Set of rows holding the given product IDs, for use with {@link #page(String, int, BitSet)}.
+     */
+    public BitSet rowsOf(Collection<UUID> productIds) {
+        BitSet rows = new BitSet(rowCount);
+        for (UUID id : productIds) {
+            int row = rowOf(id);
+            if (row >= 0) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Return a keyset page of the given rows, ordered by name.
+     */
+    public Page<ProductView> page(String cursor, int size, BitSet rows) {
+        int pageSize = Page.clampSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor, KeysetSort.NAME);
+        int row = rows.nextSetBit(after == null ? 0 : upperBound((String) after.getValue(), after.getId()));
+
+        List<ProductView> data = new ArrayList<>(pageSize);
+        int last = -1;
+        while (row >= 0 && data.size() < pageSize) {
+            data.add(view(row));
+            last = row;
+            row = rows.nextSetBit(row + 1);
+        }
+
+        String nextCursor = row >= 0
+            ? new KeysetCursor(KeysetSort.NAME, ids[last], names[last]).encode() : null;
+        return new Page<>(data, pageSize, nextCursor);
+    }
+
+    /**
+     * Return a keyset page of the given rows in any supported sort order.
+     * Name order is the row order; other orders sort the selected rows first.
+     */
+    public Page<ProductView> page(String cursor, int size, BitSet rows, KeysetSort sort) {
+        if (sort == KeysetSort.NAME) {
+            return page(cursor, size, rows);
+        }
+        int pageSize = Page.clampSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor, sort);
+
+        Comparator<Integer> order = rowComparator(sort);
+        List<Integer> ordered = new ArrayList<>(rows.cardinality());
+        rows.stream().forEach(ordered::add);
+        ordered.sort(order);
+
+        int start = 0;
+        if (after != null) {
+            // Binary search for the first row after the cursor position
+            int lo = 0;
+            int hi = ordered.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compareToCursor(ordered.get(mid), sort, after) <= 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            start = lo;
+        }
+
+        int end = Math.min(ordered.size(), start + pageSize);
+        List<ProductView> data = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            data.add(view(ordered.get(i)));
+        }
+
+        String nextCursor = null;
+        if (end < ordered.size()) {
+            int last = ordered.get(end - 1);
+            nextCursor = new KeysetCursor(sort, ids[last], sortValue(last, sort)).encode();
+        }
+        return new Page<>(data, pageSize, nextCursor);
+    }
+
+    /**
+     * Rows matching every criterion of the filter. Text criteria are resolved by the
+     * caller against the search index and passed in as matching product IDs.
+     */
+    public BitSet select(ProductFilter filter, Set<UUID> textMatches) {
+        BitSet rows;
+        if (textMatches != null) {
+            rows = rowsOf(textMatches);
+        } else {
+            rows = new BitSet(rowCount);
+            rows.set(0, rowCount);
+        }
+
+        boolean[] categories = null;
+        if (filter.getCategoryIds() != null) {
+            categories = new boolean[categoryIds.length];
+            for (UUID categoryId : filter.getCategoryIds()) {
+                int ordinal = categoryOrdinal(categoryId);
+                if (ordinal >= 0) {
+                    categories[ordinal] = true;
+                }
+            }
+        }
+        long minCents = filter.getMinPrice() != null ? toCents(filter.getMinPrice()) : Long.MIN_VALUE;
+        long maxCents = filter.getMaxPrice() != null ? toCents(filter.getMaxPrice()) : Long.MAX_VALUE;
+        Boolean wantActive = filter.getActive();
+
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            boolean match = (wantActive == null || active[row] == wantActive)
+                && (categories == null || (categoryOrdinals[row] != NO_CATEGORY && categories[categoryOrdinals[row]]))
+                && priceCents[row] >= minCents && priceCents[row] <= maxCents
+                && (!filter.isInStock() || stock[row] > 0);
+            if (!match) {
+                rows.clear(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Lowercase form used for case-insensitive matching.
+     */
+    public static String normalize(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * Price in cents, as stored in the price column.
+     */
+    public static long toCents(BigDecimal price) {
+        if (price == null) {
+            return NO_PRICE;
+        }
+        return price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private Comparator<Integer> rowComparator(KeysetSort sort) {
+        Comparator<Integer> byKey = switch (sort) {
+            case PRICE, PRICE_DESC -> Comparator.comparingLong(row -> priceCents[row]);
+            case CREATED_AT, CREATED_AT_DESC -> Comparator.comparing(row -> createdAt[row],
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+            case NAME -> Comparator.comparing(row -> names[row]);
+        };
+        Comparator<Integer> order = byKey.thenComparing(row -> ids[row]);
+        return sort.isAscending() ? order : order.reversed();
+    }
+
+    /**
+     * Compare a row with a cursor position in the direction of the sort.
+     */
+    private int compareToCursor(int row, KeysetSort sort, KeysetCursor after) {
+        int cmp = switch (sort) {
+            case PRICE, PRICE_DESC -> Long.compare(priceCents[row], toCents((BigDecimal) after.getValue()));
+            case CREATED_AT, CREATED_AT_DESC -> createdAt[row].compareTo((LocalDateTime) after.getValue());
+            case NAME -> names[row].compareTo((String) after.getValue());
+        };
+        if (cmp == 0) {
+            cmp = ids[row].compareTo(after.getId());
+        }
+        return sort.isAscending() ? cmp : -cmp;
+    }
+
+    private Comparable<?> sortValue(int row, KeysetSort sort) {
+        return switch (sort) {
+            case PRICE, PRICE_DESC -> BigDecimal.valueOf(priceCents[row], 2);
+            case CREATED_AT, CREATED_AT_DESC -> createdAt[row];
+            case NAME -> names[row];
+        };
+    }
+
+    /**
+     * First row whose (name, id) is not less than the given key.
+     */
+    private int lowerBound(String name, UUID id) {
+        int lo = 0;
+        int hi = rowCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareRow(mid, name, id) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * First row whose (name, id) is greater than the given key.
+     */
+    private int upperBound(String name, UUID id) {
+        int lo = 0;
+        int hi = rowCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareRow(mid, name, id) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int compareRow(int row, String name, UUID id) {
+        int cmp = names[row].compareTo(name);
+        return cmp != 0 ? cmp : ids[row].compareTo(id);
+    }
+
+    /**
+     * Ordinal of a category in a category table under construction, appending it if new and
+     * taking its latest name.
+     */
+    private static int ordinalOf(ProductView.CategoryRef category, List<UUID> categoryIds,
+                                 List<String> categoryNames, Map<UUID, Integer> ordinals) {
+        if (category == null) {
+            return NO_CATEGORY;
+        }
+        Integer ordinal = ordinals.get(category.getId());
+        if (ordinal == null) {
+            ordinal = categoryIds.size();
+            ordinals.put(category.getId(), ordinal);
+            categoryIds.add(category.getId());
+            categoryNames.add(intern(category.getName()));
+        } else if (category.getName() != null && !category.getName().equals(categoryNames.get(ordinal))) {
+            categoryNames.set(ordinal, intern(category.getName()));
+        }
+        return ordinal;
+    }
+
+    private static String intern(String value) {
+        return value != null ? value.intern() : null;
+    }
+
+    /**
+     * Copy a column into a new array, dropping the removed row (if any) and leaving
+     * a gap at the inserted position (if any). Works for any array type.
+     */
+    private <A> A splice(A source, A target, int removed, int inserted) {
+        int remaining = removed >= 0 ? rowCount - 1 : rowCount;
+        if (inserted < 0) {
+            copyRemaining(source, removed, 0, remaining, target, 0);
+        } else {
+            copyRemaining(source, removed, 0, inserted, target, 0);
+            copyRemaining(source, removed, inserted, remaining, target, inserted + 1);
+        }
+        return target;
+    }
+
+    /**
+     * Copy logical rows [from, to) of a column with the removed row skipped.
+     */
+    private static void copyRemaining(Object source, int removed, int from, int to, Object target, int targetPos) {
+        if (from >= to) {
+            return;
+        }
+        if (removed < 0 || to <= removed) {
+            System.arraycopy(source, from, target, targetPos, to - from);
+        } else if (from >= removed) {
+            System.arraycopy(source, from + 1, target, targetPos, to - from);
+        } else {
+            System.arraycopy(source, from, target, targetPos, removed - from);
+            System.arraycopy(source, removed + 1, target, targetPos + removed - from, to - removed);
+        }
+    }
+
+    /**
+     * Row columns of a snapshot under construction.
+     */
+    private static final class Columns {
+        private final UUID[] ids;
+        private final String[] names;
+        private final String[] nameKeys;
+        private final String[] descriptions;
+        private final String[] skus;
+        private final String[] imageUrls;
+        private final String[] dimensions;
+        private final long[] priceCents;
+        private final int[] stock;
+        private final boolean[] active;
+        private final int[] categoryOrdinals;
+        private final double[] weights;
+        private final long[] versions;
+        private final LocalDateTime[] createdAt;
+        private final LocalDateTime[] updatedAt;
+
+        Columns(int n) {
+            ids = new UUID[n];
+            names = new String[n];
+            nameKeys = new String[n];
+            descriptions = new String[n];
+            skus = new String[n];
+            imageUrls = new String[n];
+            dimensions = new String[n];
+            priceCents = new long[n];
+            stock = new int[n];
+            active = new boolean[n];
+            categoryOrdinals = new int[n];
+            weights = new double[n];
+            versions = new long[n];
+            createdAt = new LocalDateTime[n];
+            updatedAt = new LocalDateTime[n];
+        }
+
+        void set(int row, ProductView p, int categoryOrdinal) {
+            ids[row] = p.getId();
+            names[row] = p.getName();
+            nameKeys[row] = normalize(p.getName());
+            descriptions[row] = p.getDescription();
+            skus[row] = p.getSku();
+            imageUrls[row] = p.getImageUrl();
+            dimensions[row] = intern(p.getDimensions());
+            priceCents[row] = toCents(p.getPrice());
+            stock[row] = p.getStockQuantity() != null ? p.getStockQuantity() : 0;
+            active[row] = Boolean.TRUE.equals(p.getIsActive());
+            categoryOrdinals[row] = categoryOrdinal;
+            weights[row] = p.getWeight() != null ? p.getWeight() : Double.NaN;
+            versions[row] = p.getVersion() != null ? p.getVersion() : NO_VERSION;
+            createdAt[row] = p.getCreatedAt();
+            updatedAt[row] = p.getUpdatedAt();
+        }
+
+        /**
+         * Copy rows [from, to) of a snapshot, whose category ordinals must still be valid here.
+         */
+        void copy(CatalogSnapshot source, int from, int to, int row) {
+            int length = to - from;
+            System.arraycopy(source.ids, from, ids, row, length);
+            System.arraycopy(source.names, from, names, row, length);
+            System.arraycopy(source.nameKeys, from, nameKeys, row, length);
+            System.arraycopy(source.descriptions, from, descriptions, row, length);
+            System.arraycopy(source.skus, from, skus, row, length);
+            System.arraycopy(source.imageUrls, from, imageUrls, row, length);
+            System.arraycopy(source.dimensions, from, dimensions, row, length);
+            System.arraycopy(source.priceCents, from, priceCents, row, length);
+            System.arraycopy(source.stock, from, stock, row, length);
+            System.arraycopy(source.active, from, active, row, length);
+            System.arraycopy(source.categoryOrdinals, from, categoryOrdinals, row, length);
+            System.arraycopy(source.weights, from, weights, row, length);
+            System.arraycopy(source.versions, from, versions, row, length);
+            System.arraycopy(source.createdAt, from, createdAt, row, length);
+            System.arraycopy(source.updatedAt, from, updatedAt, row, length);
+        }
+
+        CatalogSnapshot build(List<UUID> categoryIds, List<String> categoryNames) {
+            return new CatalogSnapshot(ids.length, ids, names, nameKeys, descriptions, skus, imageUrls, dimensions,
+                priceCents, stock, active, categoryOrdinals, weights, versions, createdAt, updatedAt,
+                categoryIds.toArray(new UUID[0]), categoryNames.toArray(new String[0]));
+        }
+    }
+}
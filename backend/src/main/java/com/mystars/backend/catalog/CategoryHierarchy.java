@@ -0,0 +1,86 @@
+package com.mystars.backend.catalog;
+
+import com.mystars.backend.repository.CategoryRepository;
+import com.mystars.backend.service.BackgroundScheduler;
+import com.mystars.backend.service.CategoryChangedEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds the current materialized category tree.
+ * The tree is loaded at startup, or on first use if that fails, and rebuilt in the background
+ * after each committed category write.
+ */
+@ApplicationScoped
+public class CategoryHierarchy {
+
+    private static final Logger LOGGER = Logger.getLogger(CategoryHierarchy.class.getName());
+
+    @Inject
+    private CategoryRepository categoryRepository;
+
+    @Inject
+    private BackgroundScheduler scheduler;
+
+    private volatile CategoryTree tree;
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // Loaded on first use instead
+            LOGGER.log(Level.WARNING, "Could not load category tree", e);
+        }
+    }
+
+    /**
+     * Current tree, loading it from the database if it has not been loaded yet.
+     */
+    public CategoryTree tree() {
+        CategoryTree current = tree;
+        return current != null ? current : reload();
+    }
+
+    /**
+     * Whether the tree is loaded, so {@link #tree()} does not touch the database.
+     */
+    public boolean isLoaded() {
+        return tree != null;
+    }
+
+    /**
+     * Rebuild the tree from the database.
+     * Serialized so that a rebuild started after a commit is never overwritten by an older one.
+     */
+    public synchronized CategoryTree reload() {
+        CategoryTree rebuilt = CategoryTree.of(categoryRepository.findAllViews());
+        tree = rebuilt;
+        return rebuilt;
+    }
+
+    /**
+     * Rebuild on the background scheduler, as the committed transaction can no longer run
+     * queries. Changes committed while a rebuild is queued are read by that rebuild.
+     */
+    void onCategoryChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) CategoryChangedEvent event) {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    reload();
+                } catch (RuntimeException e) {
+                    // Loaded on next use instead of serving the stale tree
+                    tree = null;
+                    LOGGER.log(Level.WARNING, "Could not rebuild category tree", e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.mystars.backend.catalog;
+
+import com.mystars.backend.repository.ChangeStamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+
+/**
+ * Immutable category hierarchy.
+ * Nodes are stored in pre-order, so the subtree of the node at position {@code pre}
+ * is exactly the interval {@code [pre, end[pre])}. Descendant checks compare two
+ * intervals in constant time and a subtree is a contiguous slice of the node array.
+ */
+public final class CategoryTree {
+
+    private static final Comparator<CategoryView> SIBLING_ORDER = Comparator
+        .comparing((CategoryView c) -> c.getDisplayOrder() != null ? c.getDisplayOrder() : 0)
+        .thenComparing(CategoryView::getName, Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(CategoryView::getId);
+
+    private final CategoryView[] nodes;
+    private final List<CategoryView> ordered;
+    private final int[] end;
+    private final Map<UUID, Integer> preById;
+    private final List<List<CategoryView>> children;
+    private final List<List<CategoryView>> paths;
+    private final List<CategoryView> roots;
+    private final List<CategoryTreeNode> tree;
+    private final ChangeStamp changeStamp;
+
+    private CategoryTree(CategoryView[] nodes, int[] end, Map<UUID, Integer> preById,
+                         List<List<CategoryView>> children, List<List<CategoryView>> paths,
+                         List<CategoryView> roots, List<CategoryTreeNode> tree) {
+        this.nodes = nodes;
+        this.ordered = List.of(nodes);
+        this.end = end;
+        this.preById = preById;
+        this.children = children;
+        this.paths = paths;
+        this.roots = roots;
+        this.tree = tree;
+        LocalDateTime lastUpdate = null;
+        for (CategoryView node : nodes) {
+            if (node.getUpdatedAt() != null && (lastUpdate == null || node.getUpdatedAt().isAfter(lastUpdate))) {
+                lastUpdate = node.getUpdatedAt();
+            }
+        }
+        this.changeStamp = ChangeStamp.ofCollection(nodes.length, lastUpdate);
+    }
+
+    /**
+     * Build the tree from a flat list of categories.
+     * Categories whose parent is missing become roots; categories caught in a parent cycle are left out.
+     */
+    public static CategoryTree of(Collection<CategoryView> categories) {
+        Map<UUID, CategoryView> byId = new HashMap<>(categories.size() * 2);
+        for (CategoryView category : categories) {
+            byId.put(category.getId(), category);
+        }
+        Map<UUID, List<CategoryView>> childrenByParent = new HashMap<>();
+        List<CategoryView> rootViews = new ArrayList<>();
+        for (CategoryView category : categories) {
+            UUID parentId = category.getParentId();
+            if (parentId == null || !byId.containsKey(parentId)) {
+                rootViews.add(category);
+            } else {
+                childrenByParent.computeIfAbsent(parentId, id -> new ArrayList<>()).add(category);
+            }
+        }
+        rootViews.sort(SIBLING_ORDER);
+        childrenByParent.values().forEach(list -> list.sort(SIBLING_ORDER));
+
+        // Iterative pre-order walk over the nodes on the current path and the next child to visit for each
+        CategoryView[] nodes = new CategoryView[byId.size()];
+        int[] end = new int[byId.size()];
+        Map<UUID, Integer> preById = new HashMap<>(byId.size() * 2);
+        List<List<CategoryView>> children = new ArrayList<>(byId.size());
+        List<List<CategoryView>> paths = new ArrayList<>(byId.size());
+        int count = 0;
+
+        int[] stack = new int[byId.size()];
+        int[] nextChild = new int[byId.size()];
+        for (CategoryView root : rootViews) {
+            int depth = 0;
+            stack[depth] = count;
+            count = visit(root, null, count, nodes, preById, children, paths, childrenByParent);
+            nextChild[depth] = 0;
+            while (depth >= 0) {
+                int pre = stack[depth];
+                List<CategoryView> kids = children.get(pre);
+                if (nextChild[depth] < kids.size()) {
+                    CategoryView child = kids.get(nextChild[depth]++);
+                    stack[++depth] = count;
+                    nextChild[depth] = 0;
+                    count = visit(child, paths.get(pre), count, nodes, preById, children, paths, childrenByParent);
+                } else {
+                    end[pre] = count;
+                    depth--;
+                }
+            }
+        }
+
+        CategoryView[] reachable = Arrays.copyOf(nodes, count);
+        int[] ends = Arrays.copyOf(end, count);
+        List<CategoryTreeNode> tree = new ArrayList<>();
+        int pre = 0;
+        while (pre < count) {
+            tree.add(nest(pre, reachable, ends, children, preById));
+            pre = ends[pre];
+        }
+        return new CategoryTree(reachable, ends, preById, children, paths,
+            rootViews.stream().filter(root -> preById.containsKey(root.getId())).toList(),
+            Collections.unmodifiableList(tree));
+    }
+
+    private static int visit(CategoryView category, List<CategoryView> parentPath, int pre,
+                             CategoryView[] nodes, Map<UUID, Integer> preById,
+                             List<List<CategoryView>> children, List<List<CategoryView>> paths,
+                             Map<UUID, List<CategoryView>> childrenByParent) {
+        nodes[pre] = category;
+        preById.put(category.getId(), pre);
+        children.add(List.copyOf(childrenByParent.getOrDefault(category.getId(), List.of())));
+        List<CategoryView> path = new ArrayList<>(parentPath != null ? parentPath.size() + 1 : 1);
+        if (parentPath != null) {
+            path.addAll(parentPath);
+        }
+        path.add(category);
+        paths.add(Collections.unmodifiableList(path));
+        return pre + 1;
+    }
+
+    private static CategoryTreeNode nest(int pre, CategoryView[] nodes, int[] end,
+                                         List<List<CategoryView>> children, Map<UUID, Integer> preById) {
+        List<CategoryTreeNode> nested = new ArrayList<>(children.get(pre).size());
+        for (CategoryView child : children.get(pre)) {
+            nested.add(nest(preById.get(child.getId()), nodes, end, children, preById));
+        }
+        return new CategoryTreeNode(nodes[pre], Collections.unmodifiableList(nested));
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Category count and latest update time over the whole tree.
+     */
+    public ChangeStamp changeStamp() {
+        return changeStamp;
+    }
+
+    public Optional<CategoryView> findById(UUID id) {
+        Integer pre = preById.get(id);
+        return pre != null ? Optional.of(nodes[pre]) : Optional.empty();
+    }
+
+    public boolean contains(UUID id) {
+        return preById.containsKey(id);
+    }
+
+    /**
+     * All categories in pre-order.
+     */
+    public List<CategoryView> categories() {
+        return ordered;
+    }
+
+    public List<CategoryView> roots() {
+        return roots;
+    }
+
+    /**
+     * Direct sub-categories, or an empty list if the category is unknown.
+     */
+    public List<CategoryView> children(UUID id) {
+        Integer pre = preById.get(id);
+        return pre != null ? children.get(pre) : List.of();
+    }
+
+    /**
+     * Categories from the root down to and including the given one, or an empty list if unknown.
+     */
+    public List<CategoryView> path(UUID id) {
+        Integer pre = preById.get(id);
+        return pre != null ? paths.get(pre) : List.of();
+    }
+
+    /**
+     * The whole hierarchy as nested nodes.
+     */
+    public List<CategoryTreeNode> tree() {
+        return tree;
+    }
+
+    /**
+     * Whether {@code id} is a strict descendant of {@code ancestorId}.
+     */
+    public boolean isDescendant(UUID id, UUID ancestorId) {
+        Integer pre = preById.get(id);
+        Integer ancestor = preById.get(ancestorId);
+        return pre != null && ancestor != null && ancestor < pre && pre < end[ancestor];
+    }
+
+    /**
+     * Sum a per-category count over each category's subtree.
+     * The result is indexed like {@link #categories()}.
+     */
+    public long[] subtreeTotals(ToLongFunction<UUID> count) {
+        long[] prefix = new long[nodes.length + 1];
+        for (int i = 0; i < nodes.length; i++) {
+            prefix[i + 1] = prefix[i] + count.applyAsLong(nodes[i].getId());
+        }
+        long[] totals = new long[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            totals[i] = prefix[end[i]] - prefix[i];
+        }
+        return totals;
+    }
+
+    /**
+     * IDs of a category and all of its descendants, or an empty list if the category is unknown.
+     */
+    public List<UUID> subtreeIds(UUID id) {
+        Integer pre = preById.get(id);
+        if (pre == null) {
+            return List.of();
+        }
+        List<UUID> ids = new ArrayList<>(end[pre] - pre);
+        for (int i = pre; i < end[pre]; i++) {
+            ids.add(nodes[i].getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,47 @@
+package com.mystars.backend.catalog;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A category with its sub-categories nested, as served by the full-tree endpoint.
+ */
+public class CategoryTreeNode {
+
+    private final CategoryView category;
+    private final List<CategoryTreeNode> children;
+
+    CategoryTreeNode(CategoryView category, List<CategoryTreeNode> children) {
+        this.category = category;
+        this.children = children;
+    }
+
+    // Getters
+    public UUID getId() {
+        return category.getId();
+    }
+
+    public String getName() {
+        return category.getName();
+    }
+
+    public String getDescription() {
+        return category.getDescription();
+    }
+
+    public String getImageUrl() {
+        return category.getImageUrl();
+    }
+
+    public Boolean getIsActive() {
+        return category.getIsActive();
+    }
+
+    public Integer getDisplayOrder() {
+        return category.getDisplayOrder();
+    }
+
+    public List<CategoryTreeNode> getChildren() {
+        return children;
+    }
+}
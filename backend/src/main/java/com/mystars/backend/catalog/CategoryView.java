@@ -0,0 +1,121 @@
+package com.mystars.backend.catalog;
+
+import com.mystars.backend.entity.Category;
+import com.mystars.backend.entity.Versioned;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Read-only view of a category without its lazy parent, children and product associations.
+ */
+public class CategoryView implements Versioned {
+
+    /**
+     * Properties selectable with a sparse fieldset, in serialization order.
+     */
+    public static final Map<String, Function<CategoryView, Object>> FIELDS = fields();
+
+    private final UUID id;
+    private final String name;
+    private final String description;
+    private final String imageUrl;
+    private final UUID parentId;
+    private final Boolean isActive;
+    private final Integer displayOrder;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final Long version;
+
+    public CategoryView(UUID id, String name, String description, String imageUrl, UUID parentId,
+                        Boolean isActive, Integer displayOrder, LocalDateTime createdAt,
+                        LocalDateTime updatedAt, Long version) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.imageUrl = imageUrl;
+        this.parentId = parentId;
+        this.isActive = isActive;
+        this.displayOrder = displayOrder;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.version = version;
+    }
+
+    /**
+     * Copy the serialized fields of a category entity.
+     */
+    public static CategoryView from(Category category) {
+        Category parent = category.getParent();
+        return new CategoryView(
+            category.getId(),
+            category.getName(),
+            category.getDescription(),
+            category.getImageUrl(),
+            parent != null ? parent.getId() : null,
+            category.getIsActive(),
+            category.getDisplayOrder(),
+            category.getCreatedAt(),
+            category.getUpdatedAt(),
+            category.getVersion());
+    }
+
+    private static Map<String, Function<CategoryView, Object>> fields() {
+        Map<String, Function<CategoryView, Object>> fields = new LinkedHashMap<>();
+        fields.put("id", CategoryView::getId);
+        fields.put("name", CategoryView::getName);
+        fields.put("description", CategoryView::getDescription);
+        fields.put("imageUrl", CategoryView::getImageUrl);
+        fields.put("parentId", CategoryView::getParentId);
+        fields.put("isActive", CategoryView::getIsActive);
+        fields.put("displayOrder", CategoryView::getDisplayOrder);
+        fields.put("createdAt", CategoryView::getCreatedAt);
+        fields.put("updatedAt", CategoryView::getUpdatedAt);
+        fields.put("version", CategoryView::getVersion);
+        return Collections.unmodifiableMap(fields);
+    }
+
+    // Getters
+    public UUID getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public UUID getParentId() {
+        return parentId;
+    }
+
+    public Boolean getIsActive() {
+        return isActive;
+    }
+
+    public Integer getDisplayOrder() {
+        return displayOrder;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
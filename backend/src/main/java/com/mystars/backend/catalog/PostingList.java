@@ -0,0 +1,159 @@
+package com.mystars.backend.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Immutable posting list of (document, weight) pairs sorted by document number.
+ * Entries are stored as variable-length encoded document gaps followed by the weight,
+ * which keeps most entries to two or three bytes.
+ */
+final class PostingList {
+
+    static final PostingList EMPTY = new PostingList(new byte[0], 0);
+
+    private final byte[] data;
+    private final int count;
+
+    private PostingList(byte[] data, int count) {
+        this.data = data;
+        this.count = count;
+    }
+
+    /**
+     * Encode sorted document numbers with their weights.
+     */
+    static PostingList of(int[] docs, int[] weights, int count) {
+        byte[] buffer = new byte[count * 10];
+        int pos = 0;
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            pos = writeVarInt(buffer, pos, docs[i] - previous);
+            pos = writeVarInt(buffer, pos, weights[i]);
+            previous = docs[i];
+        }
+        return new PostingList(Arrays.copyOf(buffer, pos), count);
+    }
+
+    /**
+     * Number of documents containing the term.
+     */
+    int size() {
+        return count;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Decode into parallel arrays of documents and weights.
+     */
+    void decode(int[] docs, int[] weights) {
+        int pos = 0;
+        int doc = 0;
+        for (int i = 0; i < count; i++) {
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += gap;
+            docs[i] = doc;
+
+            int weight = 0;
+            shift = 0;
+            do {
+                b = data[pos++];
+                weight |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            weights[i] = weight;
+        }
+    }
+
+    /**
+     * Return a copy with a batch of changes applied in one pass over the list. The changed
+     * documents are sorted and distinct; a weight of zero removes the document, any other adds
+     * it or replaces its weight.
+     */
+    PostingList apply(int[] changedDocs, int[] changedWeights, int changes) {
+        int[] docs = new int[count];
+        int[] weights = new int[count];
+        decode(docs, weights);
+        int[] mergedDocs = new int[count + changes];
+        int[] mergedWeights = new int[count + changes];
+        int merged = 0;
+        int i = 0;
+        for (int j = 0; j < changes; j++) {
+            while (i < count && docs[i] < changedDocs[j]) {
+                mergedDocs[merged] = docs[i];
+                mergedWeights[merged++] = weights[i++];
+            }
+            if (i < count && docs[i] == changedDocs[j]) {
+                i++;
+            }
+            if (changedWeights[j] != 0) {
+                mergedDocs[merged] = changedDocs[j];
+                mergedWeights[merged++] = changedWeights[j];
+            }
+        }
+        System.arraycopy(docs, i, mergedDocs, merged, count - i);
+        System.arraycopy(weights, i, mergedWeights, merged, count - i);
+        merged += count - i;
+        return merged == 0 ? EMPTY : of(mergedDocs, mergedWeights, merged);
+    }
+
+    /**
+     * Keep only the candidates that are in this list, adding their weight times the factor to
+     * their scores. Candidates are sorted; those kept are moved to the front, in order. Stops
+     * decoding once every candidate has been passed.
+     *
+     * @return number of candidates kept
+     */
+    int retain(int[] candidates, float[] scores, int candidateCount, float factor) {
+        int kept = 0;
+        int next = 0;
+        int pos = 0;
+        int doc = 0;
+        for (int i = 0; i < count && next < candidateCount; i++) {
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += gap;
+
+            int weight = 0;
+            shift = 0;
+            do {
+                b = data[pos++];
+                weight |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            while (next < candidateCount && candidates[next] < doc) {
+                next++;
+            }
+            if (next < candidateCount && candidates[next] == doc) {
+                candidates[kept] = doc;
+                scores[kept++] = scores[next++] + weight * factor;
+            }
+        }
+        return kept;
+    }
+
+    private static int writeVarInt(byte[] buffer, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[pos++] = (byte) value;
+        return pos;
+    }
+}
@@ -0,0 +1,261 @@
+package com.mystars.backend.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable radix trie mapping normalized keys to product completions.
+ * Every node caches the best {@code k} completions of its subtree, so a prefix lookup
+ * is a walk down at most {@code prefix.length()} characters with no subtree scan.
+ * Updates copy only the nodes on the path to the key and share everything else.
+ */
+final class PrefixTrie {
+
+    /**
+     * A product reachable under a key, ranked by popularity.
+     */
+    record Completion(UUID productId, String name, String sku, long score) {
+    }
+
+    static final Comparator<Completion> RANKING = Comparator
+        .comparingLong(Completion::score).reversed()
+        .thenComparing(Completion::name, Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(Completion::productId);
+
+    private static final Completion[] NONE = new Completion[0];
+
+    private final Node root;
+    private final int k;
+
+    private PrefixTrie(Node root, int k) {
+        this.root = root;
+        this.k = k;
+    }
+
+    static PrefixTrie empty(int k) {
+        return new PrefixTrie(new Node(new String[0], new Node[0], NONE, NONE), k);
+    }
+
+    /**
+     * Best completions of every key starting with the prefix, at most {@code k}.
+     */
+    List<Completion> complete(String prefix) {
+        Node node = root;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            int index = node.childIndex(prefix.charAt(pos));
+            if (index < 0) {
+                return List.of();
+            }
+            String label = node.labels[index];
+            int remaining = prefix.length() - pos;
+            if (remaining <= label.length()) {
+                return label.startsWith(prefix.substring(pos)) ? List.of(node.children[index].top) : List.of();
+            }
+            if (!prefix.startsWith(label, pos)) {
+                return List.of();
+            }
+            pos += label.length();
+            node = node.children[index];
+        }
+        return List.of(node.top);
+    }
+
+    /**
+     * Return a trie with the completion added under the key, replacing any entry for the same product.
+     */
+    PrefixTrie with(String key, Completion completion) {
+        return new PrefixTrie(insert(root, key, 0, completion), k);
+    }
+
+    /**
+     * Return a trie without the product's entry under the key.
+     */
+    PrefixTrie without(String key, UUID productId) {
+        Node updated = remove(root, key, 0, productId);
+        return new PrefixTrie(updated != null ? updated : empty(k).root, k);
+    }
+
+    private Node insert(Node node, String key, int pos, Completion completion) {
+        if (pos == key.length()) {
+            return node.withTerminals(replace(node.terminals, completion), k);
+        }
+        int index = node.childIndex(key.charAt(pos));
+        if (index < 0) {
+            Completion[] terminal = {completion};
+            Node leaf = new Node(new String[0], new Node[0], terminal, terminal);
+            return node.withChild(key.substring(pos), leaf, k);
+        }
+        String label = node.labels[index];
+        Node child = node.children[index];
+        int common = commonPrefix(label, key, pos);
+        if (common == label.length()) {
+            return node.replaceChild(index, label, insert(child, key, pos + common, completion), k);
+        }
+        // Split the edge at the first differing character
+        Node middle = new Node(new String[] {label.substring(common)}, new Node[] {child}, NONE, child.top);
+        return node.replaceChild(index, label.substring(0, common), insert(middle, key, pos + common, completion), k);
+    }
+
+    private Node remove(Node node, String key, int pos, UUID productId) {
+        if (pos == key.length()) {
+            Completion[] terminals = removeProduct(node.terminals, productId);
+            if (terminals == node.terminals) {
+                return node;
+            }
+            return node.withTerminals(terminals, k).prunedOrNull();
+        }
+        int index = node.childIndex(key.charAt(pos));
+        if (index < 0 || !key.startsWith(node.labels[index], pos)) {
+            return node;
+        }
+        String label = node.labels[index];
+        Node child = node.children[index];
+        Node updated = remove(child, key, pos + label.length(), productId);
+        if (updated == child) {
+            return node;
+        }
+        Node result;
+        if (updated == null) {
+            result = node.withoutChild(index, k);
+        } else if (updated.terminals.length == 0 && updated.children.length == 1) {
+            // Merge a pass-through node into its only child's edge
+            result = node.replaceChild(index, label + updated.labels[0], updated.children[0], k);
+        } else {
+            result = node.replaceChild(index, label, updated, k);
+        }
+        return result.prunedOrNull();
+    }
+
+    private static int commonPrefix(String label, String key, int pos) {
+        int max = Math.min(label.length(), key.length() - pos);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(pos + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Completion[] replace(Completion[] completions, Completion completion) {
+        Completion[] result = removeProduct(completions, completion.productId());
+        result = Arrays.copyOf(result, result.length + 1);
+        result[result.length - 1] = completion;
+        return result;
+    }
+
+    private static Completion[] removeProduct(Completion[] completions, UUID productId) {
+        for (int i = 0; i < completions.length; i++) {
+            if (completions[i].productId().equals(productId)) {
+                Completion[] result = new Completion[completions.length - 1];
+                System.arraycopy(completions, 0, result, 0, i);
+                System.arraycopy(completions, i + 1, result, i, result.length - i);
+                return result;
+            }
+        }
+        return completions;
+    }
+
+    /**
+     * Trie node. Edge labels are kept sorted and no two labels share a first character.
+     */
+    private static final class Node {
+        final String[] labels;
+        final Node[] children;
+        final Completion[] terminals;
+        final Completion[] top;
+
+        Node(String[] labels, Node[] children, Completion[] terminals, Completion[] top) {
+            this.labels = labels;
+            this.children = children;
+            this.terminals = terminals;
+            this.top = top;
+        }
+
+        int childIndex(char first) {
+            int low = 0;
+            int high = labels.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = labels[mid].charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        Node withTerminals(Completion[] newTerminals, int k) {
+            return new Node(labels, children, newTerminals, top(newTerminals, children, k));
+        }
+
+        Node withChild(String label, Node child, int k) {
+            int insert = 0;
+            while (insert < labels.length && labels[insert].charAt(0) < label.charAt(0)) {
+                insert++;
+            }
+            String[] newLabels = new String[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newLabels[insert] = label;
+            newChildren[insert] = child;
+            System.arraycopy(labels, insert, newLabels, insert + 1, labels.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            return new Node(newLabels, newChildren, terminals, top(terminals, newChildren, k));
+        }
+
+        Node replaceChild(int index, String label, Node child, int k) {
+            String[] newLabels = labels.clone();
+            Node[] newChildren = children.clone();
+            newLabels[index] = label;
+            newChildren[index] = child;
+            return new Node(newLabels, newChildren, terminals, top(terminals, newChildren, k));
+        }
+
+        Node withoutChild(int index, int k) {
+            String[] newLabels = new String[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, newLabels.length - index);
+            System.arraycopy(children, index + 1, newChildren, index, newChildren.length - index);
+            return new Node(newLabels, newChildren, terminals, top(terminals, newChildren, k));
+        }
+
+        Node prunedOrNull() {
+            return terminals.length == 0 && children.length == 0 ? null : this;
+        }
+
+        /**
+         * Best {@code k} distinct products among the node's own entries and its children's cached tops.
+         */
+        private static Completion[] top(Completion[] terminals, Node[] children, int k) {
+            List<Completion> candidates = new ArrayList<>(terminals.length + children.length * k);
+            candidates.addAll(Arrays.asList(terminals));
+            for (Node child : children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(RANKING);
+            List<Completion> best = new ArrayList<>(Math.min(k, candidates.size()));
+            Set<UUID> seen = new HashSet<>();
+            for (Completion candidate : candidates) {
+                if (best.size() == k) {
+                    break;
+                }
+                if (seen.add(candidate.productId())) {
+                    best.add(candidate);
+                }
+            }
+            return best.toArray(NONE);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.mystars.backend.catalog;
+
+import com.mystars.backend.repository.ProductRepository;
+import com.mystars.backend.service.CategoryChangedEvent;
+import com.mystars.backend.service.ProductChangedEvent;
+import com.mystars.backend.service.ProductsSavedEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds the current in-memory catalog snapshot used to serve product reads.
+ * The snapshot is loaded at startup, or on first use if that fails, and every committed
+ * product or category write is applied to it, so readers always see a consistent catalog
+ * without touching the database.
+ */
+@ApplicationScoped
+public class ProductCatalog {
+
+    private static final Logger LOGGER = Logger.getLogger(ProductCatalog.class.getName());
+    private static final long RETRY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    @Inject
+    private ProductRepository productRepository;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+
+    // Changes committed while a load reads the table, applied to its result; both guarded by missed
+    private final List<UnaryOperator<CatalogSnapshot>> missed = new ArrayList<>();
+    private boolean loading;
+
+    // Guarded by this
+    private long nextLoadAt = System.nanoTime();
+
+    /**
+     * Load the catalog when the application starts, before the indexes derived from it.
+     */
+    void onStartup(@Observes @Priority(Interceptor.Priority.APPLICATION) @Initialized(ApplicationScoped.class) Object event) {
+        load();
+    }
+
+    /**
+     * Current snapshot, loading it from the database if it has not been loaded yet.
+     * Null if it cannot be loaded; a failed load is retried after a pause.
+     */
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot current = snapshot.get();
+        return current != null ? current : load();
+    }
+
+    /**
+     * Whether the snapshot is loaded, so {@link #snapshot()} does not touch the database.
+     */
+    public boolean isLoaded() {
+        return snapshot.get() != null;
+    }
+
+    /**
+     * All products, from the snapshot when loaded or else from the database.
+     */
+    public List<ProductView> products() {
+        CatalogSnapshot current = snapshot();
+        if (current != null) {
+            return current.views();
+        }
+        return productRepository.findAllViews();
+    }
+
+    /**
+     * Build the snapshot from the database unless another caller already has. Writes committed
+     * while the table is read are recorded and applied to the result; their version checks
+     * drop those the read already saw.
+     */
+    private synchronized CatalogSnapshot load() {
+        CatalogSnapshot current = snapshot.get();
+        if (current != null || System.nanoTime() - nextLoadAt < 0) {
+            return current;
+        }
+        synchronized (missed) {
+            loading = true;
+        }
+        CatalogSnapshot loaded = null;
+        try {
+            loaded = CatalogSnapshot.of(productRepository.findAllViews());
+        } catch (RuntimeException e) {
+            // Reads fall back to the database until a later load succeeds
+            nextLoadAt = System.nanoTime() + RETRY_INTERVAL_NANOS;
+            LOGGER.log(Level.WARNING, "Could not load product catalog snapshot", e);
+        }
+        synchronized (missed) {
+            if (loaded != null) {
+                for (UnaryOperator<CatalogSnapshot> change : missed) {
+                    loaded = change.apply(loaded);
+                }
+                snapshot.set(loaded);
+            }
+            missed.clear();
+            loading = false;
+        }
+        return loaded;
+    }
+
+    /**
+     * Apply a committed change to the snapshot, or to the one being loaded.
+     */
+    private void apply(UnaryOperator<CatalogSnapshot> change) {
+        if (snapshot.get() == null) {
+            synchronized (missed) {
+                if (snapshot.get() == null) {
+                    // Without a load under way, the next one reads the change from the table
+                    if (loading) {
+                        missed.add(change);
+                    }
+                    return;
+                }
+            }
+        }
+        snapshot.updateAndGet(change);
+    }
+
+    /**
+     * Apply a committed product write to the snapshot, before the indexes that read it see the write.
+     */
+    void onProductChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+                          @Priority(Interceptor.Priority.APPLICATION) ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            apply(current -> current.without(event.getId()));
+        } else {
+            ProductView product = ProductView.from(event.getProduct());
+            apply(current -> current.with(product));
+        }
+    }
+
+    /**
+     * Apply a committed chunk of a bulk product write to the snapshot.
+     */
+    void onProductsSaved(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+                         @Priority(Interceptor.Priority.APPLICATION) ProductsSavedEvent event) {
+        List<ProductView> products = event.getProducts().stream().map(ProductView::from).toList();
+        apply(current -> current.withAll(products));
+    }
+
+    /**
+     * Category names are denormalized into the snapshot's category table, so rename them there.
+     */
+    void onCategoryChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) CategoryChangedEvent event) {
+        if (event.getName() != null) {
+            apply(current -> current.withCategoryName(event.getId(), event.getName()));
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.mystars.backend.catalog;
+
+import com.mystars.backend.entity.Product;
+import com.mystars.backend.repository.ProductFilter;
+import com.mystars.backend.service.ProductChangedEvent;
+import com.mystars.backend.service.ProductsSavedEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bitmap indexes over the catalog for facet counts.
+ * Every product gets a stable document number and one bit in the bitset of its category,
+ * its price bucket and the active / in-stock flags, so counts are bitset intersections.
+ */
+@ApplicationScoped
+public class ProductFacetIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(ProductFacetIndex.class.getName());
+
+    /** Lower bounds of the price buckets, in cents; the last bucket is unbounded. */
+    private static final long[] BUCKET_BOUNDS = {0, 2_500, 5_000, 10_000, 25_000, 50_000};
+    private static final int NO_BUCKET = -1;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    @Inject
+    private ProductCatalog productCatalog;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final Map<UUID, Integer> docByProduct = new HashMap<>();
+    private final Deque<Integer> freeDocs = new ArrayDeque<>();
+    private UUID[] categoryByDoc = new UUID[0];
+    private long[] priceByDoc = new long[0];
+    private final BitSet live = new BitSet();
+    private final BitSet active = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final BitSet[] buckets = new BitSet[BUCKET_BOUNDS.length];
+    private final Map<UUID, BitSet> byCategory = new HashMap<>();
+    private final Map<UUID, Long> versionByProduct = new HashMap<>();
+    private int nextDoc;
+    private volatile boolean loaded;
+    // Changes committed while the index is built, applied after it; null when no build is under way
+    private List<Runnable> missed;
+
+    /**
+     * Build the index once the catalog snapshot is loaded.
+     */
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not build product facet index", e);
+        }
+    }
+
+    /**
+     * Apply a committed product write to the index.
+     */
+    void onProductChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getId());
+        } else {
+            update(ProductView.from(event.getProduct()));
+        }
+    }
+
+    void onProductsSaved(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProductsSavedEvent event) {
+        for (Product product : event.getProducts()) {
+            update(ProductView.from(product));
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Build the index from the catalog unless it is built already. Concurrent callers wait for
+     * a single build; writes committed while the catalog is read are applied after it.
+     */
+    public void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                missed = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                rebuild(productCatalog.products());
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    missed = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuild the whole index from a list of products, then apply the writes missed meanwhile.
+     */
+    private void rebuild(Collection<ProductView> products) {
+        lock.writeLock().lock();
+        try {
+            docByProduct.clear();
+            freeDocs.clear();
+            categoryByDoc = new UUID[Math.max(16, products.size())];
+            priceByDoc = new long[categoryByDoc.length];
+            live.clear();
+            active.clear();
+            inStock.clear();
+            Arrays.setAll(buckets, i -> new BitSet());
+            byCategory.clear();
+            versionByProduct.clear();
+            nextDoc = 0;
+            for (ProductView product : products) {
+                index(allocateDoc(product.getId()), product);
+                versionByProduct.put(product.getId(), product.getVersion());
+            }
+            loaded = true;
+            List<Runnable> changes = missed;
+            missed = null;
+            if (changes != null) {
+                changes.forEach(Runnable::run);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index a new or changed product, unless the index already holds that version or a newer one.
+     */
+    public void update(ProductView product) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                defer(() -> update(product));
+                return;
+            }
+            if (!product.isNewerThan(versionByProduct.get(product.getId()))) {
+                return;
+            }
+            versionByProduct.put(product.getId(), product.getVersion());
+            Integer existing = docByProduct.get(product.getId());
+            int doc;
+            if (existing != null) {
+                doc = existing;
+                unindex(doc);
+            } else {
+                doc = allocateDoc(product.getId());
+            }
+            index(doc, product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a deleted product from the index.
+     */
+    public void remove(UUID productId) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                defer(() -> remove(productId));
+                return;
+            }
+            versionByProduct.remove(productId);
+            Integer doc = docByProduct.remove(productId);
+            if (doc != null) {
+                unindex(doc);
+                freeDocs.push(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Count products per category, price bucket and stock flag for a filter selection.
+     * Text criteria are resolved by the caller against the search index and passed in as matching product IDs.
+     */
+    public ProductFacets facets(ProductFilter filter, Set<UUID> textMatches, CategoryTree categories) {
+        lock.readLock().lock();
+        try {
+            // Criteria shared by every facet
+            BitSet common = (BitSet) live.clone();
+            if (filter.getActive() != null) {
+                if (filter.getActive()) {
+                    common.and(active);
+                } else {
+                    common.andNot(active);
+                }
+            }
+            if (textMatches != null) {
+                common.and(docsOf(textMatches));
+            }
+
+            // Criteria of each facet, left out when counting that facet
+            BitSet categoryRows = null;
+            if (filter.getCategoryIds() != null) {
+                categoryRows = new BitSet();
+                for (UUID categoryId : filter.getCategoryIds()) {
+                    BitSet rows = byCategory.get(categoryId);
+                    if (rows != null) {
+                        categoryRows.or(rows);
+                    }
+                }
+            }
+            BitSet priceRows = null;
+            if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+                priceRows = priceRange(common, filter.getMinPrice(), filter.getMaxPrice());
+            }
+            BitSet stockRows = filter.isInStock() ? inStock : null;
+
+            BitSet selection = intersect(common, categoryRows, priceRows, stockRows);
+            long inStockCount = intersect(common, categoryRows, priceRows, inStock).cardinality();
+
+            // Category counts include products of every sub-category
+            BitSet categoryBase = intersect(common, null, priceRows, stockRows);
+            Map<UUID, Long> direct = new HashMap<>(byCategory.size() * 2);
+            byCategory.forEach((categoryId, rows) -> direct.put(categoryId, intersectionCount(categoryBase, rows)));
+            long[] totals = categories.subtreeTotals(id -> direct.getOrDefault(id, 0L));
+            List<ProductFacets.CategoryCount> categoryCounts = new ArrayList<>();
+            List<CategoryView> ordered = categories.categories();
+            for (int i = 0; i < ordered.size(); i++) {
+                if (totals[i] > 0) {
+                    CategoryView category = ordered.get(i);
+                    categoryCounts.add(new ProductFacets.CategoryCount(
+                        category.getId(), category.getName(), category.getParentId(), totals[i]));
+                }
+            }
+
+            BitSet priceBase = intersect(common, categoryRows, null, stockRows);
+            List<ProductFacets.PriceRangeCount> priceCounts = new ArrayList<>(buckets.length);
+            for (int bucket = 0; bucket < buckets.length; bucket++) {
+                priceCounts.add(new ProductFacets.PriceRangeCount(
+                    BigDecimal.valueOf(BUCKET_BOUNDS[bucket], 2),
+                    bucket + 1 < BUCKET_BOUNDS.length ? BigDecimal.valueOf(BUCKET_BOUNDS[bucket + 1], 2) : null,
+                    intersectionCount(priceBase, buckets[bucket])));
+            }
+
+            return new ProductFacets(selection.cardinality(), inStockCount, categoryCounts, priceCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keep a write for the build under way; without one, the next build reads it from the catalog.
+     */
+    private void defer(Runnable change) {
+        if (missed != null) {
+            missed.add(change);
+        }
+    }
+
+    private void index(int doc, ProductView product) {
+        live.set(doc);
+        if (Boolean.TRUE.equals(product.getIsActive())) {
+            active.set(doc);
+        }
+        if (product.getStockQuantity() != null && product.getStockQuantity() > 0) {
+            inStock.set(doc);
+        }
+        long cents = product.getPrice() != null ? CatalogSnapshot.toCents(product.getPrice()) : NO_PRICE;
+        priceByDoc[doc] = cents;
+        int bucket = bucketOf(cents);
+        if (bucket != NO_BUCKET) {
+            buckets[bucket].set(doc);
+        }
+        UUID categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+        categoryByDoc[doc] = categoryId;
+        if (categoryId != null) {
+            byCategory.computeIfAbsent(categoryId, id -> new BitSet()).set(doc);
+        }
+    }
+
+    private void unindex(int doc) {
+        live.clear(doc);
+        active.clear(doc);
+        inStock.clear(doc);
+        int bucket = bucketOf(priceByDoc[doc]);
+        if (bucket != NO_BUCKET) {
+            buckets[bucket].clear(doc);
+        }
+        UUID categoryId = categoryByDoc[doc];
+        if (categoryId != null) {
+            BitSet rows = byCategory.get(categoryId);
+            rows.clear(doc);
+            if (rows.isEmpty()) {
+                byCategory.remove(categoryId);
+            }
+        }
+        categoryByDoc[doc] = null;
+        priceByDoc[doc] = NO_PRICE;
+    }
+
+    private int allocateDoc(UUID productId) {
+        int doc;
+        if (!freeDocs.isEmpty()) {
+            doc = freeDocs.pop();
+        } else {
+            doc = nextDoc++;
+            if (doc >= categoryByDoc.length) {
+                int capacity = Math.max(16, categoryByDoc.length * 2);
+                categoryByDoc = Arrays.copyOf(categoryByDoc, capacity);
+                priceByDoc = Arrays.copyOf(priceByDoc, capacity);
+            }
+        }
+        docByProduct.put(productId, doc);
+        return doc;
+    }
+
+    private BitSet docsOf(Set<UUID> productIds) {
+        BitSet docs = new BitSet();
+        for (UUID productId : productIds) {
+            Integer doc = docByProduct.get(productId);
+            if (doc != null) {
+                docs.set(doc);
+            }
+        }
+        return docs;
+    }
+
+    private BitSet priceRange(BitSet candidates, BigDecimal min, BigDecimal max) {
+        long minCents = min != null ? CatalogSnapshot.toCents(min) : Long.MIN_VALUE;
+        long maxCents = max != null ? CatalogSnapshot.toCents(max) : Long.MAX_VALUE;
+        BitSet rows = new BitSet();
+        for (int doc = candidates.nextSetBit(0); doc >= 0; doc = candidates.nextSetBit(doc + 1)) {
+            long cents = priceByDoc[doc];
+            if (cents != NO_PRICE && cents >= minCents && cents <= maxCents) {
+                rows.set(doc);
+            }
+        }
+        return rows;
+    }
+
+    private static int bucketOf(long cents) {
+        if (cents == NO_PRICE || cents < BUCKET_BOUNDS[0]) {
+            return NO_BUCKET;
+        }
+        int bucket = Arrays.binarySearch(BUCKET_BOUNDS, cents);
+        return bucket >= 0 ? bucket : -bucket - 2;
+    }
+
+    private static BitSet intersect(BitSet base, BitSet... others) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet other : others) {
+            if (other != null) {
+                result.and(other);
+            }
+        }
+        return result;
+    }
+
+    private static long intersectionCount(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.and(b);
+        return result.cardinality();
+    }
+}
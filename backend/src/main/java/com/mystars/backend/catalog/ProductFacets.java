@@ -0,0 +1,102 @@
+package com.mystars.backend.catalog;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Product counts per facet value for the current filter selection.
+ * Each facet is counted with every other criterion applied but its own,
+ * so the counts show what selecting that value would return.
+ */
+public class ProductFacets {
+
+    private final long total;
+    private final long inStock;
+    private final List<CategoryCount> categories;
+    private final List<PriceRangeCount> priceRanges;
+
+    public ProductFacets(long total, long inStock, List<CategoryCount> categories, List<PriceRangeCount> priceRanges) {
+        this.total = total;
+        this.inStock = inStock;
+        this.categories = categories;
+        this.priceRanges = priceRanges;
+    }
+
+    // Getters
+    public long getTotal() {
+        return total;
+    }
+
+    public long getInStock() {
+        return inStock;
+    }
+
+    public List<CategoryCount> getCategories() {
+        return categories;
+    }
+
+    public List<PriceRangeCount> getPriceRanges() {
+        return priceRanges;
+    }
+
+    /**
+     * Products in a category and all of its sub-categories.
+     */
+    public static class CategoryCount {
+        private final UUID id;
+        private final String name;
+        private final UUID parentId;
+        private final long count;
+
+        public CategoryCount(UUID id, String name, UUID parentId, long count) {
+            this.id = id;
+            this.name = name;
+            this.parentId = parentId;
+            this.count = count;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public UUID getParentId() {
+            return parentId;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Products priced from {@code min} (inclusive) up to {@code max} (exclusive, null when unbounded).
+     */
+    public static class PriceRangeCount {
+        private final BigDecimal min;
+        private final BigDecimal max;
+        private final long count;
+
+        public PriceRangeCount(BigDecimal min, BigDecimal max, long count) {
+            this.min = min;
+            this.max = max;
+            this.count = count;
+        }
+
+        public BigDecimal getMin() {
+            return min;
+        }
+
+        public BigDecimal getMax() {
+            return max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
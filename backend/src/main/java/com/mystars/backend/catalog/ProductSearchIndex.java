@@ -0,0 +1,472 @@
+package com.mystars.backend.catalog;
+
+import com.mystars.backend.service.ProductChangedEvent;
+import com.mystars.backend.service.ProductsSavedEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * Inverted index over product name, description and SKU.
+ * Queries are AND-ed across terms, the last term also matches as a prefix, and results
+ * are ranked by field-weighted term frequency times inverse document frequency.
+ * Readers never block; writers are serialized and swap in new posting lists per term.
+ */
+@ApplicationScoped
+public class ProductSearchIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(ProductSearchIndex.class.getName());
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int SKU_WEIGHT = 5;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final float PREFIX_PENALTY = 0.7f;
+
+    @Inject
+    private ProductCatalog productCatalog;
+
+    private final ConcurrentSkipListMap<String, PostingList> postings = new ConcurrentSkipListMap<>();
+    private final Map<UUID, Integer> docByProduct = new ConcurrentHashMap<>();
+    private volatile UUID[] productByDoc = new UUID[0];
+    private volatile boolean loaded;
+
+    // Writer-only state, guarded by this
+    private final Map<Integer, Map<String, Integer>> termsByDoc = new HashMap<>();
+    private final Map<UUID, Long> versionByProduct = new HashMap<>();
+    private int nextDoc;
+    // Changes committed while the index is built, applied after it; null when no build is under way
+    private List<Runnable> missed;
+
+    private final Object loadLock = new Object();
+
+    /**
+     * Build the index once the catalog snapshot is loaded.
+     */
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not build product search index", e);
+        }
+    }
+
+    /**
+     * Apply a committed product write to the index.
+     */
+    void onProductChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getId());
+        } else {
+            update(ProductView.from(event.getProduct()));
+        }
+    }
+
+    void onProductsSaved(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProductsSavedEvent event) {
+        updateAll(event.getProducts().stream().map(ProductView::from).toList());
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Build the index from the catalog unless it is built already. Concurrent callers wait for
+     * a single build; writes committed while the catalog is read are applied after it.
+     */
+    public void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (loadLock) {
+            if (loaded) {
+                return;
+            }
+            synchronized (this) {
+                missed = new ArrayList<>();
+            }
+            try {
+                rebuild(productCatalog.products());
+            } finally {
+                synchronized (this) {
+                    missed = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuild the whole index from a list of products, then apply the writes missed meanwhile.
+     */
+    private synchronized void rebuild(Collection<ProductView> products) {
+        postings.clear();
+        docByProduct.clear();
+        termsByDoc.clear();
+        versionByProduct.clear();
+        nextDoc = 0;
+
+        UUID[] docs = new UUID[Math.max(16, products.size())];
+        Map<String, PostingBuilder> builders = new HashMap<>();
+        for (ProductView product : products) {
+            int doc = nextDoc++;
+            docs[doc] = product.getId();
+            docByProduct.put(product.getId(), doc);
+            versionByProduct.put(product.getId(), product.getVersion());
+
+            Map<String, Integer> terms = indexTerms(product);
+            termsByDoc.put(doc, terms);
+            terms.forEach((term, weight) ->
+                builders.computeIfAbsent(term, t -> new PostingBuilder()).add(doc, weight));
+        }
+        builders.forEach((term, builder) -> postings.put(term, builder.build()));
+
+        productByDoc = docs;
+        loaded = true;
+        List<Runnable> changes = missed;
+        missed = null;
+        if (changes != null) {
+            changes.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Index a new or changed product, unless the index already holds that version or a newer one.
+     */
+    public void update(ProductView product) {
+        updateAll(List.of(product));
+    }
+
+    /**
+     * Index new or changed products, skipping those the index already holds at that version
+     * or newer. Each posting list the batch touches is rewritten once.
+     */
+    public synchronized void updateAll(Collection<ProductView> products) {
+        if (!loaded) {
+            defer(() -> updateAll(products));
+            return;
+        }
+        Map<String, SortedMap<Integer, Integer>> changes = new HashMap<>();
+        for (ProductView product : products) {
+            if (!product.isNewerThan(versionByProduct.get(product.getId()))) {
+                continue;
+            }
+            versionByProduct.put(product.getId(), product.getVersion());
+            Integer existing = docByProduct.get(product.getId());
+            int doc = existing != null ? existing : allocateDoc(product.getId());
+
+            Map<String, Integer> oldTerms = termsByDoc.getOrDefault(doc, Map.of());
+            Map<String, Integer> newTerms = indexTerms(product);
+            for (String term : oldTerms.keySet()) {
+                if (!newTerms.containsKey(term)) {
+                    change(changes, term, doc, 0);
+                }
+            }
+            newTerms.forEach((term, weight) -> {
+                if (!weight.equals(oldTerms.get(term))) {
+                    change(changes, term, doc, weight);
+                }
+            });
+            termsByDoc.put(doc, newTerms);
+        }
+        apply(changes);
+    }
+
+    /**
+     * Remove a deleted product from the index.
+     */
+    public synchronized void remove(UUID productId) {
+        if (!loaded) {
+            defer(() -> remove(productId));
+            return;
+        }
+        versionByProduct.remove(productId);
+        Integer doc = docByProduct.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        Map<String, Integer> terms = termsByDoc.remove(doc);
+        if (terms != null) {
+            Map<String, SortedMap<Integer, Integer>> changes = new HashMap<>();
+            for (String term : terms.keySet()) {
+                change(changes, term, doc, 0);
+            }
+            apply(changes);
+        }
+        productByDoc[doc] = null;
+    }
+
+    /**
+     * Return the IDs of products matching every query term, best match first.
+     */
+    public List<UUID> search(String query, int limit) {
+        Matches matches = evaluate(query);
+        UUID[] products = productByDoc;
+        return IntStream.range(0, matches.count).boxed()
+            .sorted(Comparator.comparingDouble((Integer i) -> -matches.scores[i])
+                .thenComparingInt(i -> matches.docs[i]))
+            .map(i -> products[matches.docs[i]])
+            .filter(id -> id != null)
+            .limit(limit)
+            .toList();
+    }
+
+    /**
+     * Return the IDs of all products matching every query term, unranked.
+     */
+    public Set<UUID> match(String query) {
+        Matches matches = evaluate(query);
+        UUID[] products = productByDoc;
+        Set<UUID> ids = new HashSet<>(matches.count * 2);
+        for (int i = 0; i < matches.count; i++) {
+            UUID id = products[matches.docs[i]];
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Score documents that match all query terms. The last term is expanded as a prefix.
+     * Terms are intersected from the rarest to the most common, so the candidates shrink as
+     * early as possible and longer lists are only scanned for them.
+     */
+    private Matches evaluate(String query) {
+        List<String> tokens = Tokenizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return Matches.NONE;
+        }
+        int liveDocs = Math.max(1, docByProduct.size());
+
+        List<PostingList> exact = new ArrayList<>(tokens.size());
+        for (String token : tokens.subList(0, tokens.size() - 1)) {
+            PostingList list = postings.get(token);
+            if (list == null) {
+                return Matches.NONE;
+            }
+            exact.add(list);
+        }
+        Matches prefix = expand(tokens.get(tokens.size() - 1), liveDocs);
+        exact.sort(Comparator.comparingInt(PostingList::size));
+
+        // The prefix matches are already decoded, so they lead unless an exact term is rarer
+        Matches result;
+        int next = 0;
+        if (!exact.isEmpty() && exact.get(0).size() < prefix.count) {
+            result = Matches.of(exact.get(0), idf(exact.get(0), liveDocs));
+            next = 1;
+            result = result.retain(prefix);
+        } else {
+            result = prefix;
+        }
+        for (int i = next; i < exact.size() && result.count > 0; i++) {
+            PostingList list = exact.get(i);
+            result.count = list.retain(result.docs, result.scores, result.count, idf(list, liveDocs));
+        }
+        return result;
+    }
+
+    /**
+     * Documents matching any term that starts with the prefix, each scored by its best term.
+     * Terms other than the prefix itself score less.
+     */
+    private Matches expand(String prefix, int liveDocs) {
+        NavigableMap<String, PostingList> expansions =
+            postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        List<PostingList> lists = new ArrayList<>();
+        List<Float> factors = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<String, PostingList> entry : expansions.entrySet()) {
+            float boost = entry.getKey().equals(prefix) ? 1f : PREFIX_PENALTY;
+            lists.add(entry.getValue());
+            factors.add(idf(entry.getValue(), liveDocs) * boost);
+            total += entry.getValue().size();
+            if (lists.size() >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+        }
+        if (lists.size() == 1) {
+            return Matches.of(lists.get(0), factors.get(0));
+        }
+
+        // Scores are non-negative, so their bits sort as the scores do: for each document,
+        // the entry sorted last holds its best score
+        long[] entries = new long[total];
+        int n = 0;
+        for (int l = 0; l < lists.size(); l++) {
+            PostingList list = lists.get(l);
+            int[] docs = new int[list.size()];
+            int[] weights = new int[list.size()];
+            list.decode(docs, weights);
+            for (int i = 0; i < docs.length; i++) {
+                entries[n++] = (long) docs[i] << 32 | Float.floatToIntBits(weights[i] * factors.get(l)) & 0xFFFFFFFFL;
+            }
+        }
+        Arrays.sort(entries);
+        Matches matches = new Matches(new int[n], new float[n]);
+        for (int i = 0; i < n; i++) {
+            if (i + 1 < n && entries[i + 1] >>> 32 == entries[i] >>> 32) {
+                continue;
+            }
+            matches.docs[matches.count] = (int) (entries[i] >>> 32);
+            matches.scores[matches.count++] = Float.intBitsToFloat((int) entries[i]);
+        }
+        return matches;
+    }
+
+    private static float idf(PostingList list, int liveDocs) {
+        int df = list.size();
+        return (float) Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+    }
+
+    /**
+     * Keep a write for the build under way; without one, the next build reads it from the catalog.
+     */
+    private void defer(Runnable change) {
+        if (missed != null) {
+            missed.add(change);
+        }
+    }
+
+    private Map<String, Integer> indexTerms(ProductView product) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (String token : Tokenizer.tokenize(product.getName())) {
+            terms.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : Tokenizer.tokenize(product.getDescription())) {
+            terms.merge(token, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+        for (String token : Tokenizer.tokenize(product.getSku())) {
+            terms.merge(token, SKU_WEIGHT, Integer::sum);
+        }
+        String sku = Tokenizer.normalizeSku(product.getSku());
+        if (sku != null) {
+            terms.merge(sku, SKU_WEIGHT, Integer::sum);
+        }
+        return terms;
+    }
+
+    private static void change(Map<String, SortedMap<Integer, Integer>> changes, String term, int doc, int weight) {
+        changes.computeIfAbsent(term, t -> new TreeMap<>()).put(doc, weight);
+    }
+
+    /**
+     * Rewrite each changed posting list once, with all of its changes.
+     */
+    private void apply(Map<String, SortedMap<Integer, Integer>> changes) {
+        changes.forEach((term, weightByDoc) -> {
+            int[] docs = new int[weightByDoc.size()];
+            int[] weights = new int[docs.length];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> entry : weightByDoc.entrySet()) {
+                docs[i] = entry.getKey();
+                weights[i++] = entry.getValue();
+            }
+            postings.compute(term, (t, list) -> {
+                PostingList changed = (list != null ? list : PostingList.EMPTY).apply(docs, weights, docs.length);
+                return changed.isEmpty() ? null : changed;
+            });
+        });
+    }
+
+    private int allocateDoc(UUID productId) {
+        int doc = nextDoc++;
+        UUID[] docs = productByDoc;
+        if (doc >= docs.length) {
+            docs = Arrays.copyOf(docs, Math.max(16, docs.length * 2));
+        }
+        docs[doc] = productId;
+        productByDoc = docs;
+        docByProduct.put(productId, doc);
+        return doc;
+    }
+
+    /**
+     * Matching documents in ascending order with their scores; the first count entries are used.
+     */
+    private static final class Matches {
+        static final Matches NONE = new Matches(new int[0], new float[0]);
+
+        final int[] docs;
+        final float[] scores;
+        int count;
+
+        Matches(int[] docs, float[] scores) {
+            this.docs = docs;
+            this.scores = scores;
+        }
+
+        static Matches of(PostingList list, float factor) {
+            Matches matches = new Matches(new int[list.size()], new float[list.size()]);
+            int[] weights = new int[list.size()];
+            list.decode(matches.docs, weights);
+            for (int i = 0; i < weights.length; i++) {
+                matches.scores[i] = weights[i] * factor;
+            }
+            matches.count = weights.length;
+            return matches;
+        }
+
+        /**
+         * Keep only the documents also in the other matches, adding their scores.
+         */
+        Matches retain(Matches other) {
+            int kept = 0;
+            int j = 0;
+            for (int i = 0; i < count && j < other.count; i++) {
+                while (j < other.count && other.docs[j] < docs[i]) {
+                    j++;
+                }
+                if (j < other.count && other.docs[j] == docs[i]) {
+                    docs[kept] = docs[i];
+                    scores[kept++] = scores[i] + other.scores[j++];
+                }
+            }
+            count = kept;
+            return this;
+        }
+    }
+
+    /**
+     * Accumulates postings for one term during a bulk rebuild.
+     */
+    private static final class PostingBuilder {
+        private int[] docs = new int[4];
+        private int[] weights = new int[4];
+        private int count;
+
+        void add(int doc, int weight) {
+            if (count == docs.length) {
+                docs = Arrays.copyOf(docs, count * 2);
+                weights = Arrays.copyOf(weights, count * 2);
+            }
+            docs[count] = doc;
+            weights[count] = weight;
+            count++;
+        }
+
+        PostingList build() {
+            return PostingList.of(docs, weights, count);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.mystars.backend.catalog;
+
+import com.mystars.backend.entity.Product;
+import com.mystars.backend.repository.OrderRepository;
+import com.mystars.backend.service.ProductChangedEvent;
+import com.mystars.backend.service.ProductsSavedEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Typeahead over active product names and SKUs.
+ * Names are indexed from their start and from the start of each later word, SKUs in
+ * normalized form, and completions are ranked by units ordered.
+ * Readers see an immutable trie; writers are serialized and swap in an updated copy.
+ */
+@ApplicationScoped
+public class ProductSuggestIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(ProductSuggestIndex.class.getName());
+
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_WORD_KEYS = 8;
+
+    @Inject
+    private ProductCatalog productCatalog;
+
+    @Inject
+    private OrderRepository orderRepository;
+
+    private volatile PrefixTrie trie = PrefixTrie.empty(MAX_SUGGESTIONS);
+    private volatile boolean loaded;
+
+    // Writer-only state, guarded by this
+    private final Map<UUID, Set<String>> keysByProduct = new HashMap<>();
+    private final Map<UUID, Long> versionByProduct = new HashMap<>();
+    private Map<UUID, Long> popularity = Map.of();
+
+    /**
+     * Build the index once the catalog snapshot is loaded.
+     */
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        try {
+            rebuild(productCatalog.products(), orderRepository.sumQuantityByProduct());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not build product suggest index", e);
+        }
+    }
+
+    /**
+     * Apply a committed product write to the index.
+     */
+    void onProductChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProductChangedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        if (event.isDeleted()) {
+            remove(event.getId());
+        } else {
+            update(ProductView.from(event.getProduct()));
+        }
+    }
+
+    void onProductsSaved(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProductsSavedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        for (Product product : event.getProducts()) {
+            update(ProductView.from(product));
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Rebuild the whole index from a list of products and their units ordered.
+     */
+    public synchronized void rebuild(Collection<ProductView> products, Map<UUID, Long> unitsOrdered) {
+        keysByProduct.clear();
+        versionByProduct.clear();
+        popularity = new HashMap<>(unitsOrdered);
+        PrefixTrie rebuilt = PrefixTrie.empty(MAX_SUGGESTIONS);
+        for (ProductView product : products) {
+            rebuilt = insert(rebuilt, product);
+            versionByProduct.put(product.getId(), product.getVersion());
+        }
+        trie = rebuilt;
+        loaded = true;
+    }
+
+    /**
+     * Index a new or changed product, dropping it if it is no longer active, unless the index
+     * already holds that version or a newer one.
+     */
+    public synchronized void update(ProductView product) {
+        if (!product.isNewerThan(versionByProduct.get(product.getId()))) {
+            return;
+        }
+        versionByProduct.put(product.getId(), product.getVersion());
+        trie = insert(removeKeys(trie, product.getId()), product);
+    }
+
+    /**
+     * Remove a deleted product from the index.
+     */
+    public synchronized void remove(UUID productId) {
+        versionByProduct.remove(productId);
+        trie = removeKeys(trie, productId);
+    }
+
+    /**
+     * Most popular products whose name (or a later word of it) or SKU starts with the prefix.
+     */
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        PrefixTrie current = trie;
+        List<PrefixTrie.Completion> completions = new ArrayList<>();
+        String nameKey = String.join(" ", Tokenizer.tokenize(prefix));
+        if (!nameKey.isEmpty()) {
+            completions.addAll(current.complete(nameKey));
+        }
+        String skuKey = Tokenizer.normalizeSku(prefix);
+        if (skuKey != null && !skuKey.equals(nameKey)) {
+            completions.addAll(current.complete(skuKey));
+        }
+        completions.sort(PrefixTrie.RANKING);
+
+        Set<UUID> seen = new HashSet<>();
+        List<ProductSuggestion> suggestions = new ArrayList<>(Math.min(limit, completions.size()));
+        for (PrefixTrie.Completion completion : completions) {
+            if (suggestions.size() >= limit) {
+                break;
+            }
+            if (seen.add(completion.productId())) {
+                suggestions.add(new ProductSuggestion(completion.productId(), completion.name(), completion.sku()));
+            }
+        }
+        return suggestions;
+    }
+
+    private PrefixTrie insert(PrefixTrie target, ProductView product) {
+        if (!Boolean.TRUE.equals(product.getIsActive())) {
+            return target;
+        }
+        PrefixTrie.Completion completion = new PrefixTrie.Completion(product.getId(), product.getName(),
+            product.getSku(), popularity.getOrDefault(product.getId(), 0L));
+        Set<String> keys = keysOf(product);
+        for (String key : keys) {
+            target = target.with(key, completion);
+        }
+        keysByProduct.put(product.getId(), keys);
+        return target;
+    }
+
+    private PrefixTrie removeKeys(PrefixTrie target, UUID productId) {
+        Set<String> keys = keysByProduct.remove(productId);
+        if (keys != null) {
+            for (String key : keys) {
+                target = target.without(key, productId);
+            }
+        }
+        return target;
+    }
+
+    private static Set<String> keysOf(ProductView product) {
+        Set<String> keys = new LinkedHashSet<>();
+        List<String> tokens = Tokenizer.tokenize(product.getName());
+        for (int i = 0; i < tokens.size() && i < MAX_WORD_KEYS; i++) {
+            keys.add(String.join(" ", tokens.subList(i, tokens.size())));
+        }
+        String sku = Tokenizer.normalizeSku(product.getSku());
+        if (sku != null) {
+            keys.add(sku);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,32 @@
+package com.mystars.backend.catalog;
+
+import java.util.UUID;
+
+/**
+ * A typeahead completion pointing at a product.
+ */
+public class ProductSuggestion {
+
+    private final UUID id;
+    private final String name;
+    private final String sku;
+
+    public ProductSuggestion(UUID id, String name, String sku) {
+        this.id = id;
+        this.name = name;
+        this.sku = sku;
+    }
+
+    // Getters
+    public UUID getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+}
@@ -0,0 +1,197 @@
+package com.mystars.backend.catalog;
+
+import com.mystars.backend.entity.Category;
+import com.mystars.backend.entity.Product;
+import com.mystars.backend.entity.Versioned;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Read-only view of a product as served by the catalog endpoints.
+ * Mirrors the JSON shape of {@link Product} without any lazy associations.
+ */
+public class ProductView implements Versioned {
+
+    /**
+     * Properties selectable with a sparse fieldset, in serialization order.
+     */
+    public static final Map<String, Function<ProductView, Object>> FIELDS = fields();
+
+    private final UUID id;
+    private final String name;
+    private final String description;
+    private final BigDecimal price;
+    private final Integer stockQuantity;
+    private final String sku;
+    private final String imageUrl;
+    private final Boolean isActive;
+    private final CategoryRef category;
+    private final Double weight;
+    private final String dimensions;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final Long version;
+
+    public ProductView(UUID id, String name, String description, BigDecimal price, Integer stockQuantity,
+                       String sku, String imageUrl, Boolean isActive, CategoryRef category, Double weight,
+                       String dimensions, LocalDateTime createdAt, LocalDateTime updatedAt, Long version) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.sku = sku;
+        this.imageUrl = imageUrl;
+        this.isActive = isActive;
+        this.category = category;
+        this.weight = weight;
+        this.dimensions = dimensions;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.version = version;
+    }
+
+    /**
+     * Constructor used by projection queries, which select the category's ID and name as columns.
+     */
+    public ProductView(UUID id, String name, String description, BigDecimal price, Integer stockQuantity,
+                       String sku, String imageUrl, Boolean isActive, UUID categoryId, String categoryName,
+                       Double weight, String dimensions, LocalDateTime createdAt, LocalDateTime updatedAt,
+                       Long version) {
+        this(id, name, description, price, stockQuantity, sku, imageUrl, isActive,
+            categoryId != null ? new CategoryRef(categoryId, categoryName) : null,
+            weight, dimensions, createdAt, updatedAt, version);
+    }
+
+    /**
+     * Copy the serialized fields of a product entity.
+     */
+    public static ProductView from(Product product) {
+        Category category = product.getCategory();
+        return new ProductView(
+            product.getId(),
+            product.getName(),
+            product.getDescription(),
+            product.getPrice(),
+            product.getStockQuantity(),
+            product.getSku(),
+            product.getImageUrl(),
+            product.getIsActive(),
+            category != null ? new CategoryRef(category.getId(), category.getName()) : null,
+            product.getWeight(),
+            product.getDimensions(),
+            product.getCreatedAt(),
+            product.getUpdatedAt(),
+            product.getVersion());
+    }
+
+    private static Map<String, Function<ProductView, Object>> fields() {
+        Map<String, Function<ProductView, Object>> fields = new LinkedHashMap<>();
+        fields.put("id", ProductView::getId);
+        fields.put("name", ProductView::getName);
+        fields.put("description", ProductView::getDescription);
+        fields.put("price", ProductView::getPrice);
+        fields.put("stockQuantity", ProductView::getStockQuantity);
+        fields.put("sku", ProductView::getSku);
+        fields.put("imageUrl", ProductView::getImageUrl);
+        fields.put("isActive", ProductView::getIsActive);
+        fields.put("category", ProductView::getCategory);
+        fields.put("weight", ProductView::getWeight);
+        fields.put("dimensions", ProductView::getDimensions);
+        fields.put("createdAt", ProductView::getCreatedAt);
+        fields.put("updatedAt", ProductView::getUpdatedAt);
+        fields.put("version", ProductView::getVersion);
+        return Collections.unmodifiableMap(fields);
+    }
+
+    // Getters
+    public UUID getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Integer getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public Boolean getIsActive() {
+        return isActive;
+    }
+
+    public CategoryRef getCategory() {
+        return category;
+    }
+
+    public Double getWeight() {
+        return weight;
+    }
+
+    public String getDimensions() {
+        return dimensions;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Whether this view is a later version of its product than the given version. A missing
+     * version on either side counts as later, so unversioned writes are never dropped.
+     */
+    public boolean isNewerThan(Long otherVersion) {
+        return version == null || otherVersion == null || version > otherVersion;
+    }
+
+    /**
+     * Category reference embedded in a product view.
+     */
+    public static class CategoryRef {
+        private final UUID id;
+        private final String name;
+
+        public CategoryRef(UUID id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.mystars.backend.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits product text into lowercase alphanumeric tokens for indexing and querying.
+ */
+public final class Tokenizer {
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Tokenize text on any character that is not a letter or digit.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i < lower.length(); i++) {
+            if (Character.isLetterOrDigit(lower.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(lower.substring(start));
+        }
+        return tokens;
+    }
+
+    /**
+     * Normalize a SKU to a single token by dropping separators, so "AB-12" matches "ab12".
+     */
+    public static String normalizeSku(String sku) {
+        if (sku == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(sku.length());
+        for (int i = 0; i < sku.length(); i++) {
+            char c = sku.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+}
@@ -0,0 +1,86 @@
+package com.mystars.backend.dto;
+
+import com.mystars.backend.entity.OrderItem;
+import com.mystars.backend.entity.Product;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Read-only view of an order line with the name and SKU of its product.
+ */
+public class OrderItemView {
+
+    private final UUID id;
+    private final UUID productId;
+    private final String productName;
+    private final String productSku;
+    private final Integer quantity;
+    private final BigDecimal unitPrice;
+    private final BigDecimal discount;
+
+    public OrderItemView(UUID id, UUID productId, String productName, String productSku,
+                         Integer quantity, BigDecimal unitPrice, BigDecimal discount) {
+        this.id = id;
+        this.productId = productId;
+        this.productName = productName;
+        this.productSku = productSku;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.discount = discount;
+    }
+
+    /**
+     * Copy the serialized fields of an order item and its product.
+     */
+    public static OrderItemView from(OrderItem item) {
+        Product product = item.getProduct();
+        return new OrderItemView(
+            item.getId(),
+            product != null ? product.getId() : null,
+            product != null ? product.getName() : null,
+            product != null ? product.getSku() : null,
+            item.getQuantity(),
+            item.getUnitPrice(),
+            item.getDiscount());
+    }
+
+    // Getters
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public String getProductSku() {
+        return productSku;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+
+    public BigDecimal getDiscount() {
+        return discount;
+    }
+
+    /**
+     * Line total: unit price times quantity, less the discount.
+     */
+    public BigDecimal getSubtotal() {
+        if (unitPrice == null || quantity == null) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal subtotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+        return discount != null ? subtotal.subtract(discount) : subtotal;
+    }
+}
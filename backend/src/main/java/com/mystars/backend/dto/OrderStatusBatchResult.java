@@ -0,0 +1,91 @@
+package com.mystars.backend.dto;
+
+import com.mystars.backend.entity.Order;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of a bulk order status change: one result per submitted order ID, in request order.
+ */
+public class OrderStatusBatchResult {
+
+    public enum Status {
+        UPDATED, FAILED
+    }
+
+    private final Order.OrderStatus targetStatus;
+    private final List<Item> items;
+
+    public OrderStatusBatchResult(Order.OrderStatus targetStatus, List<Item> items) {
+        this.targetStatus = targetStatus;
+        this.items = List.copyOf(items);
+    }
+
+    public Order.OrderStatus getTargetStatus() {
+        return targetStatus;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public long getUpdated() {
+        return count(Status.UPDATED);
+    }
+
+    public long getFailed() {
+        return count(Status.FAILED);
+    }
+
+    private long count(Status status) {
+        return items.stream().filter(item -> item.getStatus() == status).count();
+    }
+
+    /**
+     * Result for the order ID at {@code index} in the request.
+     */
+    public static class Item {
+
+        private final int index;
+        private final Status status;
+        private final UUID id;
+        private final Order.OrderStatus previousStatus;
+        private final String error;
+
+        private Item(int index, Status status, UUID id, Order.OrderStatus previousStatus, String error) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.previousStatus = previousStatus;
+            this.error = error;
+        }
+
+        public static Item updated(int index, UUID id, Order.OrderStatus previousStatus) {
+            return new Item(index, Status.UPDATED, id, previousStatus, null);
+        }
+
+        public static Item failed(int index, UUID id, String error) {
+            return new Item(index, Status.FAILED, id, null, error);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public Order.OrderStatus getPreviousStatus() {
+            return previousStatus;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.mystars.backend.dto;
+
+import com.mystars.backend.entity.Order;
+import com.mystars.backend.entity.User;
+import com.mystars.backend.entity.Versioned;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Read-only view of an order as listed in order pages: its header columns and the
+ * customer's ID and email, without items or addresses.
+ */
+public class OrderSummary implements Versioned {
+
+    /**
+     * Properties selectable with a sparse fieldset, in serialization order.
+     */
+    public static final Map<String, Function<OrderSummary, Object>> FIELDS = fields();
+
+    private final UUID id;
+    private final UUID userId;
+    private final String userEmail;
+    private final Order.OrderStatus status;
+    private final BigDecimal totalAmount;
+    private final LocalDateTime orderDate;
+    private final LocalDateTime shippedDate;
+    private final LocalDateTime deliveredDate;
+    private final String trackingNumber;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final Long version;
+
+    public OrderSummary(UUID id, UUID userId, String userEmail, Order.OrderStatus status, BigDecimal totalAmount,
+                        LocalDateTime orderDate, LocalDateTime shippedDate, LocalDateTime deliveredDate,
+                        String trackingNumber, LocalDateTime createdAt, LocalDateTime updatedAt, Long version) {
+        this.id = id;
+        this.userId = userId;
+        this.userEmail = userEmail;
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.orderDate = orderDate;
+        this.shippedDate = shippedDate;
+        this.deliveredDate = deliveredDate;
+        this.trackingNumber = trackingNumber;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.version = version;
+    }
+
+    /**
+     * Copy the listed fields of an order entity.
+     */
+    public static OrderSummary from(Order order) {
+        User user = order.getUser();
+        return new OrderSummary(
+            order.getId(),
+            user != null ? user.getId() : null,
+            user != null ? user.getEmail() : null,
+            order.getStatus(),
+            order.getTotalAmount(),
+            order.getOrderDate(),
+            order.getShippedDate(),
+            order.getDeliveredDate(),
+            order.getTrackingNumber(),
+            order.getCreatedAt(),
+            order.getUpdatedAt(),
+            order.getVersion());
+    }
+
+    private static Map<String, Function<OrderSummary, Object>> fields() {
+        Map<String, Function<OrderSummary, Object>> fields = new LinkedHashMap<>();
+        fields.put("id", OrderSummary::getId);
+        fields.put("userId", OrderSummary::getUserId);
+        fields.put("userEmail", OrderSummary::getUserEmail);
+        fields.put("status", OrderSummary::getStatus);
+        fields.put("totalAmount", OrderSummary::getTotalAmount);
+        fields.put("orderDate", OrderSummary::getOrderDate);
+        fields.put("shippedDate", OrderSummary::getShippedDate);
+        fields.put("deliveredDate", OrderSummary::getDeliveredDate);
+        fields.put("trackingNumber", OrderSummary::getTrackingNumber);
+        fields.put("createdAt", OrderSummary::getCreatedAt);
+        fields.put("updatedAt", OrderSummary::getUpdatedAt);
+        fields.put("version", OrderSummary::getVersion);
+        return Collections.unmodifiableMap(fields);
+    }
+
+    // Getters
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public Order.OrderStatus getStatus() {
+        return status;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public LocalDateTime getShippedDate() {
+        return shippedDate;
+    }
+
+    public LocalDateTime getDeliveredDate() {
+        return deliveredDate;
+    }
+
+    public String getTrackingNumber() {
+        return trackingNumber;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,116 @@
+package com.mystars.backend.dto;
+
+import com.mystars.backend.entity.Order;
+import com.mystars.backend.entity.User;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Read-only view of a single order: the summary columns plus addresses, notes and items.
+ */
+public class OrderView extends OrderSummary {
+
+    /**
+     * Properties selectable with a sparse fieldset: the summary's, then the detail's.
+     */
+    public static final Map<String, Function<OrderView, Object>> FIELDS = fields();
+
+    private final String shippingAddress;
+    private final String billingAddress;
+    private final String notes;
+    private final List<OrderItemView> items;
+
+    /**
+     * Constructor used by projection queries; items are attached with {@link #withItems(List)}.
+     */
+    public OrderView(UUID id, UUID userId, String userEmail, Order.OrderStatus status, BigDecimal totalAmount,
+                     LocalDateTime orderDate, LocalDateTime shippedDate, LocalDateTime deliveredDate,
+                     String trackingNumber, LocalDateTime createdAt, LocalDateTime updatedAt, Long version,
+                     String shippingAddress, String billingAddress, String notes) {
+        this(id, userId, userEmail, status, totalAmount, orderDate, shippedDate, deliveredDate, trackingNumber,
+            createdAt, updatedAt, version, shippingAddress, billingAddress, notes, List.of());
+    }
+
+    private OrderView(UUID id, UUID userId, String userEmail, Order.OrderStatus status, BigDecimal totalAmount,
+                      LocalDateTime orderDate, LocalDateTime shippedDate, LocalDateTime deliveredDate,
+                      String trackingNumber, LocalDateTime createdAt, LocalDateTime updatedAt, Long version,
+                      String shippingAddress, String billingAddress, String notes, List<OrderItemView> items) {
+        super(id, userId, userEmail, status, totalAmount, orderDate, shippedDate, deliveredDate, trackingNumber,
+            createdAt, updatedAt, version);
+        this.shippingAddress = shippingAddress;
+        this.billingAddress = billingAddress;
+        this.notes = notes;
+        this.items = items;
+    }
+
+    /**
+     * Copy the serialized fields of an order entity whose items and products are loaded.
+     */
+    public static OrderView from(Order order) {
+        User user = order.getUser();
+        List<OrderItemView> items = order.getItems().stream()
+            .map(OrderItemView::from)
+            .sorted(Comparator.comparing(OrderItemView::getProductName, Comparator.nullsLast(Comparator.naturalOrder())))
+            .toList();
+        return new OrderView(
+            order.getId(),
+            user != null ? user.getId() : null,
+            user != null ? user.getEmail() : null,
+            order.getStatus(),
+            order.getTotalAmount(),
+            order.getOrderDate(),
+            order.getShippedDate(),
+            order.getDeliveredDate(),
+            order.getTrackingNumber(),
+            order.getCreatedAt(),
+            order.getUpdatedAt(),
+            order.getVersion(),
+            order.getShippingAddress(),
+            order.getBillingAddress(),
+            order.getNotes(),
+            items);
+    }
+
+    private static Map<String, Function<OrderView, Object>> fields() {
+        Map<String, Function<OrderView, Object>> fields = new LinkedHashMap<>();
+        OrderSummary.FIELDS.forEach((name, getter) -> fields.put(name, getter::apply));
+        fields.put("shippingAddress", OrderView::getShippingAddress);
+        fields.put("billingAddress", OrderView::getBillingAddress);
+        fields.put("notes", OrderView::getNotes);
+        fields.put("items", OrderView::getItems);
+        return Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * Copy of this view with the given items.
+     */
+    public OrderView withItems(List<OrderItemView> items) {
+        return new OrderView(getId(), getUserId(), getUserEmail(), getStatus(), getTotalAmount(), getOrderDate(),
+            getShippedDate(), getDeliveredDate(), getTrackingNumber(), getCreatedAt(), getUpdatedAt(), getVersion(),
+            shippingAddress, billingAddress, notes, List.copyOf(items));
+    }
+
+    // Getters
+    public String getShippingAddress() {
+        return shippingAddress;
+    }
+
+    public String getBillingAddress() {
+        return billingAddress;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public List<OrderItemView> getItems() {
+        return items;
+    }
+}
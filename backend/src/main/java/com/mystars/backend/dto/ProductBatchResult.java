@@ -0,0 +1,88 @@
+package com.mystars.backend.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of a bulk product write: one result per submitted product, in request order.
+ */
+public class ProductBatchResult {
+
+    public enum Status {
+        CREATED, UPDATED, FAILED
+    }
+
+    private final List<Item> items;
+
+    public ProductBatchResult(List<Item> items) {
+        this.items = List.copyOf(items);
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public long getCreated() {
+        return count(Status.CREATED);
+    }
+
+    public long getUpdated() {
+        return count(Status.UPDATED);
+    }
+
+    public long getFailed() {
+        return count(Status.FAILED);
+    }
+
+    private long count(Status status) {
+        return items.stream().filter(item -> item.getStatus() == status).count();
+    }
+
+    /**
+     * Result for the product at {@code index} in the request.
+     */
+    public static class Item {
+
+        private final int index;
+        private final Status status;
+        private final UUID id;
+        private final String sku;
+        private final String error;
+
+        private Item(int index, Status status, UUID id, String sku, String error) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.sku = sku;
+            this.error = error;
+        }
+
+        public static Item saved(int index, boolean created, UUID id, String sku) {
+            return new Item(index, created ? Status.CREATED : Status.UPDATED, id, sku, null);
+        }
+
+        public static Item failed(int index, UUID id, String sku, String error) {
+            return new Item(index, Status.FAILED, id, sku, error);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.mystars.backend.dto;
+
+import com.mystars.backend.entity.StockReservation;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only view of a stock hold.
+ */
+public class ReservationView {
+
+    private final UUID id;
+    private final UUID productId;
+    private final Integer quantity;
+    private final LocalDateTime expiresAt;
+    private final StockReservation.ReservationStatus status;
+
+    public ReservationView(UUID id, UUID productId, Integer quantity, LocalDateTime expiresAt,
+                           StockReservation.ReservationStatus status) {
+        this.id = id;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+        this.status = status;
+    }
+
+    /**
+     * Copy the serialized fields of a hold.
+     */
+    public static ReservationView from(StockReservation reservation) {
+        return new ReservationView(
+            reservation.getId(),
+            reservation.getProduct().getId(),
+            reservation.getQuantity(),
+            reservation.getExpiresAt(),
+            reservation.getStatus());
+    }
+
+    // Getters
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getProductId() {
+        return productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public StockReservation.ReservationStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,33 @@
+package com.mystars.backend.dto;
+
+import java.util.UUID;
+
+/**
+ * Stock of a product that a new hold or checkout can still take, and the quantity held by
+ * active holds, which is already excluded from it.
+ */
+public class StockAvailability {
+
+    private final UUID productId;
+    private final long available;
+    private final long reserved;
+
+    public StockAvailability(UUID productId, long available, long reserved) {
+        this.productId = productId;
+        this.available = available;
+        this.reserved = reserved;
+    }
+
+    // Getters
+    public UUID getProductId() {
+        return productId;
+    }
+
+    public long getAvailable() {
+        return available;
+    }
+
+    public long getReserved() {
+        return reserved;
+    }
+}
@@ -0,0 +1,95 @@
+package com.mystars.backend.dto;
+
+import com.mystars.backend.entity.User;
+import com.mystars.backend.entity.Versioned;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only view of a user, without the password hash and the lazy order collection.
+ */
+public class UserView implements Versioned {
+
+    private final UUID id;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final String phone;
+    private final Boolean isActive;
+    private final User.UserRole role;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final Long version;
+
+    public UserView(UUID id, String email, String firstName, String lastName, String phone, Boolean isActive,
+                    User.UserRole role, LocalDateTime createdAt, LocalDateTime updatedAt, Long version) {
+        this.id = id;
+        this.email = email;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.phone = phone;
+        this.isActive = isActive;
+        this.role = role;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.version = version;
+    }
+
+    /**
+     * Copy the serialized fields of a user entity.
+     */
+    public static UserView from(User user) {
+        return new UserView(
+            user.getId(),
+            user.getEmail(),
+            user.getFirstName(),
+            user.getLastName(),
+            user.getPhone(),
+            user.getIsActive(),
+            user.getRole(),
+            user.getCreatedAt(),
+            user.getUpdatedAt(),
+            user.getVersion());
+    }
+
+    // Getters
+    public UUID getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public Boolean getIsActive() {
+        return isActive;
+    }
+
+    public User.UserRole getRole() {
+        return role;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
@@ -9,7 +9,7 @@ import java.util.UUID;
  * Uses UUID as primary key for distributed systems.
  */
 @MappedSuperclass
-public abstract class BaseEntity {
+public abstract class BaseEntity implements Versioned {
     
     @Id
     @Column(name = "id", updatable = false, nullable = false)
@@ -0,0 +1,88 @@
+package com.mystars.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * IdempotencyRecord entity: the outcome of a request sent with an {@code Idempotency-Key}
+ * header, kept until it expires so retries of the request get the same response.
+ * A record without a status code belongs to a request that is still running.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord extends BaseEntity {
+    
+    @Column(name = "idempotency_key", nullable = false, unique = true)
+    private String key;
+    
+    @Column(name = "fingerprint", nullable = false, length = 64)
+    private String fingerprint;
+    
+    @Column(name = "status_code")
+    private Integer statusCode;
+    
+    @Column(name = "media_type")
+    private String mediaType;
+    
+    @Column(name = "body", columnDefinition = "bytea")
+    private byte[] body;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    /**
+     * Whether the request has finished and its response is stored.
+     */
+    public boolean isCompleted() {
+        return statusCode != null;
+    }
+    
+    // Getters and Setters
+    public String getKey() {
+        return key;
+    }
+    
+    public void setKey(String key) {
+        this.key = key;
+    }
+    
+    public String getFingerprint() {
+        return fingerprint;
+    }
+    
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+    
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+    
+    public void setStatusCode(Integer statusCode) {
+        this.statusCode = statusCode;
+    }
+    
+    public String getMediaType() {
+        return mediaType;
+    }
+    
+    public void setMediaType(String mediaType) {
+        this.mediaType = mediaType;
+    }
+    
+    public byte[] getBody() {
+        return body;
+    }
+    
+    public void setBody(byte[] body) {
+        this.body = body;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
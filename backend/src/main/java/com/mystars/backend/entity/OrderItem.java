@@ -7,7 +7,7 @@ import java.math.BigDecimal;
  * OrderItem entity representing a product line in an order.
  */
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = @Index(name = "idx_order_items_stock_pending", columnList = "stock_pending"))
 public class OrderItem extends BaseEntity {
     
     @ManyToOne
@@ -27,6 +27,10 @@ public class OrderItem extends BaseEntity {
     @Column(name = "discount", precision = 10, scale = 2)
     private BigDecimal discount = BigDecimal.ZERO;
     
+    // Reserved in the stock ledger but not yet subtracted from the product's stock_quantity
+    @Column(name = "stock_pending", nullable = false, columnDefinition = "boolean default false")
+    private Boolean stockPending = false;
+    
     // Getters and Setters
     public Order getOrder() {
         return order;
@@ -71,4 +75,12 @@ public class OrderItem extends BaseEntity {
     public BigDecimal getSubtotal() {
         return unitPrice.multiply(new BigDecimal(quantity)).subtract(discount);
     }
+    
+    public Boolean getStockPending() {
+        return stockPending;
+    }
+    
+    public void setStockPending(Boolean stockPending) {
+        this.stockPending = stockPending;
+    }
 }
@@ -0,0 +1,69 @@
+package com.mystars.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * StockReservation entity: a quantity of a product held for a cart until it expires.
+ * The held quantity is taken from the product's stock when the hold is made and given
+ * back unless checkout consumes it.
+ */
+@Entity
+@Table(name = "stock_reservations",
+    indexes = @Index(name = "idx_stock_reservations_status_expires", columnList = "status, expires_at"))
+public class StockReservation extends BaseEntity {
+    
+    @ManyToOne
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+    
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ReservationStatus status = ReservationStatus.ACTIVE;
+    
+    public enum ReservationStatus {
+        ACTIVE,
+        CONSUMED,
+        RELEASED,
+        EXPIRED
+    }
+    
+    // Getters and Setters
+    public Product getProduct() {
+        return product;
+    }
+    
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+    
+    public ReservationStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(ReservationStatus status) {
+        this.status = status;
+    }
+}
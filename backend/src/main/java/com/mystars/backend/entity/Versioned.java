@@ -0,0 +1,17 @@
+package com.mystars.backend.entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Something identified by an ID whose changes are tracked by a version and update time.
+ * Implemented by entities and by the read-only views built from them.
+ */
+public interface Versioned {
+
+    UUID getId();
+
+    Long getVersion();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -1,15 +1,33 @@
 package com.mystars.backend.repository;
 
+import com.mystars.backend.entity.BaseEntity;
+import com.mystars.backend.entity.Versioned;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
 
 /**
  * Abstract base repository implementation providing common CRUD operations.
@@ -17,7 +35,17 @@ import java.util.UUID;
  *
  * @param <T> Entity type extending BaseEntity
  */
-public abstract class AbstractRepository<T> implements BaseRepository<T> {
+public abstract class AbstractRepository<T extends BaseEntity> implements BaseRepository<T> {
+    
+    /**
+     * Rows fetched per round trip by {@link #scroll}, and rows between persistence context clears.
+     */
+    protected static final int SCROLL_FETCH_SIZE = 500;
+    
+    /**
+     * Statements per JDBC batch in {@link #saveAll} and {@link #saveAndFlush}.
+     */
+    protected static final int JDBC_BATCH_SIZE = 50;
     
     @PersistenceContext
     protected EntityManager em;
@@ -58,17 +86,36 @@ public abstract class AbstractRepository<T> implements BaseRepository<T> {
     }
     
     @Override
-    public List<T> findAll(int page, int size) {
+    public List<T> findAllById(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
         CriteriaBuilder cb = getCriteriaBuilder();
         CriteriaQuery<T> cq = cb.createQuery(entityClass);
         Root<T> root = cq.from(entityClass);
-        cq.select(root);
-        cq.orderBy(cb.asc(root.get("createdAt")));
+        cq.select(root).where(root.get("id").in(ids));
+        return em.createQuery(cq).getResultList();
+    }
+    
+    @Override
+    public Page<T> findPage(String cursor, int size, KeysetSort sort) {
+        return findPage(cursor, size, sort, null);
+    }
+    
+    @Override
+    public Optional<ChangeStamp> findChangeStamp(UUID id) {
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<T> root = cq.from(entityClass);
+        cq.multiselect(root.get("version"), root.get("updatedAt"))
+            .where(cb.equal(root.get("id"), id));
         
-        TypedQuery<T> query = em.createQuery(cq);
-        query.setFirstResult(page * size);
-        query.setMaxResults(size);
-        return query.getResultList();
+        List<Tuple> results = em.createQuery(cq).getResultList();
+        if (results.isEmpty()) {
+            return Optional.empty();
+        }
+        Tuple row = results.get(0);
+        return Optional.of(ChangeStamp.of(id, row.get(0, Long.class), row.get(1, LocalDateTime.class)));
     }
     
     @Override
@@ -86,22 +133,39 @@ public abstract class AbstractRepository<T> implements BaseRepository<T> {
             throw new IllegalArgumentException("Entity cannot be null");
         }
         
-        // Check if entity has an ID (is managed)
-        try {
-            var idMethod = entityClass.getMethod("getId");
-            UUID id = (UUID) idMethod.invoke(entity);
-            
-            if (id == null) {
-                // New entity - persist
-                em.persist(entity);
-                return entity;
-            } else {
-                // Existing entity - merge
-                return em.merge(entity);
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Error saving entity", e);
+        if (entity.getId() == null) {
+            // New entity - persist
+            em.persist(entity);
+            return entity;
         }
+        // Existing entity - merge
+        return em.merge(entity);
+    }
+    
+    @Override
+    public List<T> saveAll(List<T> entities) {
+        return batched(() -> {
+            List<T> saved = new ArrayList<>(entities.size());
+            for (T entity : entities) {
+                saved.add(save(entity));
+            }
+            // A single flush of one entity type sends inserts, then updates, each as batched statements
+            em.flush();
+            // Only the saved entities are let go, so the caller's other entities stay managed
+            for (T entity : saved) {
+                em.detach(entity);
+            }
+            return saved;
+        });
+    }
+    
+    @Override
+    public T saveAndFlush(T entity) {
+        return batched(() -> {
+            T saved = save(entity);
+            em.flush();
+            return saved;
+        });
     }
     
     @Override
@@ -128,6 +192,270 @@ public abstract class AbstractRepository<T> implements BaseRepository<T> {
         return Optional.ofNullable(entity);
     }
     
+    /**
+     * Run the work with statements sent in JDBC batches of {@link #JDBC_BATCH_SIZE} when flushed.
+     */
+    protected <R> R batched(Supplier<R> work) {
+        Session session = em.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(JDBC_BATCH_SIZE);
+        try {
+            return work.get();
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+    }
+    
+    /**
+     * Find a page of entities matching an optional filter, seeking past the cursor
+     * on (sort key, id) instead of skipping rows with an offset.
+     */
+    protected Page<T> findPage(String cursor, int size, KeysetSort sort, KeysetFilter<T> filter) {
+        return findPage(cursor, size, sort, filter, entityClass, (cb, root) -> root, this::keysetValue);
+    }
+    
+    /**
+     * Find a page of read models projected from the entities matching an optional filter,
+     * with the same ordering and cursors as the entity page.
+     */
+    protected <R extends Versioned> Page<R> findPage(String cursor, int size, KeysetSort sort, KeysetFilter<T> filter,
+                                                     Class<R> resultClass, Projection<T, R> projection,
+                                                     BiFunction<R, KeysetSort, Comparable<?>> keysetValue) {
+        int pageSize = Page.clampSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor, sort);
+        
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<R> cq = cb.createQuery(resultClass);
+        Root<T> root = cq.from(entityClass);
+        cq.select(projection.toSelection(cb, root));
+        restrictAndOrder(cb, cq, root, sort, filter, after);
+        
+        // Fetch one extra row to know whether another page follows
+        TypedQuery<R> query = em.createQuery(cq);
+        query.setMaxResults(pageSize + 1);
+        return toPage(query.getResultList(), pageSize, sort, keysetValue);
+    }
+    
+    /**
+     * Find a page of sparse rows holding only the requested fields, with the same ordering
+     * and cursors as the entity page. The query selects the ID, the sort key and the columns
+     * of the requested fields, nothing else.
+     */
+    protected Page<Map<String, Object>> findPage(String cursor, int size, KeysetSort sort, KeysetFilter<T> filter,
+                                                 FieldSet fields, Map<String, SparseField<T>> available) {
+        int pageSize = Page.clampSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor, sort);
+        
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<T> root = cq.from(entityClass);
+        cq.multiselect(sparseSelections(cb, root, sort, fields, available));
+        restrictAndOrder(cb, cq, root, sort, filter, after);
+        
+        TypedQuery<Tuple> query = em.createQuery(cq);
+        query.setMaxResults(pageSize + 1);
+        return toSparsePage(query.getResultList(), pageSize, sort, fields, available);
+    }
+    
+    /**
+     * Find the requested fields of one entity, selecting only their columns.
+     */
+    protected Optional<Map<String, Object>> findById(UUID id, FieldSet fields, Map<String, SparseField<T>> available) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<T> root = cq.from(entityClass);
+        cq.multiselect(sparseSelections(cb, root, null, fields, available))
+            .where(cb.equal(root.get("id"), id));
+        
+        List<Tuple> results = em.createQuery(cq).getResultList();
+        return results.isEmpty()
+            ? Optional.empty()
+            : Optional.of(toSparseRow(results.get(0), 1, fields, available));
+    }
+    
+    /**
+     * Columns of a sparse query: the ID, the sort key if any, then the columns of each
+     * requested field in order.
+     */
+    protected List<Selection<?>> sparseSelections(CriteriaBuilder cb, Root<T> root, KeysetSort sort,
+                                                  FieldSet fields, Map<String, SparseField<T>> available) {
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get("id"));
+        if (sort != null) {
+            selections.add(root.get(sort.getAttribute()));
+        }
+        for (String name : fields.getNames()) {
+            if (!FieldSet.ID.equals(name)) {
+                for (Projection<T, ?> column : available.get(name).getColumns()) {
+                    selections.add(column.toSelection(cb, root));
+                }
+            }
+        }
+        return selections;
+    }
+    
+    /**
+     * Turn up to pageSize + 1 rows selected by {@link #sparseSelections} into a page of sparse rows.
+     */
+    protected Page<Map<String, Object>> toSparsePage(List<Tuple> results, int pageSize, KeysetSort sort,
+                                                     FieldSet fields, Map<String, SparseField<T>> available) {
+        List<Map<String, Object>> data = new ArrayList<>(Math.min(results.size(), pageSize));
+        for (int i = 0; i < results.size() && i < pageSize; i++) {
+            data.add(toSparseRow(results.get(i), 2, fields, available));
+        }
+        if (results.size() <= pageSize) {
+            return new Page<>(data, pageSize, null);
+        }
+        Tuple last = results.get(pageSize - 1);
+        String nextCursor = new KeysetCursor(sort, last.get(0, UUID.class), (Comparable<?>) last.get(1)).encode();
+        return new Page<>(data, pageSize, nextCursor);
+    }
+    
+    private Map<String, Object> toSparseRow(Tuple tuple, int firstField, FieldSet fields,
+                                            Map<String, SparseField<T>> available) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put(FieldSet.ID, tuple.get(0));
+        int index = firstField;
+        for (String name : fields.getNames()) {
+            if (FieldSet.ID.equals(name)) {
+                continue;
+            }
+            SparseField<T> field = available.get(name);
+            Object[] values = new Object[field.getColumns().size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = tuple.get(index++);
+            }
+            Object value = field.valueOf(values);
+            if (value != null) {
+                row.put(name, value);
+            }
+        }
+        return row;
+    }
+    
+    /**
+     * Apply the filter, the seek past the cursor and the keyset order to a page query.
+     */
+    private void restrictAndOrder(CriteriaBuilder cb, CriteriaQuery<?> cq, Root<T> root, KeysetSort sort,
+                                  KeysetFilter<T> filter, KeysetCursor after) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter != null) {
+            predicates.add(filter.toPredicate(cb, root));
+        }
+        if (after != null) {
+            predicates.add(seekPredicate(cb, root, sort, after));
+        }
+        cq.where(predicates.toArray(new Predicate[0]));
+        
+        if (sort.isAscending()) {
+            cq.orderBy(cb.asc(root.get(sort.getAttribute())), cb.asc(root.get("id")));
+        } else {
+            cq.orderBy(cb.desc(root.get(sort.getAttribute())), cb.desc(root.get("id")));
+        }
+    }
+    
+    /**
+     * Turn up to pageSize + 1 results into a page, with a cursor if the extra row was found.
+     */
+    protected Page<T> toPage(List<T> results, int pageSize, KeysetSort sort) {
+        return toPage(results, pageSize, sort, this::keysetValue);
+    }
+    
+    /**
+     * Turn up to pageSize + 1 read models into a page, reading the cursor from the last one kept.
+     */
+    protected <R extends Versioned> Page<R> toPage(List<R> results, int pageSize, KeysetSort sort,
+                                                   BiFunction<R, KeysetSort, Comparable<?>> keysetValue) {
+        if (results.size() <= pageSize) {
+            return new Page<>(results, pageSize, null);
+        }
+        
+        List<R> data = results.subList(0, pageSize);
+        R last = data.get(pageSize - 1);
+        String nextCursor = new KeysetCursor(sort, last.getId(), keysetValue.apply(last, sort)).encode();
+        return new Page<>(new ArrayList<>(data), pageSize, nextCursor);
+    }
+    
+    /**
+     * Find the read models projected from the entities matching a filter, in the given order if any.
+     */
+    protected <R> List<R> findAll(Class<R> resultClass, Projection<T, R> projection, KeysetFilter<T> filter,
+                                  KeysetSort sort) {
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<R> cq = cb.createQuery(resultClass);
+        Root<T> root = cq.from(entityClass);
+        cq.select(projection.toSelection(cb, root));
+        if (filter != null) {
+            cq.where(filter.toPredicate(cb, root));
+        }
+        if (sort != null && sort.isAscending()) {
+            cq.orderBy(cb.asc(root.get(sort.getAttribute())), cb.asc(root.get("id")));
+        } else if (sort != null) {
+            cq.orderBy(cb.desc(root.get(sort.getAttribute())), cb.desc(root.get("id")));
+        }
+        return em.createQuery(cq).getResultList();
+    }
+    
+    /**
+     * Read the sort key value of an entity for building the next cursor.
+     * Repositories of entities with a name override this to support {@link KeysetSort#NAME}.
+     */
+    protected Comparable<?> keysetValue(T entity, KeysetSort sort) {
+        return switch (sort) {
+            case CREATED_AT, CREATED_AT_DESC -> entity.getCreatedAt();
+            default -> throw new UnsupportedOperationException(
+                "Sort " + sort + " is not supported for " + entityClass.getSimpleName());
+        };
+    }
+    
+    /**
+     * Build (key > value) OR (key = value AND id > lastId), reversed for descending sorts.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate seekPredicate(CriteriaBuilder cb, Root<T> root, KeysetSort sort, KeysetCursor after) {
+        Path key = root.get(sort.getAttribute());
+        Path<UUID> id = root.get("id");
+        Comparable value = after.getValue();
+        
+        if (sort.isAscending()) {
+            return cb.or(
+                cb.greaterThan(key, value),
+                cb.and(cb.equal(key, value), cb.greaterThan(id, after.getId())));
+        }
+        return cb.or(
+            cb.lessThan(key, value),
+            cb.and(cb.equal(key, value), cb.lessThan(id, after.getId())));
+    }
+    
+    /**
+     * Pass every result of a query to the action through a forward-only cursor, fetching
+     * {@link #SCROLL_FETCH_SIZE} rows per round trip and clearing the persistence context
+     * after each batch, so memory use does not grow with the number of rows.
+     * Must run inside a transaction, which keeps the cursor open.
+     *
+     * @return number of rows passed to the action
+     */
+    @SuppressWarnings("unchecked")
+    protected <R> long scroll(CriteriaQuery<R> criteria, Consumer<? super R> action) {
+        Query<R> query = em.createQuery(criteria).unwrap(Query.class);
+        query.setFetchSize(SCROLL_FETCH_SIZE);
+        query.setReadOnly(true);
+        
+        long count = 0;
+        try (ScrollableResults<R> results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                action.accept(results.get());
+                if (++count % SCROLL_FETCH_SIZE == 0) {
+                    em.clear();
+                }
+            }
+        }
+        return count;
+    }
+    
     /**
      * Execute a query with a custom CriteriaQuery.
      */
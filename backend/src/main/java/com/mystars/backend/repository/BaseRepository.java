@@ -6,6 +6,7 @@ import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -29,9 +30,20 @@ public interface BaseRepository<T> {
     List<T> findAll();
     
     /**
-     * Find entities with pagination.
+     * Find the entities with the given IDs in one query. Missing IDs are skipped.
      */
-    List<T> findAll(int page, int size);
+    List<T> findAllById(Collection<UUID> ids);
+    
+    /**
+     * Find a page of entities after the given cursor (keyset pagination).
+     * A null cursor returns the first page.
+     */
+    Page<T> findPage(String cursor, int size, KeysetSort sort);
+    
+    /**
+     * Find the ID, version and update time of an entity without loading it.
+     */
+    Optional<ChangeStamp> findChangeStamp(UUID id);
     
     /**
      * Count all entities.
@@ -43,6 +55,19 @@ public interface BaseRepository<T> {
      */
     T save(T entity);
     
+    /**
+     * Save entities in JDBC batches: new ones are persisted and detached ones merged.
+     * The persistence context is flushed and the saved entities are detached afterwards, so
+     * they do not accumulate in it; the returned entities are detached.
+     */
+    List<T> saveAll(List<T> entities);
+    
+    /**
+     * Save the entity and flush it with every pending change of the transaction, sending
+     * the statements in JDBC batches. The entity stays managed.
+     */
+    T saveAndFlush(T entity);
+    
     /**
      * Delete entity.
      */
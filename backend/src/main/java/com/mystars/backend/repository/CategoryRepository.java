@@ -1,5 +1,6 @@
 package com.mystars.backend.repository;
 
+import com.mystars.backend.catalog.CategoryView;
 import com.mystars.backend.entity.Category;
 import java.util.List;
 import java.util.Optional;
@@ -15,6 +16,11 @@ public interface CategoryRepository extends BaseRepository<Category> {
      */
     Optional<Category> findByName(String name);
     
+    /**
+     * Find the views of all categories, selecting the parent's ID without loading the parent.
+     */
+    List<CategoryView> findAllViews();
+    
     /**
      * Find root categories (categories without parent).
      */
@@ -1,10 +1,13 @@
 package com.mystars.backend.repository;
 
+import com.mystars.backend.catalog.CategoryView;
 import com.mystars.backend.entity.Category;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import java.util.List;
@@ -17,10 +20,23 @@ import java.util.UUID;
 @ApplicationScoped
 public class CategoryRepositoryImpl extends AbstractRepository<Category> implements CategoryRepository {
     
+    private static final Projection<Category, CategoryView> VIEW = (cb, root) -> {
+        Join<Category, Category> parent = root.join("parent", JoinType.LEFT);
+        return cb.construct(CategoryView.class,
+            root.get("id"), root.get("name"), root.get("description"), root.get("imageUrl"), parent.get("id"),
+            root.get("isActive"), root.get("displayOrder"), root.get("createdAt"), root.get("updatedAt"),
+            root.get("version"));
+    };
+    
     public CategoryRepositoryImpl() {
         super(Category.class);
     }
     
+    @Override
+    public List<CategoryView> findAllViews() {
+        return findAll(CategoryView.class, VIEW, null, KeysetSort.CREATED_AT);
+    }
+    
     @Override
     public Optional<Category> findByName(String name) {
         CriteriaBuilder cb = getCriteriaBuilder();
@@ -71,4 +87,12 @@ public class CategoryRepositoryImpl extends AbstractRepository<Category> impleme
         
         return em.createQuery(select).getResultList();
     }
+    
+    @Override
+    protected Comparable<?> keysetValue(Category category, KeysetSort sort) {
+        if (sort == KeysetSort.NAME) {
+            return category.getName();
+        }
+        return super.keysetValue(category, sort);
+    }
 }
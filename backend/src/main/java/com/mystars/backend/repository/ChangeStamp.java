@@ -0,0 +1,53 @@
+package com.mystars.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Cheap fingerprint of an entity or a collection, used for HTTP validators.
+ * A single entity is identified by its ID and version; a collection by its size
+ * and latest update time, which changes whenever a row is added, updated or removed.
+ */
+public final class ChangeStamp {
+
+    private final String tag;
+    private final LocalDateTime lastModified;
+
+    private ChangeStamp(String tag, LocalDateTime lastModified) {
+        this.tag = tag;
+        this.lastModified = lastModified;
+    }
+
+    public static ChangeStamp of(UUID id, Long version, LocalDateTime updatedAt) {
+        return new ChangeStamp(id + "-" + (version != null ? version : 0L), updatedAt);
+    }
+
+    public static ChangeStamp ofCollection(long count, LocalDateTime maxUpdatedAt) {
+        return new ChangeStamp(count + "-" + (maxUpdatedAt != null ? maxUpdatedAt : "0"), maxUpdatedAt);
+    }
+
+    /**
+     * Stamp of a representation that depends on both this and another stamp.
+     */
+    public ChangeStamp combine(ChangeStamp other) {
+        LocalDateTime latest = lastModified;
+        if (latest == null || (other.lastModified != null && other.lastModified.isAfter(latest))) {
+            latest = other.lastModified;
+        }
+        return new ChangeStamp(tag + "." + other.tag, latest);
+    }
+
+    /**
+     * Opaque value that changes whenever the stamped data changes.
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Latest update time, or null if unknown.
+     */
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,100 @@
+package com.mystars.backend.repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Sparse fieldset requested with {@code ?fields=}: the properties of a read model that a
+ * response should contain. The ID is always included so that rows stay identifiable.
+ * Names are kept in the read model's order, not the client's, so equal selections are equal.
+ */
+public final class FieldSet {
+
+    public static final String ID = "id";
+
+    private final Set<String> names;
+
+    private FieldSet(Set<String> names) {
+        this.names = Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Parse a comma-separated list of field names, or return null for all fields when blank.
+     *
+     * @throws IllegalArgumentException if a name is not one of the available fields
+     */
+    public static FieldSet parse(String fields, Collection<String> available) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> requested = new HashSet<>();
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!available.contains(trimmed)) {
+                throw new IllegalArgumentException("Unknown field: " + trimmed
+                    + " (available: " + String.join(", ", available) + ")");
+            }
+            requested.add(trimmed);
+        }
+        Set<String> names = new LinkedHashSet<>();
+        names.add(ID);
+        for (String name : available) {
+            if (requested.contains(name)) {
+                names.add(name);
+            }
+        }
+        return new FieldSet(names);
+    }
+
+    public boolean contains(String name) {
+        return names.contains(name);
+    }
+
+    public Set<String> getNames() {
+        return names;
+    }
+
+    /**
+     * This fieldset without the given field, for fields that are loaded separately.
+     */
+    public FieldSet without(String name) {
+        if (!names.contains(name)) {
+            return this;
+        }
+        Set<String> remaining = new LinkedHashSet<>(names);
+        remaining.remove(name);
+        return new FieldSet(remaining);
+    }
+
+    /**
+     * Copy the selected properties of a read model, in its order, omitting null values
+     * as the full representation does.
+     */
+    public <V> Map<String, Object> select(V view, Map<String, ? extends Function<? super V, ?>> getters) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String name : names) {
+            Object value = getters.get(name).apply(view);
+            if (value != null) {
+                row.put(name, value);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Canonical form, usable in cache keys: the names in the read model's order.
+     */
+    @Override
+    public String toString() {
+        return String.join(",", names);
+    }
+}
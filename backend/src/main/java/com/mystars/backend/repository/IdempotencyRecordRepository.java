@@ -0,0 +1,43 @@
+package com.mystars.backend.repository;
+
+import com.mystars.backend.entity.IdempotencyRecord;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository interface for IdempotencyRecord entity operations.
+ */
+public interface IdempotencyRecordRepository extends BaseRepository<IdempotencyRecord> {
+    
+    /**
+     * Find the record of an idempotency key.
+     */
+    Optional<IdempotencyRecord> findByKey(String key);
+    
+    /**
+     * Insert a running record for the key in one statement, or take over an existing record
+     * that has expired or whose request has been running since before staleBefore.
+     *
+     * @return the claim's token, the record's version, or empty if another request holds the key
+     */
+    Optional<Long> claim(String key, String fingerprint, LocalDateTime expiresAt, LocalDateTime staleBefore);
+    
+    /**
+     * Store the response of the running request holding the key, unless its claim with the
+     * token has since been taken over.
+     */
+    boolean complete(String key, long token, int statusCode, String mediaType, byte[] body);
+    
+    /**
+     * Delete the record of the key if the request holding the claim with the token is still
+     * running, so a retry runs it again.
+     */
+    boolean release(String key, long token);
+    
+    /**
+     * Delete up to limit records that expired before now.
+     *
+     * @return number of records deleted
+     */
+    int deleteExpired(LocalDateTime now, int limit);
+}
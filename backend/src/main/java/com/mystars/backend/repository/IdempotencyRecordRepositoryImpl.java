@@ -0,0 +1,94 @@
+package com.mystars.backend.repository;
+
+import com.mystars.backend.entity.IdempotencyRecord;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Implementation of IdempotencyRecordRepository.
+ */
+@ApplicationScoped
+public class IdempotencyRecordRepositoryImpl extends AbstractRepository<IdempotencyRecord>
+        implements IdempotencyRecordRepository {
+    
+    private static final String CLAIM = "INSERT INTO idempotency_keys"
+        + " (id, version, created_at, updated_at, idempotency_key, fingerprint, expires_at)"
+        + " VALUES (?1, 0, ?2, ?2, ?3, ?4, ?5)"
+        + " ON CONFLICT (idempotency_key) DO UPDATE SET"
+        + " fingerprint = EXCLUDED.fingerprint, expires_at = EXCLUDED.expires_at, updated_at = EXCLUDED.updated_at,"
+        + " status_code = NULL, media_type = NULL, body = NULL, version = idempotency_keys.version + 1"
+        + " WHERE idempotency_keys.expires_at <= ?2"
+        + " OR (idempotency_keys.status_code IS NULL AND idempotency_keys.updated_at < ?6)"
+        + " RETURNING idempotency_keys.version";
+    
+    private static final String DELETE_EXPIRED = "DELETE FROM idempotency_keys"
+        + " WHERE id IN (SELECT id FROM idempotency_keys WHERE expires_at <= ?1 LIMIT ?2 FOR UPDATE SKIP LOCKED)";
+    
+    public IdempotencyRecordRepositoryImpl() {
+        super(IdempotencyRecord.class);
+    }
+    
+    @Override
+    public Optional<IdempotencyRecord> findByKey(String key) {
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<IdempotencyRecord> cq = cb.createQuery(IdempotencyRecord.class);
+        Root<IdempotencyRecord> root = cq.from(IdempotencyRecord.class);
+        cq.where(cb.equal(root.get("key"), key));
+        
+        TypedQuery<IdempotencyRecord> query = em.createQuery(cq);
+        List<IdempotencyRecord> results = query.getResultList();
+        
+        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+    }
+    
+    @Override
+    public Optional<Long> claim(String key, String fingerprint, LocalDateTime expiresAt, LocalDateTime staleBefore) {
+        List<?> claimed = em.createNativeQuery(CLAIM)
+            .setParameter(1, UUID.randomUUID())
+            .setParameter(2, LocalDateTime.now())
+            .setParameter(3, key)
+            .setParameter(4, fingerprint)
+            .setParameter(5, expiresAt)
+            .setParameter(6, staleBefore)
+            .getResultList();
+        return claimed.isEmpty() ? Optional.empty() : Optional.of(((Number) claimed.get(0)).longValue());
+    }
+    
+    @Override
+    public boolean complete(String key, long token, int statusCode, String mediaType, byte[] body) {
+        return em.createQuery("UPDATE IdempotencyRecord r SET r.statusCode = :statusCode, r.mediaType = :mediaType, "
+                + "r.body = :body, r.updatedAt = :now, r.version = r.version + 1 "
+                + "WHERE r.key = :key AND r.version = :token AND r.statusCode IS NULL")
+            .setParameter("statusCode", statusCode)
+            .setParameter("mediaType", mediaType)
+            .setParameter("body", body)
+            .setParameter("now", LocalDateTime.now())
+            .setParameter("key", key)
+            .setParameter("token", token)
+            .executeUpdate() > 0;
+    }
+    
+    @Override
+    public boolean release(String key, long token) {
+        return em.createQuery("DELETE FROM IdempotencyRecord r"
+                + " WHERE r.key = :key AND r.version = :token AND r.statusCode IS NULL")
+            .setParameter("key", key)
+            .setParameter("token", token)
+            .executeUpdate() > 0;
+    }
+    
+    @Override
+    public int deleteExpired(LocalDateTime now, int limit) {
+        return em.createNativeQuery(DELETE_EXPIRED)
+            .setParameter(1, now)
+            .setParameter(2, limit)
+            .executeUpdate();
+    }
+}
@@ -0,0 +1,55 @@
+package com.mystars.backend.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last row of a page, encoded as an opaque URL-safe token.
+ * The token carries the sort order so a cursor cannot be replayed against another one.
+ */
+public final class KeysetCursor {
+
+    private final KeysetSort sort;
+    private final UUID id;
+    private final Comparable<?> value;
+
+    public KeysetCursor(KeysetSort sort, UUID id, Comparable<?> value) {
+        this.sort = sort;
+        this.id = id;
+        this.value = value;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public Comparable<?> getValue() {
+        return value;
+    }
+
+    public String encode() {
+        String raw = sort.name() + "|" + id + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor token, or return null for the first page.
+     */
+    public static KeysetCursor decode(String token, KeysetSort sort) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || !parts[0].equals(sort.name())) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(sort, UUID.fromString(parts[1]), sort.parseValue(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.mystars.backend.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Extra restriction applied to a keyset page query.
+ *
+ * @param <T> Entity type
+ */
+@FunctionalInterface
+public interface KeysetFilter<T> {
+    
+    Predicate toPredicate(CriteriaBuilder cb, Root<T> root);
+}
@@ -0,0 +1,44 @@
+package com.mystars.backend.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Sort orders supported by keyset (cursor) pagination.
+ * Every order is made unique by using the entity ID as a tie-breaker.
+ */
+public enum KeysetSort {
+
+    CREATED_AT("createdAt", true),
+    CREATED_AT_DESC("createdAt", false),
+    NAME("name", true),
+    PRICE("price", true),
+    PRICE_DESC("price", false);
+
+    private final String attribute;
+    private final boolean ascending;
+
+    KeysetSort(String attribute, boolean ascending) {
+        this.attribute = attribute;
+        this.ascending = ascending;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * Parse a sort key value previously written into a cursor.
+     */
+    Comparable<?> parseValue(String value) {
+        return switch (this) {
+            case CREATED_AT, CREATED_AT_DESC -> LocalDateTime.parse(value);
+            case NAME -> value;
+            case PRICE, PRICE_DESC -> new BigDecimal(value);
+        };
+    }
+}
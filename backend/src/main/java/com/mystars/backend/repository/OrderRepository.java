@@ -1,10 +1,16 @@
 package com.mystars.backend.repository;
 
+import com.mystars.backend.dto.OrderSummary;
+import com.mystars.backend.dto.OrderView;
 import com.mystars.backend.entity.Order;
 import com.mystars.backend.entity.User;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Repository interface for Order entity operations.
@@ -21,11 +27,33 @@ public interface OrderRepository extends BaseRepository<Order> {
      */
     List<Order> findByUserId(UUID userId);
     
+    /**
+     * Find a page of order summaries by user ID, most recent first.
+     */
+    Page<OrderSummary> findByUserId(UUID userId, String cursor, int size);
+    
     /**
      * Find orders by status.
      */
     List<Order> findByStatus(Order.OrderStatus status);
     
+    /**
+     * Find a page of order summaries by status, most recent first.
+     */
+    Page<OrderSummary> findByStatus(Order.OrderStatus status, String cursor, int size);
+    
+    /**
+     * Find a page of order summaries in the given order.
+     */
+    Page<OrderSummary> findSummaryPage(String cursor, int size, KeysetSort sort);
+    
+    /**
+     * Find a page of sparse order summaries, optionally by status and user, selecting only
+     * the columns of the requested fields.
+     */
+    Page<Map<String, Object>> findSummaryPage(Order.OrderStatus status, UUID userId, String cursor, int size,
+                                              KeysetSort sort, FieldSet fields);
+    
     /**
      * Find orders by user and status.
      */
@@ -36,8 +64,68 @@ public interface OrderRepository extends BaseRepository<Order> {
      */
     Optional<Order> findByIdWithItems(UUID id);
     
+    /**
+     * Find the view of an order with its items, selecting only the serialized columns.
+     */
+    Optional<OrderView> findViewById(UUID id);
+    
+    /**
+     * Find the requested fields of an order, selecting only their columns.
+     * Items are loaded only when requested.
+     */
+    Optional<Map<String, Object>> findViewById(UUID id, FieldSet fields);
+    
+    /**
+     * Pass the view of every order with its items to the action, oldest first, through a
+     * forward-only cursor. Must be called inside a transaction.
+     *
+     * @return number of orders passed to the action
+     */
+    long scrollViews(Consumer<? super OrderView> action);
+    
     /**
      * Find recent orders.
      */
     List<Order> findTop100ByOrderByCreatedAtDesc();
+    
+    /**
+     * Count and latest update time of the orders matching the optional status and user filters.
+     */
+    ChangeStamp findChangeStamp(Order.OrderStatus status, UUID userId);
+    
+    /**
+     * Total quantity ordered per product ID, excluding cancelled orders.
+     */
+    Map<UUID, Long> sumQuantityByProduct();
+    
+    /**
+     * Total quantity of the pending order items of each of the given products.
+     */
+    Map<UUID, Long> sumPendingStock(Collection<UUID> productIds);
+    
+    /**
+     * Mark up to limit pending order items as no longer pending and return them, skipping
+     * items locked by other transactions, in one statement.
+     */
+    List<PendingStock> claimPendingStock(int limit);
+    
+    /**
+     * Mark order items as pending again.
+     */
+    void markStockPending(Collection<UUID> itemIds);
+    
+    /**
+     * Find the status of each of the given orders that exists.
+     */
+    Map<UUID, Order.OrderStatus> findStatuses(Collection<UUID> ids);
+    
+    /**
+     * Move the given orders whose status is one of from to the new status in one statement,
+     * stamping the shipped or delivered date when that is the new status. Orders are locked in
+     * ID order, and an order changed concurrently is checked against from again.
+     *
+     * @return the orders changed
+     */
+    List<StatusChange> transitionStatus(Collection<UUID> ids, Order.OrderStatus status,
+                                        Collection<Order.OrderStatus> from, LocalDateTime now);
 }
@@ -1,16 +1,35 @@
 package com.mystars.backend.repository;
 
+import com.mystars.backend.dto.OrderItemView;
+import com.mystars.backend.dto.OrderSummary;
+import com.mystars.backend.dto.OrderView;
 import com.mystars.backend.entity.Order;
+import com.mystars.backend.entity.OrderItem;
+import com.mystars.backend.entity.Product;
 import com.mystars.backend.entity.User;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import org.hibernate.Session;
 
 /**
  * Implementation of OrderRepository.
@@ -18,10 +37,63 @@ import java.util.UUID;
 @ApplicationScoped
 public class OrderRepositoryImpl extends AbstractRepository<Order> implements OrderRepository {
     
+    private static final String ITEMS = "items";
+    
+    private static final Projection<Order, OrderSummary> SUMMARY = (cb, root) -> {
+        Join<Order, User> user = root.join("user");
+        return cb.construct(OrderSummary.class,
+            root.get("id"), user.get("id"), user.get("email"), root.get("status"), root.get("totalAmount"),
+            root.get("orderDate"), root.get("shippedDate"), root.get("deliveredDate"), root.get("trackingNumber"),
+            root.get("createdAt"), root.get("updatedAt"), root.get("version"));
+    };
+    
+    private static final Projection<Order, OrderView> VIEW = (cb, root) -> {
+        Join<Order, User> user = root.join("user");
+        return cb.construct(OrderView.class,
+            root.get("id"), user.get("id"), user.get("email"), root.get("status"), root.get("totalAmount"),
+            root.get("orderDate"), root.get("shippedDate"), root.get("deliveredDate"), root.get("trackingNumber"),
+            root.get("createdAt"), root.get("updatedAt"), root.get("version"),
+            root.get("shippingAddress"), root.get("billingAddress"), root.get("notes"));
+    };
+    
+    private static final Map<String, SparseField<Order>> COLUMNS = columns();
+    
+    /**
+     * Claims pending items in one round trip; SKIP LOCKED lets concurrent writers claim disjoint items.
+     */
+    private static final String CLAIM_PENDING_STOCK = "UPDATE order_items SET stock_pending = false"
+        + " WHERE id IN (SELECT id FROM order_items WHERE stock_pending = true LIMIT ? FOR UPDATE SKIP LOCKED)"
+        + " RETURNING id, product_id, quantity";
+    
+    /**
+     * Moves orders between statuses in one round trip; the locking subquery reads each order's
+     * previous status and fixes the lock order. The date column to stamp, if any, is appended.
+     */
+    private static final String TRANSITION_STATUS = "UPDATE orders o SET status = ?, version = o.version + 1,"
+        + " updated_at = ?%s"
+        + " FROM (SELECT id, status FROM orders WHERE id = ANY (?) AND status = ANY (?) ORDER BY id FOR UPDATE) p"
+        + " WHERE o.id = p.id"
+        + " RETURNING o.id, o.user_id, o.total_amount, p.status";
+    
     public OrderRepositoryImpl() {
         super(Order.class);
     }
     
+    /**
+     * How each column property of {@link OrderView#FIELDS} is read by a sparse query.
+     * Items are not a column and are loaded by their own query.
+     */
+    private static Map<String, SparseField<Order>> columns() {
+        Map<String, SparseField<Order>> columns = new HashMap<>();
+        for (String name : OrderView.FIELDS.keySet()) {
+            columns.put(name, SparseField.attribute(name));
+        }
+        columns.put("userId", SparseField.column((cb, root) -> root.get("user").get("id")));
+        columns.put("userEmail", SparseField.column((cb, root) -> root.join("user").get("email")));
+        columns.remove(ITEMS);
+        return Map.copyOf(columns);
+    }
+    
     @Override
     public List<Order> findByUser(User user) {
         CriteriaBuilder cb = getCriteriaBuilder();
@@ -47,6 +119,13 @@ public class OrderRepositoryImpl extends AbstractRepository<Order> implements Or
         return em.createQuery(select).getResultList();
     }
     
+    @Override
+    public Page<OrderSummary> findByUserId(UUID userId, String cursor, int size) {
+        return findPage(cursor, size, KeysetSort.CREATED_AT_DESC,
+            (cb, root) -> cb.equal(root.get("user").get("id"), userId),
+            OrderSummary.class, SUMMARY, (order, sort) -> order.getCreatedAt());
+    }
+    
     @Override
     public List<Order> findByStatus(Order.OrderStatus status) {
         CriteriaBuilder cb = getCriteriaBuilder();
@@ -59,6 +138,34 @@ public class OrderRepositoryImpl extends AbstractRepository<Order> implements Or
         return em.createQuery(cq).getResultList();
     }
     
+    @Override
+    public Page<OrderSummary> findByStatus(Order.OrderStatus status, String cursor, int size) {
+        return findPage(cursor, size, KeysetSort.CREATED_AT_DESC,
+            (cb, root) -> cb.equal(root.get("status"), status),
+            OrderSummary.class, SUMMARY, (order, sort) -> order.getCreatedAt());
+    }
+    
+    @Override
+    public Page<OrderSummary> findSummaryPage(String cursor, int size, KeysetSort sort) {
+        return findPage(cursor, size, sort, null, OrderSummary.class, SUMMARY, (order, key) -> order.getCreatedAt());
+    }
+    
+    @Override
+    public Page<Map<String, Object>> findSummaryPage(Order.OrderStatus status, UUID userId, String cursor, int size,
+                                                     KeysetSort sort, FieldSet fields) {
+        KeysetFilter<Order> filter = (cb, root) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            if (userId != null) {
+                predicates.add(cb.equal(root.get("user").get("id"), userId));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+        return findPage(cursor, size, sort, filter, fields, COLUMNS);
+    }
+    
     @Override
     public List<Order> findByUserAndStatus(User user, Order.OrderStatus status) {
         CriteriaBuilder cb = getCriteriaBuilder();
@@ -92,6 +199,68 @@ public class OrderRepositoryImpl extends AbstractRepository<Order> implements Or
         return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
     }
     
+    @Override
+    public Optional<OrderView> findViewById(UUID id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        List<OrderView> results = findAll(OrderView.class, VIEW, (cb, root) -> cb.equal(root.get("id"), id), null);
+        if (results.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(results.get(0).withItems(findItemViews(id)));
+    }
+    
+    @Override
+    public Optional<Map<String, Object>> findViewById(UUID id, FieldSet fields) {
+        Optional<Map<String, Object>> order = findById(id, fields.without(ITEMS), COLUMNS);
+        if (order.isPresent() && fields.contains(ITEMS)) {
+            order.get().put(ITEMS, findItemViews(id));
+        }
+        return order;
+    }
+    
+    /**
+     * Find the item views of an order, ordered by product name.
+     */
+    private List<OrderItemView> findItemViews(UUID orderId) {
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<OrderItemView> cq = cb.createQuery(OrderItemView.class);
+        Root<OrderItem> item = cq.from(OrderItem.class);
+        Join<OrderItem, Product> product = item.join("product");
+        cq.select(cb.construct(OrderItemView.class,
+                item.get("id"), product.get("id"), product.get("name"), product.get("sku"),
+                item.get("quantity"), item.get("unitPrice"), item.get("discount")))
+            .where(cb.equal(item.get("order").get("id"), orderId))
+            .orderBy(cb.asc(product.get("name")), cb.asc(item.get("id")));
+        return em.createQuery(cq).getResultList();
+    }
+    
+    @Override
+    public long scrollViews(Consumer<? super OrderView> action) {
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Order> root = cq.from(Order.class);
+        Join<Order, User> user = root.join("user");
+        Join<Order, OrderItem> item = root.join("items", JoinType.LEFT);
+        Join<OrderItem, Product> product = item.join("product", JoinType.LEFT);
+        
+        // One row per item, ordered so that the rows of an order are adjacent
+        cq.multiselect(
+                root.get("id"), user.get("id"), user.get("email"), root.get("status"), root.get("totalAmount"),
+                root.get("orderDate"), root.get("shippedDate"), root.get("deliveredDate"), root.get("trackingNumber"),
+                root.get("createdAt"), root.get("updatedAt"), root.get("version"),
+                root.get("shippingAddress"), root.get("billingAddress"), root.get("notes"),
+                item.get("id"), product.get("id"), product.get("name"), product.get("sku"),
+                item.get("quantity"), item.get("unitPrice"), item.get("discount"))
+            .orderBy(cb.asc(root.get("createdAt")), cb.asc(root.get("id")),
+                cb.asc(product.get("name")), cb.asc(item.get("id")));
+        
+        OrderRowGrouper grouper = new OrderRowGrouper(action);
+        scroll(cq, grouper);
+        return grouper.finish();
+    }
+    
     @Override
     public List<Order> findTop100ByOrderByCreatedAtDesc() {
         CriteriaBuilder cb = getCriteriaBuilder();
@@ -105,4 +274,194 @@ public class OrderRepositoryImpl extends AbstractRepository<Order> implements Or
         
         return query.getResultList();
     }
+    
+    @Override
+    public ChangeStamp findChangeStamp(Order.OrderStatus status, UUID userId) {
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Order> root = cq.from(Order.class);
+        
+        List<Predicate> predicates = new ArrayList<>();
+        if (status != null) {
+            predicates.add(cb.equal(root.get("status"), status));
+        }
+        if (userId != null) {
+            predicates.add(cb.equal(root.get("user").get("id"), userId));
+        }
+        cq.multiselect(cb.count(root), cb.greatest(root.<LocalDateTime>get("updatedAt")))
+            .where(predicates.toArray(new Predicate[0]));
+        
+        Tuple row = em.createQuery(cq).getSingleResult();
+        return ChangeStamp.ofCollection(row.get(0, Long.class), row.get(1, LocalDateTime.class));
+    }
+    
+    @Override
+    public Map<UUID, Long> sumQuantityByProduct() {
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<OrderItem> item = cq.from(OrderItem.class);
+        Join<OrderItem, Order> order = item.join("order");
+        
+        cq.multiselect(item.get("product").get("id"), cb.sum(item.<Integer>get("quantity")))
+            .where(cb.notEqual(order.get("status"), Order.OrderStatus.CANCELLED))
+            .groupBy(item.get("product").get("id"));
+        
+        Map<UUID, Long> quantities = new HashMap<>();
+        for (Tuple row : em.createQuery(cq).getResultList()) {
+            Number quantity = row.get(1, Number.class);
+            quantities.put(row.get(0, UUID.class), quantity != null ? quantity.longValue() : 0L);
+        }
+        return quantities;
+    }
+    
+    @Override
+    public Map<UUID, Long> sumPendingStock(Collection<UUID> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<OrderItem> item = cq.from(OrderItem.class);
+        
+        cq.multiselect(item.get("product").get("id"), cb.sum(item.<Integer>get("quantity")))
+            .where(cb.isTrue(item.get("stockPending")), item.get("product").get("id").in(productIds))
+            .groupBy(item.get("product").get("id"));
+        
+        Map<UUID, Long> quantities = new HashMap<>();
+        for (Tuple row : em.createQuery(cq).getResultList()) {
+            quantities.put(row.get(0, UUID.class), row.get(1, Number.class).longValue());
+        }
+        return quantities;
+    }
+    
+    @Override
+    public List<PendingStock> claimPendingStock(int limit) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(CLAIM_PENDING_STOCK)) {
+                statement.setInt(1, limit);
+                List<PendingStock> claimed = new ArrayList<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        claimed.add(new PendingStock(rows.getObject(1, UUID.class), rows.getObject(2, UUID.class),
+                            rows.getInt(3)));
+                    }
+                }
+                return claimed;
+            }
+        });
+    }
+    
+    @Override
+    public void markStockPending(Collection<UUID> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        em.createQuery("UPDATE OrderItem i SET i.stockPending = true WHERE i.id IN :ids")
+            .setParameter("ids", itemIds)
+            .executeUpdate();
+    }
+    
+    @Override
+    public Map<UUID, Order.OrderStatus> findStatuses(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Order> root = cq.from(Order.class);
+        cq.multiselect(root.get("id"), root.get("status")).where(root.get("id").in(ids));
+        
+        Map<UUID, Order.OrderStatus> statuses = new HashMap<>();
+        for (Tuple row : em.createQuery(cq).getResultList()) {
+            statuses.put(row.get(0, UUID.class), row.get(1, Order.OrderStatus.class));
+        }
+        return statuses;
+    }
+    
+    @Override
+    public List<StatusChange> transitionStatus(Collection<UUID> ids, Order.OrderStatus status,
+                                               Collection<Order.OrderStatus> from, LocalDateTime now) {
+        if (ids.isEmpty() || from.isEmpty()) {
+            return List.of();
+        }
+        String stamp = switch (status) {
+            case SHIPPED -> ", shipped_date = ?";
+            case DELIVERED -> ", delivered_date = ?";
+            default -> "";
+        };
+        String sql = String.format(TRANSITION_STATUS, stamp);
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int parameter = 1;
+                statement.setString(parameter++, status.name());
+                statement.setTimestamp(parameter++, Timestamp.valueOf(now));
+                if (!stamp.isEmpty()) {
+                    statement.setTimestamp(parameter++, Timestamp.valueOf(now));
+                }
+                statement.setArray(parameter++, connection.createArrayOf("uuid", ids.toArray()));
+                statement.setArray(parameter, connection.createArrayOf("varchar",
+                    from.stream().map(Order.OrderStatus::name).toArray()));
+                List<StatusChange> changes = new ArrayList<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        changes.add(new StatusChange(rows.getObject(1, UUID.class), rows.getObject(2, UUID.class),
+                            rows.getBigDecimal(3), Order.OrderStatus.valueOf(rows.getString(4))));
+                    }
+                }
+                return changes;
+            }
+        });
+    }
+    
+    /**
+     * Folds adjacent item rows of the export query into one order view each,
+     * holding only the order being assembled.
+     */
+    private static final class OrderRowGrouper implements Consumer<Tuple> {
+        private final Consumer<? super OrderView> action;
+        private OrderView current;
+        private List<OrderItemView> items = new ArrayList<>();
+        private long count;
+        
+        private OrderRowGrouper(Consumer<? super OrderView> action) {
+            this.action = action;
+        }
+        
+        @Override
+        public void accept(Tuple row) {
+            UUID orderId = row.get(0, UUID.class);
+            if (current == null || !current.getId().equals(orderId)) {
+                emit();
+                current = new OrderView(orderId, row.get(1, UUID.class), row.get(2, String.class),
+                    row.get(3, Order.OrderStatus.class), row.get(4, BigDecimal.class),
+                    row.get(5, LocalDateTime.class), row.get(6, LocalDateTime.class), row.get(7, LocalDateTime.class),
+                    row.get(8, String.class), row.get(9, LocalDateTime.class), row.get(10, LocalDateTime.class),
+                    row.get(11, Long.class), row.get(12, String.class), row.get(13, String.class),
+                    row.get(14, String.class));
+            }
+            UUID itemId = row.get(15, UUID.class);
+            if (itemId != null) {
+                items.add(new OrderItemView(itemId, row.get(16, UUID.class), row.get(17, String.class),
+                    row.get(18, String.class), row.get(19, Integer.class), row.get(20, BigDecimal.class),
+                    row.get(21, BigDecimal.class)));
+            }
+        }
+        
+        /**
+         * Emit the last order and return the number of orders emitted.
+         */
+        private long finish() {
+            emit();
+            return count;
+        }
+        
+        private void emit() {
+            if (current != null) {
+                action.accept(current.withItems(items));
+                items = new ArrayList<>();
+                current = null;
+                count++;
+            }
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package com.mystars.backend.repository;
+
+import com.mystars.backend.entity.OutboxEvent;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository interface for OutboxEvent entity operations.
+ */
+public interface OutboxEventRepository extends BaseRepository<OutboxEvent> {
+    
+    /**
+     * Lock up to limit pending events due by now, oldest first, skipping events locked by
+     * other dispatchers. The locks are held until the current transaction ends.
+     */
+    List<OutboxEvent> lockPending(LocalDateTime now, int limit);
+    
+    /**
+     * Delete the events with the given IDs.
+     */
+    void deleteAllById(Collection<UUID> ids);
+}
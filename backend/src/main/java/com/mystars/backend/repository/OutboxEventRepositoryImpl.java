@@ -0,0 +1,42 @@
+package com.mystars.backend.repository;
+
+import com.mystars.backend.entity.OutboxEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Implementation of OutboxEventRepository.
+ */
+@ApplicationScoped
+public class OutboxEventRepositoryImpl extends AbstractRepository<OutboxEvent> implements OutboxEventRepository {
+    
+    private static final String LOCK_PENDING = "SELECT * FROM outbox_events"
+        + " WHERE status = 'PENDING' AND available_at <= ?1"
+        + " ORDER BY created_at LIMIT ?2 FOR UPDATE SKIP LOCKED";
+    
+    public OutboxEventRepositoryImpl() {
+        super(OutboxEvent.class);
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<OutboxEvent> lockPending(LocalDateTime now, int limit) {
+        return em.createNativeQuery(LOCK_PENDING, OutboxEvent.class)
+            .setParameter(1, now)
+            .setParameter(2, limit)
+            .getResultList();
+    }
+    
+    @Override
+    public void deleteAllById(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        em.createQuery("DELETE FROM OutboxEvent e WHERE e.id IN :ids")
+            .setParameter("ids", ids)
+            .executeUpdate();
+    }
+}
@@ -0,0 +1,59 @@
+package com.mystars.backend.repository;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of results returned by keyset pagination.
+ * The next cursor is opaque to clients and is null on the last page.
+ *
+ * @param <T> Item type
+ */
+public class Page<T> {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private final List<T> data;
+    private final int size;
+    private final String nextCursor;
+
+    public Page(List<T> data, int size, String nextCursor) {
+        this.data = data;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Clamp a requested page size to the supported range.
+     */
+    public static int clampSize(int size) {
+        if (size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    /**
+     * Page with each item transformed, keeping the size and cursor.
+     */
+    public <R> Page<R> map(Function<? super T, ? extends R> mapper) {
+        return new Page<>(data.stream().<R>map(mapper).toList(), size, nextCursor);
+    }
+
+    public List<T> getData() {
+        return data;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.mystars.backend.repository;
+
+import java.util.UUID;
+
+/**
+ * An order item whose quantity has been reserved in memory but not yet subtracted from its
+ * product's stored stock.
+ */
+public final class PendingStock {
+
+    private final UUID itemId;
+    private final UUID productId;
+    private final int quantity;
+
+    public PendingStock(UUID itemId, UUID productId, int quantity) {
+        this.itemId = itemId;
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public UUID getItemId() {
+        return itemId;
+    }
+
+    public UUID getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+}
@@ -0,0 +1,79 @@
+package com.mystars.backend.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Combined product filter specification. Every non-null criterion is applied together.
+ */
+public class ProductFilter {
+
+    private Boolean active;
+    private Collection<UUID> categoryIds;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private boolean inStock;
+    private String text;
+    private KeysetSort sort = KeysetSort.NAME;
+
+    // Getters and Setters
+    public Boolean getActive() {
+        return active;
+    }
+
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+
+    /**
+     * Category IDs to match, typically a category and all of its descendants.
+     */
+    public Collection<UUID> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public void setCategoryIds(Collection<UUID> categoryIds) {
+        this.categoryIds = categoryIds;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public boolean isInStock() {
+        return inStock;
+    }
+
+    public void setInStock(boolean inStock) {
+        this.inStock = inStock;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text != null && !text.isBlank() ? text.trim() : null;
+    }
+
+    public KeysetSort getSort() {
+        return sort;
+    }
+
+    public void setSort(KeysetSort sort) {
+        this.sort = sort != null ? sort : KeysetSort.NAME;
+    }
+}
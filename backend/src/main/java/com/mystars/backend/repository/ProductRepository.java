@@ -1,11 +1,16 @@
 package com.mystars.backend.repository;
 
+import com.mystars.backend.catalog.ProductView;
 import com.mystars.backend.entity.Product;
 import com.mystars.backend.entity.Category;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Repository interface for Product entity operations.
@@ -17,6 +22,21 @@ public interface ProductRepository extends BaseRepository<Product> {
      */
     Optional<Product> findBySku(String sku);
     
+    /**
+     * Find the ID of the product with the given SKU, without loading the product.
+     */
+    Optional<UUID> findIdBySku(String sku);
+    
+    /**
+     * Map each of the given SKUs that is assigned to its product ID, in one query.
+     */
+    Map<String, UUID> findIdsBySku(Collection<String> skus);
+    
+    /**
+     * Map every assigned SKU to its product ID.
+     */
+    Map<String, UUID> findAllSkuIds();
+    
     /**
      * Find products by category.
      */
@@ -51,4 +71,37 @@ public interface ProductRepository extends BaseRepository<Product> {
      * Find products by category and active status.
      */
     List<Product> findByCategoryAndIsActive(Category category, boolean isActive);
+    
+    /**
+     * Find the views of all products, selecting the category's ID and name by join.
+     */
+    List<ProductView> findAllViews();
+    
+    /**
+     * Pass the view of every product to the action, oldest first, through a forward-only cursor.
+     * Must be called inside a transaction.
+     *
+     * @return number of products passed to the action
+     */
+    long scrollViews(Consumer<? super ProductView> action);
+    
+    /**
+     * Find a page of product views matching all criteria of the filter, in the filter's sort order.
+     */
+    Page<ProductView> findPage(ProductFilter filter, String cursor, int size);
+    
+    /**
+     * Find a page of sparse product rows, selecting only the columns of the requested fields.
+     */
+    Page<Map<String, Object>> findPage(ProductFilter filter, String cursor, int size, FieldSet fields);
+    
+    /**
+     * Add a delta to the stock of each product in the database, negative to remove stock, as
+     * one JDBC batch of conditional updates in ascending ID order. A product is left unchanged
+     * if its stock would go negative or it does not exist. Pending changes are flushed first
+     * and managed copies of the products detached, so they are read again with the new stock.
+     *
+     * @return IDs of the products left unchanged
+     */
+    Set<UUID> adjustStock(Map<UUID, Integer> deltas);
 }
@@ -1,18 +1,35 @@
 package com.mystars.backend.repository;
 
-import com.mystars.backend.entity.Product;
+import com.mystars.backend.catalog.ProductView;
 import com.mystars.backend.entity.Category;
+import com.mystars.backend.entity.Product;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.ParameterExpression;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import org.hibernate.Session;
 
 /**
  * Implementation of ProductRepository.
@@ -20,10 +37,65 @@ import java.util.UUID;
 @ApplicationScoped
 public class ProductRepositoryImpl extends AbstractRepository<Product> implements ProductRepository {
     
+    /**
+     * Conditional stock update: the row is only changed if the stock stays non-negative.
+     * Bumps the version and update time as a managed update would.
+     */
+    private static final String ADJUST_STOCK = "UPDATE products"
+        + " SET stock_quantity = stock_quantity + ?, version = version + 1, updated_at = ?"
+        + " WHERE id = ? AND stock_quantity >= ?";
+    
+    /**
+     * Escape character of LIKE patterns built from user input.
+     */
+    private static final char LIKE_ESCAPE = '\\';
+    
+    private static final Projection<Product, ProductView> VIEW = (cb, root) -> {
+        Join<Product, Category> category = root.join("category", JoinType.LEFT);
+        return cb.construct(ProductView.class,
+            root.get("id"), root.get("name"), root.get("description"), root.get("price"),
+            root.get("stockQuantity"), root.get("sku"), root.get("imageUrl"), root.get("isActive"),
+            category.get("id"), category.get("name"), root.get("weight"), root.get("dimensions"),
+            root.get("createdAt"), root.get("updatedAt"), root.get("version"));
+    };
+    
+    private static final Map<String, SparseField<Product>> COLUMNS = columns();
+    
     public ProductRepositoryImpl() {
         super(Product.class);
     }
     
+    /**
+     * How each property of {@link ProductView#FIELDS} is read by a sparse query.
+     */
+    private static Map<String, SparseField<Product>> columns() {
+        Map<String, SparseField<Product>> columns = new HashMap<>();
+        for (String name : ProductView.FIELDS.keySet()) {
+            columns.put(name, SparseField.attribute(name));
+        }
+        columns.put("category", SparseField.of(
+            values -> values[0] != null ? new ProductView.CategoryRef((UUID) values[0], (String) values[1]) : null,
+            List.of(
+                (cb, root) -> root.get("category").get("id"),
+                (cb, root) -> root.join("category", JoinType.LEFT).get("name"))));
+        return Map.copyOf(columns);
+    }
+    
+    @Override
+    public List<ProductView> findAllViews() {
+        return findAll(ProductView.class, VIEW, null, KeysetSort.CREATED_AT);
+    }
+    
+    @Override
+    public long scrollViews(Consumer<? super ProductView> action) {
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<ProductView> cq = cb.createQuery(ProductView.class);
+        Root<Product> root = cq.from(Product.class);
+        cq.select(VIEW.toSelection(cb, root))
+            .orderBy(cb.asc(root.get("createdAt")), cb.asc(root.get("id")));
+        return scroll(cq, action);
+    }
+    
     @Override
     public Optional<Product> findBySku(String sku) {
         CriteriaBuilder cb = getCriteriaBuilder();
@@ -38,6 +110,51 @@ public class ProductRepositoryImpl extends AbstractRepository<Product> implement
         return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
     }
     
+    @Override
+    public Optional<UUID> findIdBySku(String sku) {
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<UUID> cq = cb.createQuery(UUID.class);
+        Root<Product> root = cq.from(Product.class);
+        
+        cq.select(root.get("id")).where(cb.equal(root.get("sku"), sku));
+        
+        List<UUID> results = em.createQuery(cq).setMaxResults(1).getResultList();
+        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+    }
+    
+    @Override
+    public Map<String, UUID> findIdsBySku(Collection<String> skus) {
+        if (skus.isEmpty()) {
+            return Map.of();
+        }
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Product> root = cq.from(Product.class);
+        
+        cq.multiselect(root.get("sku"), root.get("id")).where(root.get("sku").in(skus));
+        
+        Map<String, UUID> ids = new HashMap<>();
+        for (Tuple row : em.createQuery(cq).getResultList()) {
+            ids.put(row.get(0, String.class), row.get(1, UUID.class));
+        }
+        return ids;
+    }
+    
+    @Override
+    public Map<String, UUID> findAllSkuIds() {
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Product> root = cq.from(Product.class);
+        
+        cq.multiselect(root.get("sku"), root.get("id")).where(cb.isNotNull(root.get("sku")));
+        
+        Map<String, UUID> ids = new HashMap<>();
+        for (Tuple row : em.createQuery(cq).getResultList()) {
+            ids.put(row.get(0, String.class), row.get(1, UUID.class));
+        }
+        return ids;
+    }
+    
     @Override
     public List<Product> findByCategory(Category category) {
         CriteriaBuilder cb = getCriteriaBuilder();
@@ -97,7 +214,7 @@ public class ProductRepositoryImpl extends AbstractRepository<Product> implement
         CriteriaQuery<Product> cq = cb.createQuery(Product.class);
         Root<Product> root = cq.from(Product.class);
         
-        cq.where(cb.like(cb.lower(root.get("name")), cb.lower(cb.literal("%" + name + "%"))));
+        cq.where(cb.like(cb.lower(root.get("name")), containing(name), LIKE_ESCAPE));
         cq.orderBy(cb.asc(root.get("name")));
         
         return em.createQuery(cq).getResultList();
@@ -130,4 +247,218 @@ public class ProductRepositoryImpl extends AbstractRepository<Product> implement
         
         return em.createQuery(cq).getResultList();
     }
+    
+    @Override
+    public Page<ProductView> findPage(ProductFilter filter, String cursor, int size) {
+        int pageSize = Page.clampSize(size);
+        KeysetSort sort = filter.getSort();
+        KeysetCursor after = KeysetCursor.decode(cursor, sort);
+        
+        TypedQuery<ProductView> query = createQuery(filter, after, null, ProductView.class);
+        query.setMaxResults(pageSize + 1);
+        return toPage(query.getResultList(), pageSize, sort, ProductRepositoryImpl::viewKeysetValue);
+    }
+    
+    @Override
+    public Page<Map<String, Object>> findPage(ProductFilter filter, String cursor, int size, FieldSet fields) {
+        int pageSize = Page.clampSize(size);
+        KeysetSort sort = filter.getSort();
+        KeysetCursor after = KeysetCursor.decode(cursor, sort);
+        
+        TypedQuery<Tuple> query = createQuery(filter, after, fields, Tuple.class);
+        query.setMaxResults(pageSize + 1);
+        return toSparsePage(query.getResultList(), pageSize, sort, fields, COLUMNS);
+    }
+    
+    @Override
+    public Set<UUID> adjustStock(Map<UUID, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return Set.of();
+        }
+        // Rows are locked in the order they are updated, so every caller takes them in ID order
+        List<UUID> ids = deltas.keySet().stream().sorted().toList();
+        em.flush();
+        Session session = em.unwrap(Session.class);
+        int[] counts = session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(ADJUST_STOCK)) {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                for (UUID id : ids) {
+                    int delta = deltas.get(id);
+                    statement.setInt(1, delta);
+                    statement.setTimestamp(2, now);
+                    statement.setObject(3, id);
+                    statement.setInt(4, -delta);
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+        
+        Set<UUID> unchanged = new HashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (counts[i] == 0) {
+                unchanged.add(ids.get(i));
+            }
+            // A reference is the managed copy if there is one, else an unloaded proxy; neither hits the database
+            em.detach(em.getReference(Product.class, ids.get(i)));
+        }
+        return unchanged;
+    }
+    
+    /**
+     * Build the filter's query and bind its values.
+     */
+    @SuppressWarnings("unchecked")
+    private <R> TypedQuery<R> createQuery(ProductFilter filter, KeysetCursor after, FieldSet fields,
+                                          Class<R> resultClass) {
+        FilterQuery built = build(filter, after != null, fields);
+        
+        TypedQuery<R> query = em.createQuery((CriteriaQuery<R>) built.query);
+        if (built.active != null) {
+            query.setParameter(built.active, filter.getActive());
+        }
+        if (built.categoryIds != null) {
+            query.setParameter(built.categoryIds, filter.getCategoryIds());
+        }
+        if (built.minPrice != null) {
+            query.setParameter(built.minPrice, filter.getMinPrice());
+        }
+        if (built.maxPrice != null) {
+            query.setParameter(built.maxPrice, filter.getMaxPrice());
+        }
+        if (built.text != null) {
+            query.setParameter(built.text, containing(filter.getText()));
+        }
+        if (built.seekValue != null) {
+            query.setParameter(built.seekValue, after.getValue());
+            query.setParameter(built.seekId, after.getId());
+        }
+        return query;
+    }
+    
+    @Override
+    protected Comparable<?> keysetValue(Product product, KeysetSort sort) {
+        return switch (sort) {
+            case NAME -> product.getName();
+            case PRICE, PRICE_DESC -> product.getPrice();
+            default -> super.keysetValue(product, sort);
+        };
+    }
+    
+    private static Comparable<?> viewKeysetValue(ProductView product, KeysetSort sort) {
+        return switch (sort) {
+            case CREATED_AT, CREATED_AT_DESC -> product.getCreatedAt();
+            case NAME -> product.getName();
+            case PRICE, PRICE_DESC -> product.getPrice();
+        };
+    }
+    
+    /**
+     * Build the parameterized query for a filter, with a parameter for each criterion present.
+     * Without a fieldset the query selects whole views, otherwise a tuple of the requested columns.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private FilterQuery build(ProductFilter filter, boolean seek, FieldSet fields) {
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery cq = fields != null ? cb.createTupleQuery() : cb.createQuery(ProductView.class);
+        Root<Product> root = cq.from(Product.class);
+        FilterQuery built = new FilterQuery(cq);
+        
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getActive() != null) {
+            built.active = cb.parameter(Boolean.class);
+            predicates.add(cb.equal(root.get("isActive"), built.active));
+        }
+        if (filter.getCategoryIds() != null) {
+            built.categoryIds = parameter(cb, Collection.class);
+            predicates.add(root.get("category").get("id").in(built.categoryIds));
+        }
+        if (filter.getMinPrice() != null) {
+            built.minPrice = cb.parameter(BigDecimal.class);
+            predicates.add(cb.greaterThanOrEqualTo(root.get("price"), built.minPrice));
+        }
+        if (filter.getMaxPrice() != null) {
+            built.maxPrice = cb.parameter(BigDecimal.class);
+            predicates.add(cb.lessThanOrEqualTo(root.get("price"), built.maxPrice));
+        }
+        if (filter.isInStock()) {
+            predicates.add(cb.greaterThan(root.get("stockQuantity"), 0));
+        }
+        if (filter.getText() != null) {
+            built.text = cb.parameter(String.class);
+            predicates.add(cb.or(
+                cb.like(cb.lower(root.get("name")), built.text, LIKE_ESCAPE),
+                cb.like(cb.lower(root.get("description")), built.text, LIKE_ESCAPE),
+                cb.like(cb.lower(root.get("sku")), built.text, LIKE_ESCAPE)));
+        }
+        
+        KeysetSort sort = filter.getSort();
+        Path key = root.get(sort.getAttribute());
+        Path<UUID> id = root.get("id");
+        if (seek) {
+            built.seekValue = parameter(cb, key.getJavaType());
+            built.seekId = cb.parameter(UUID.class);
+            Expression seekValue = built.seekValue;
+            if (sort.isAscending()) {
+                predicates.add(cb.or(
+                    cb.greaterThan(key, seekValue),
+                    cb.and(cb.equal(key, seekValue), cb.greaterThan(id, built.seekId))));
+            } else {
+                predicates.add(cb.or(
+                    cb.lessThan(key, seekValue),
+                    cb.and(cb.equal(key, seekValue), cb.lessThan(id, built.seekId))));
+            }
+        }
+        
+        if (fields != null) {
+            cq.multiselect(sparseSelections(cb, root, sort, fields, COLUMNS));
+        } else {
+            cq.select(VIEW.toSelection(cb, root));
+        }
+        cq.where(predicates.toArray(new Predicate[0]));
+        if (sort.isAscending()) {
+            cq.orderBy(cb.asc(key), cb.asc(id));
+        } else {
+            cq.orderBy(cb.desc(key), cb.desc(id));
+        }
+        return built;
+    }
+    
+    /**
+     * A parameter of a generic type, which the criteria API can only create from a raw class.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> ParameterExpression<T> parameter(CriteriaBuilder cb, Class<?> type) {
+        return (ParameterExpression<T>) cb.parameter(type);
+    }
+    
+    /**
+     * Pattern matching values that contain the text, case-insensitively and literally:
+     * wildcards in the text are escaped.
+     */
+    private static String containing(String text) {
+        String escaped = text.toLowerCase()
+            .replace(String.valueOf(LIKE_ESCAPE), LIKE_ESCAPE + "" + LIKE_ESCAPE)
+            .replace("%", LIKE_ESCAPE + "%")
+            .replace("_", LIKE_ESCAPE + "_");
+        return "%" + escaped + "%";
+    }
+    
+    /**
+     * A filter query and the parameters it expects, null where the criterion is absent.
+     */
+    private static final class FilterQuery {
+        private final CriteriaQuery<?> query;
+        private ParameterExpression<Boolean> active;
+        private ParameterExpression<Collection<?>> categoryIds;
+        private ParameterExpression<BigDecimal> minPrice;
+        private ParameterExpression<BigDecimal> maxPrice;
+        private ParameterExpression<String> text;
+        private ParameterExpression<Comparable<?>> seekValue;
+        private ParameterExpression<UUID> seekId;
+        
+        private FilterQuery(CriteriaQuery<?> query) {
+            this.query = query;
+        }
+    }
 }
@@ -0,0 +1,18 @@
+package com.mystars.backend.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Constructor expression building a read model from the columns of an entity root,
+ * so a query selects only what the response needs and returns no managed entities.
+ *
+ * @param <T> Entity type the query is rooted at
+ * @param <R> Read model type
+ */
+@FunctionalInterface
+public interface Projection<T, R> {
+    
+    Selection<R> toSelection(CriteriaBuilder cb, Root<T> root);
+}
@@ -0,0 +1,50 @@
+package com.mystars.backend.repository;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * How a sparse field is read by a tuple query: the columns it needs and how its value is
+ * assembled from them, so a query selects only the columns of the requested fields.
+ *
+ * @param <T> Entity type the query is rooted at
+ */
+public final class SparseField<T> {
+
+    private final List<Projection<T, ?>> columns;
+    private final Function<Object[], Object> value;
+
+    private SparseField(List<Projection<T, ?>> columns, Function<Object[], Object> value) {
+        this.columns = columns;
+        this.value = value;
+    }
+
+    /**
+     * A field read from one attribute of the root entity.
+     */
+    public static <T> SparseField<T> attribute(String name) {
+        return new SparseField<>(List.of((cb, root) -> root.get(name)), values -> values[0]);
+    }
+
+    /**
+     * A field read from one column expression.
+     */
+    public static <T> SparseField<T> column(Projection<T, ?> column) {
+        return new SparseField<>(List.of(column), values -> values[0]);
+    }
+
+    /**
+     * A field assembled from several column expressions, such as a nested reference.
+     */
+    public static <T> SparseField<T> of(Function<Object[], Object> value, List<Projection<T, ?>> columns) {
+        return new SparseField<>(List.copyOf(columns), value);
+    }
+
+    List<Projection<T, ?>> getColumns() {
+        return columns;
+    }
+
+    Object valueOf(Object[] values) {
+        return value.apply(values);
+    }
+}
@@ -0,0 +1,39 @@
+package com.mystars.backend.repository;
+
+import com.mystars.backend.entity.Order;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * An order moved to a new status by a bulk status change, with its status before the change.
+ */
+public final class StatusChange {
+
+    private final UUID orderId;
+    private final UUID userId;
+    private final BigDecimal totalAmount;
+    private final Order.OrderStatus previousStatus;
+
+    public StatusChange(UUID orderId, UUID userId, BigDecimal totalAmount, Order.OrderStatus previousStatus) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.totalAmount = totalAmount;
+        this.previousStatus = previousStatus;
+    }
+
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public Order.OrderStatus getPreviousStatus() {
+        return previousStatus;
+    }
+}
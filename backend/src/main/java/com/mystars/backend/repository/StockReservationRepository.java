@@ -0,0 +1,41 @@
+package com.mystars.backend.repository;
+
+import com.mystars.backend.entity.StockReservation;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Repository interface for StockReservation entity operations. Status changes are single
+ * conditional statements, so a hold is consumed, released or expired exactly once.
+ */
+public interface StockReservationRepository extends BaseRepository<StockReservation> {
+    
+    /**
+     * Mark the given holds that are active and unexpired as consumed.
+     *
+     * @return quantity consumed per product ID
+     */
+    Map<UUID, Integer> consume(Collection<UUID> ids, LocalDateTime now);
+    
+    /**
+     * Mark the hold as released if it is active.
+     *
+     * @return quantity released per product ID, empty if the hold was not active
+     */
+    Map<UUID, Integer> release(UUID id);
+    
+    /**
+     * Mark up to limit active holds that expired before now as expired, skipping holds
+     * locked by other transactions.
+     *
+     * @return quantity expired per product ID
+     */
+    Map<UUID, Integer> expire(LocalDateTime now, int limit);
+    
+    /**
+     * Total quantity of the active, unexpired holds of each of the given products.
+     */
+    Map<UUID, Long> sumActive(Collection<UUID> productIds, LocalDateTime now);
+}
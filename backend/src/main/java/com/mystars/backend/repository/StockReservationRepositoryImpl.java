@@ -0,0 +1,121 @@
+package com.mystars.backend.repository;
+
+import com.mystars.backend.entity.StockReservation;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.hibernate.Session;
+
+/**
+ * Implementation of StockReservationRepository.
+ */
+@ApplicationScoped
+public class StockReservationRepositoryImpl extends AbstractRepository<StockReservation>
+        implements StockReservationRepository {
+    
+    private static final String CONSUME = "UPDATE stock_reservations"
+        + " SET status = 'CONSUMED', version = version + 1, updated_at = ?"
+        + " WHERE id = ANY (?) AND status = 'ACTIVE' AND expires_at > ?"
+        + " RETURNING product_id, quantity";
+    
+    private static final String RELEASE = "UPDATE stock_reservations"
+        + " SET status = 'RELEASED', version = version + 1, updated_at = ?"
+        + " WHERE id = ? AND status = 'ACTIVE'"
+        + " RETURNING product_id, quantity";
+    
+    private static final String EXPIRE = "UPDATE stock_reservations"
+        + " SET status = 'EXPIRED', version = version + 1, updated_at = ?"
+        + " WHERE id IN (SELECT id FROM stock_reservations WHERE status = 'ACTIVE' AND expires_at <= ?"
+        + " LIMIT ? FOR UPDATE SKIP LOCKED)"
+        + " RETURNING product_id, quantity";
+    
+    public StockReservationRepositoryImpl() {
+        super(StockReservation.class);
+    }
+    
+    @Override
+    public Map<UUID, Integer> consume(Collection<UUID> ids, LocalDateTime now) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return update(CONSUME, statement -> {
+            statement.setTimestamp(1, Timestamp.valueOf(now));
+            statement.setArray(2, statement.getConnection().createArrayOf("uuid", ids.toArray()));
+            statement.setTimestamp(3, Timestamp.valueOf(now));
+        });
+    }
+    
+    @Override
+    public Map<UUID, Integer> release(UUID id) {
+        return update(RELEASE, statement -> {
+            statement.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            statement.setObject(2, id);
+        });
+    }
+    
+    @Override
+    public Map<UUID, Integer> expire(LocalDateTime now, int limit) {
+        return update(EXPIRE, statement -> {
+            statement.setTimestamp(1, Timestamp.valueOf(now));
+            statement.setTimestamp(2, Timestamp.valueOf(now));
+            statement.setInt(3, limit);
+        });
+    }
+    
+    @Override
+    public Map<UUID, Long> sumActive(Collection<UUID> productIds, LocalDateTime now) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<StockReservation> root = cq.from(StockReservation.class);
+        
+        cq.multiselect(root.get("product").get("id"), cb.sum(root.<Integer>get("quantity")))
+            .where(cb.equal(root.get("status"), StockReservation.ReservationStatus.ACTIVE),
+                cb.greaterThan(root.get("expiresAt"), now),
+                root.get("product").get("id").in(productIds))
+            .groupBy(root.get("product").get("id"));
+        
+        Map<UUID, Long> quantities = new HashMap<>();
+        for (Tuple row : em.createQuery(cq).getResultList()) {
+            quantities.put(row.get(0, UUID.class), row.get(1, Number.class).longValue());
+        }
+        return quantities;
+    }
+    
+    /**
+     * Run a status change returning the product and quantity of each changed hold,
+     * and total the quantities per product.
+     */
+    private Map<UUID, Integer> update(String sql, Parameters parameters) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                parameters.set(statement);
+                Map<UUID, Integer> quantities = new HashMap<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        quantities.merge(rows.getObject(1, UUID.class), rows.getInt(2), Integer::sum);
+                    }
+                }
+                return quantities;
+            }
+        });
+    }
+    
+    @FunctionalInterface
+    private interface Parameters {
+        void set(PreparedStatement statement) throws SQLException;
+    }
+}
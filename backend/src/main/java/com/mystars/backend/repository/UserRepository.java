@@ -1,7 +1,9 @@
 package com.mystars.backend.repository;
 
+import com.mystars.backend.dto.UserView;
 import com.mystars.backend.entity.User;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,11 +17,36 @@ public interface UserRepository extends BaseRepository<User> {
      */
     Optional<User> findByEmail(String email);
     
+    /**
+     * Find the view of a user by ID, selecting only its serialized columns.
+     */
+    Optional<UserView> findViewById(UUID id);
+    
+    /**
+     * Find a page of user views, oldest first.
+     */
+    Page<UserView> findViewPage(String cursor, int size);
+    
+    /**
+     * Find the views of the users with a role.
+     */
+    List<UserView> findViewsByRole(User.UserRole role);
+    
     /**
      * Check if user exists by email.
      */
     boolean existsByEmail(String email);
     
+    /**
+     * Find the ID of the user with the given email, without loading the user.
+     */
+    Optional<UUID> findIdByEmail(String email);
+    
+    /**
+     * Map every registered email to its user ID.
+     */
+    Map<String, UUID> findAllEmailIds();
+    
     /**
      * Find users by role.
      */
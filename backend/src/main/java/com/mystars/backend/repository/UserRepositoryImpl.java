@@ -1,14 +1,18 @@
 package com.mystars.backend.repository;
 
+import com.mystars.backend.dto.UserView;
 import com.mystars.backend.entity.User;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -18,10 +22,35 @@ import java.util.UUID;
 @ApplicationScoped
 public class UserRepositoryImpl extends AbstractRepository<User> implements UserRepository {
     
+    private static final Projection<User, UserView> VIEW = (cb, root) -> cb.construct(UserView.class,
+        root.get("id"), root.get("email"), root.get("firstName"), root.get("lastName"), root.get("phone"),
+        root.get("isActive"), root.get("role"), root.get("createdAt"), root.get("updatedAt"), root.get("version"));
+    
     public UserRepositoryImpl() {
         super(User.class);
     }
     
+    @Override
+    public Optional<UserView> findViewById(UUID id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        List<UserView> results = findAll(UserView.class, VIEW,
+            (cb, root) -> cb.equal(root.get("id"), id), null);
+        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+    }
+    
+    @Override
+    public Page<UserView> findViewPage(String cursor, int size) {
+        return findPage(cursor, size, KeysetSort.CREATED_AT, null, UserView.class, VIEW,
+            (user, sort) -> user.getCreatedAt());
+    }
+    
+    @Override
+    public List<UserView> findViewsByRole(User.UserRole role) {
+        return findAll(UserView.class, VIEW, (cb, root) -> cb.equal(root.get("role"), role), KeysetSort.CREATED_AT);
+    }
+    
     @Override
     public Optional<User> findByEmail(String email) {
         CriteriaBuilder cb = getCriteriaBuilder();
@@ -50,6 +79,33 @@ public class UserRepositoryImpl extends AbstractRepository<User> implements User
         return count > 0;
     }
     
+    @Override
+    public Optional<UUID> findIdByEmail(String email) {
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<UUID> cq = cb.createQuery(UUID.class);
+        Root<User> root = cq.from(User.class);
+        
+        cq.select(root.get("id")).where(cb.equal(root.get("email"), email));
+        
+        List<UUID> results = em.createQuery(cq).setMaxResults(1).getResultList();
+        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+    }
+    
+    @Override
+    public Map<String, UUID> findAllEmailIds() {
+        CriteriaBuilder cb = getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<User> root = cq.from(User.class);
+        
+        cq.multiselect(root.get("email"), root.get("id"));
+        
+        Map<String, UUID> ids = new HashMap<>();
+        for (Tuple row : em.createQuery(cq).getResultList()) {
+            ids.put(row.get(0, String.class), row.get(1, UUID.class));
+        }
+        return ids;
+    }
+    
     @Override
     public List<User> findByRole(User.UserRole role) {
         CriteriaBuilder cb = getCriteriaBuilder();
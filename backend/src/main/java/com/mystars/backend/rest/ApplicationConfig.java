@@ -21,6 +21,15 @@ public class ApplicationConfig extends Application {
         classes.add(ProductResource.class);
         classes.add(CategoryResource.class);
         classes.add(OrderResource.class);
+        classes.add(ReservationResource.class);
+        
+        // Filters
+        classes.add(ConditionalGetFilter.class);
+        classes.add(ResponseCacheFilter.class);
+        classes.add(IdempotencyFilter.class);
+        
+        // Entity providers
+        classes.add(CborProvider.class);
         
         // OpenAPI/Swagger - custom resource that generates spec dynamically
         classes.add(OpenAPIResource.class);
@@ -3,6 +3,7 @@ package com.mystars.backend.rest;
 import com.mystars.backend.entity.User;
 import com.mystars.backend.repository.UserRepository;
 import com.mystars.backend.security.JwtService;
+import com.mystars.backend.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -15,6 +16,7 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 /**
  * REST controller for Authentication operations.
@@ -28,9 +30,15 @@ public class AuthResource {
     @Inject
     private UserRepository userRepository;
     
+    @Inject
+    private UserService userService;
+    
     @Inject
     private JwtService jwtService;
     
+    @Inject
+    private DatabaseBulkhead database;
+    
     /**
      * Login request DTO.
      */
@@ -93,33 +101,35 @@ public class AuthResource {
         @ApiResponse(responseCode = "401", description = "Invalid credentials"),
         @ApiResponse(responseCode = "403", description = "Account is disabled")
     })
-    public Response login(LoginRequest request) {
-        if (request.email == null || request.password == null) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", "Email and password are required"))
-                .build();
-        }
+    public CompletionStage<Response> login(LoginRequest request) {
+        return database.supply(() -> {
+            if (request.email == null || request.password == null) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Email and password are required"))
+                    .build();
+            }
         
-        User user = userRepository.findByEmail(request.email)
-            .orElse(null);
+            User user = userRepository.findByEmail(request.email)
+                .orElse(null);
         
-        // In production, use BCrypt for password hashing
-        if (user == null || !user.getPasswordHash().equals(request.password)) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                .entity(Map.of("error", "Invalid credentials"))
-                .build();
-        }
+            // In production, use BCrypt for password hashing
+            if (user == null || !user.getPasswordHash().equals(request.password)) {
+                return Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(Map.of("error", "Invalid credentials"))
+                    .build();
+            }
         
-        if (!user.getIsActive()) {
-            return Response.status(Response.Status.FORBIDDEN)
-                .entity(Map.of("error", "Account is disabled"))
-                .build();
-        }
+            if (!user.getIsActive()) {
+                return Response.status(Response.Status.FORBIDDEN)
+                    .entity(Map.of("error", "Account is disabled"))
+                    .build();
+            }
         
-        String token = jwtService.generateToken(user.getId(), user.getEmail(), user.getRole().name());
+            String token = jwtService.generateToken(user.getId(), user.getEmail(), user.getRole().name());
         
-        AuthResponse response = new AuthResponse(token, user.getId(), user.getEmail(), user.getRole().name());
-        return Response.ok(response).build();
+            AuthResponse response = new AuthResponse(token, user.getId(), user.getEmail(), user.getRole().name());
+            return Response.ok(response).build();
+        });
     }
     
     @POST
@@ -131,34 +141,44 @@ public class AuthResource {
         @ApiResponse(responseCode = "400", description = "Bad request - missing email or password"),
         @ApiResponse(responseCode = "409", description = "Email already exists")
     })
-    public Response register(RegisterRequest request) {
-        if (request.email == null || request.password == null) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", "Email and password are required"))
-                .build();
-        }
+    public CompletionStage<Response> register(RegisterRequest request) {
+        return database.supply(() -> {
+            if (request.email == null || request.password == null) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Email and password are required"))
+                    .build();
+            }
         
-        if (userRepository.existsByEmail(request.email)) {
-            return Response.status(Response.Status.CONFLICT)
-                .entity(Map.of("error", "Email already exists"))
-                .build();
-        }
+            if (userService.emailExists(request.email)) {
+                return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("error", "Email already exists"))
+                    .build();
+            }
         
-        User user = new User();
-        user.setEmail(request.email);
-        user.setPasswordHash(request.password); // In production, hash this with BCrypt
-        user.setFirstName(request.firstName);
-        user.setLastName(request.lastName);
-        user.setPhone(request.phone);
-        user.setRole(User.UserRole.CUSTOMER);
-        user.setIsActive(true);
+            User user = new User();
+            user.setEmail(request.email);
+            user.setPasswordHash(request.password); // In production, hash this with BCrypt
+            user.setFirstName(request.firstName);
+            user.setLastName(request.lastName);
+            user.setPhone(request.phone);
+            user.setRole(User.UserRole.CUSTOMER);
+            user.setIsActive(true);
         
-        User created = userRepository.save(user);
+            User created;
+            try {
+                created = userService.create(user);
+            } catch (IllegalArgumentException e) {
+                // Registered concurrently since the check above
+                return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("error", "Email already exists"))
+                    .build();
+            }
         
-        String token = jwtService.generateToken(created.getId(), created.getEmail(), created.getRole().name());
+            String token = jwtService.generateToken(created.getId(), created.getEmail(), created.getRole().name());
         
-        AuthResponse response = new AuthResponse(token, created.getId(), created.getEmail(), created.getRole().name());
-        return Response.status(Response.Status.CREATED).entity(response).build();
+            AuthResponse response = new AuthResponse(token, created.getId(), created.getEmail(), created.getRole().name());
+            return Response.status(Response.Status.CREATED).entity(response).build();
+        });
     }
     
     @GET
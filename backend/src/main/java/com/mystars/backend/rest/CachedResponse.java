@@ -0,0 +1,25 @@
+package com.mystars.backend.rest;
+
+import jakarta.ws.rs.NameBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET endpoint whose successful responses are the same for every user and can be
+ * served from the {@link ResponseCache}. Entries are tagged with the IDs of the versioned
+ * entities in the response and with the listed collection tags, and are evicted when any
+ * of them changes.
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface CachedResponse {
+
+    /**
+     * Collection tags the response depends on, such as {@link ResponseCache#PRODUCTS}
+     * for a list that changes whenever any product is added, updated or removed.
+     */
+    String[] value() default {};
+}
@@ -1,6 +1,9 @@
 package com.mystars.backend.rest;
 
+import com.mystars.backend.catalog.CategoryTreeNode;
+import com.mystars.backend.catalog.CategoryView;
 import com.mystars.backend.entity.Category;
+import com.mystars.backend.repository.FieldSet;
 import com.mystars.backend.service.CategoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,107 +14,217 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 /**
  * REST controller for Category operations.
  */
 @Path("/categories")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, Cbor.APPLICATION_CBOR})
+@Consumes({MediaType.APPLICATION_JSON, Cbor.APPLICATION_CBOR})
 @Tag(name = "Categories", description = "Product category management endpoints")
 public class CategoryResource {
     
     @Inject
     private CategoryService categoryService;
     
+    @Inject
+    private DatabaseBulkhead database;
+    
     @GET
+    @CachedResponse(ResponseCache.CATEGORIES)
     @Operation(summary = "Get all categories", description = "Retrieve all categories with optional filters")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Categories retrieved successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Category.class)))
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CategoryView.class))),
+        @ApiResponse(responseCode = "304", description = "Categories unchanged since the client's copy"),
+        @ApiResponse(responseCode = "400", description = "Unknown field")
     })
-    public List<Category> findAll(@Parameter(description = "Filter by active status") @QueryParam("active") Boolean active) {
-        if (active != null && active) {
-            return categoryService.findActive();
+    public Response findAll(@Context Request request,
+                            @Parameter(description = "Filter by active status") @QueryParam("active") Boolean active,
+                            @Parameter(description = "Comma-separated fields to include; the ID is always included") @QueryParam("fields") String fields) {
+        try {
+            FieldSet fieldSet = FieldSet.parse(fields, CategoryView.FIELDS.keySet());
+            return ConditionalRequests.respond(request, categoryService.findChangeStamp(),
+                () -> narrow(active != null && active ? categoryService.findActive() : categoryService.findAll(), fieldSet));
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new UserResource.ErrorResponse(e.getMessage())).build();
         }
-        return categoryService.findAll();
     }
     
     @GET
     @Path("/root")
+    @CachedResponse(ResponseCache.CATEGORIES)
     @Operation(summary = "Get root categories", description = "Retrieve all root level categories (without parent)")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Root categories retrieved successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Category.class)))
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CategoryView.class))),
+        @ApiResponse(responseCode = "304", description = "Categories unchanged since the client's copy"),
+        @ApiResponse(responseCode = "400", description = "Unknown field")
     })
-    public List<Category> findRootCategories() {
-        return categoryService.findRootCategories();
+    public Response findRootCategories(@Context Request request,
+                                       @Parameter(description = "Comma-separated fields to include; the ID is always included") @QueryParam("fields") String fields) {
+        try {
+            FieldSet fieldSet = FieldSet.parse(fields, CategoryView.FIELDS.keySet());
+            return ConditionalRequests.respond(request, categoryService.findChangeStamp(),
+                () -> narrow(categoryService.findRootCategories(), fieldSet));
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+        }
+    }
+    
+    @GET
+    @Path("/tree")
+    @CachedResponse(ResponseCache.CATEGORIES)
+    @Operation(summary = "Get category tree", description = "Retrieve the whole category hierarchy with sub-categories nested")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Category tree retrieved successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CategoryTreeNode.class))),
+        @ApiResponse(responseCode = "304", description = "Categories unchanged since the client's copy")
+    })
+    public Response findTree(@Context Request request) {
+        return ConditionalRequests.respond(request, categoryService.findChangeStamp(), categoryService::findTree);
     }
     
     @GET
     @Path("/{id}")
+    @CachedResponse
     @Operation(summary = "Get category by ID", description = "Retrieve a category by its unique identifier")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Category found",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Category.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CategoryView.class))),
+        @ApiResponse(responseCode = "304", description = "Category unchanged since the client's copy"),
+        @ApiResponse(responseCode = "400", description = "Unknown field"),
         @ApiResponse(responseCode = "404", description = "Category not found")
     })
-    public Response findById(@Parameter(description = "Category UUID") @PathParam("id") UUID id) {
-        return categoryService.findById(id)
-            .map(category -> Response.ok(category).build())
-            .orElse(Response.status(Response.Status.NOT_FOUND).build());
+    public Response findById(@Context Request request,
+                             @Parameter(description = "Category UUID") @PathParam("id") UUID id,
+                                              @Parameter(description = "Comma-separated fields to include; the ID is always included") @QueryParam("fields") String fields) {
+        try {
+            FieldSet fieldSet = FieldSet.parse(fields, CategoryView.FIELDS.keySet());
+            if (fieldSet == null) {
+                return categoryService.findById(id)
+                    .map(category -> Response.ok(category).build())
+                    .orElse(Response.status(Response.Status.NOT_FOUND).build());
+            }
+            // The narrowed entity carries no version, so validators are taken from the whole view
+            return categoryService.findById(id)
+                .map(category -> ConditionalRequests.respond(request, ConditionalRequests.stampOf(category),
+                    () -> fieldSet.select(category, CategoryView.FIELDS)))
+                .orElse(Response.status(Response.Status.NOT_FOUND).build());
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+        }
     }
     
     @GET
     @Path("/{id}/children")
+    @CachedResponse(ResponseCache.CATEGORIES)
     @Operation(summary = "Get subcategories", description = "Retrieve all subcategories of a category")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Subcategories retrieved successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Category.class)))
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CategoryView.class))),
+        @ApiResponse(responseCode = "304", description = "Categories unchanged since the client's copy"),
+        @ApiResponse(responseCode = "400", description = "Unknown field")
     })
-    public List<Category> findSubcategories(@Parameter(description = "Parent category UUID") @PathParam("id") UUID id) {
-        return categoryService.findSubcategories(id);
+    public Response findSubcategories(@Context Request request,
+                                      @Parameter(description = "Parent category UUID") @PathParam("id") UUID id,
+                                      @Parameter(description = "Comma-separated fields to include; the ID is always included") @QueryParam("fields") String fields) {
+        try {
+            FieldSet fieldSet = FieldSet.parse(fields, CategoryView.FIELDS.keySet());
+            return ConditionalRequests.respond(request, categoryService.findChangeStamp(),
+                () -> narrow(categoryService.findSubcategories(id), fieldSet));
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+        }
     }
     
-    @POST
-    @Operation(summary = "Create category", description = "Create a new category")
+    @GET
+    @Path("/{id}/path")
+    @CachedResponse(ResponseCache.CATEGORIES)
+    @Operation(summary = "Get category path", description = "Retrieve the categories from the root down to a category, for breadcrumbs")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "201", description = "Category created successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Category.class))),
-        @ApiResponse(responseCode = "400", description = "Invalid request")
+        @ApiResponse(responseCode = "200", description = "Category path retrieved successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CategoryView.class))),
+        @ApiResponse(responseCode = "304", description = "Categories unchanged since the client's copy"),
+        @ApiResponse(responseCode = "400", description = "Unknown field"),
+        @ApiResponse(responseCode = "404", description = "Category not found")
     })
-    public Response create(Category category) {
+    public Response findPath(@Context Request request, @Parameter(description = "Category UUID") @PathParam("id") UUID id,
+                                              @Parameter(description = "Comma-separated fields to include; the ID is always included") @QueryParam("fields") String fields) {
         try {
-            Category created = categoryService.create(category);
-            return Response.status(Response.Status.CREATED).entity(created).build();
+            FieldSet fieldSet = FieldSet.parse(fields, CategoryView.FIELDS.keySet());
+            List<CategoryView> path = categoryService.findPath(id);
+            if (path.isEmpty()) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            return ConditionalRequests.respond(request, categoryService.findChangeStamp(), () -> narrow(path, fieldSet));
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
                 .entity(new UserResource.ErrorResponse(e.getMessage())).build();
         }
     }
     
+    /**
+     * The categories as they are, or narrowed to the requested fields.
+     */
+    private static List<?> narrow(List<CategoryView> categories, FieldSet fields) {
+        if (fields == null) {
+            return categories;
+        }
+        return categories.stream().map(category -> fields.select(category, CategoryView.FIELDS)).toList();
+    }
+    
+    @POST
+    @Idempotent
+    @Operation(summary = "Create category", description = "Create a new category")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Category created successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CategoryView.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid request")
+    })
+    public CompletionStage<Response> create(Category category) {
+        return database.supply(() -> {
+            try {
+                Category created = categoryService.create(category);
+                return Response.status(Response.Status.CREATED).entity(CategoryView.from(created)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
+    }
+    
     @PUT
     @Path("/{id}")
     @Operation(summary = "Update category", description = "Update an existing category")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Category updated successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Category.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CategoryView.class))),
         @ApiResponse(responseCode = "400", description = "Invalid request"),
         @ApiResponse(responseCode = "404", description = "Category not found")
     })
-    public Response update(@Parameter(description = "Category UUID") @PathParam("id") UUID id, Category category) {
-        try {
-            category.setId(id);
-            Category updated = categoryService.update(category);
-            return Response.ok(updated).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(new UserResource.ErrorResponse(e.getMessage())).build();
-        }
+    public CompletionStage<Response> update(@Parameter(description = "Category UUID") @PathParam("id") UUID id, Category category) {
+        return database.supply(() -> {
+            try {
+                category.setId(id);
+                Category updated = categoryService.update(category);
+                return Response.ok(CategoryView.from(updated)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     @DELETE
@@ -121,13 +234,15 @@ public class CategoryResource {
         @ApiResponse(responseCode = "204", description = "Category deleted successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid request")
     })
-    public Response delete(@Parameter(description = "Category UUID") @PathParam("id") UUID id) {
-        try {
-            categoryService.delete(id);
-            return Response.noContent().build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(new UserResource.ErrorResponse(e.getMessage())).build();
-        }
+    public CompletionStage<Response> delete(@Parameter(description = "Category UUID") @PathParam("id") UUID id) {
+        return database.supply(() -> {
+            try {
+                categoryService.delete(id);
+                return Response.noContent().build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
 }
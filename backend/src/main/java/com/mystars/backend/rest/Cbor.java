@@ -0,0 +1,392 @@
+package com.mystars.backend.rest;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonValue;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal CBOR (RFC 8949) encoding: a buffered encoder for the values our read models are made
+ * of, and a decoder from CBOR to JSON-P values so request bodies can be bound by JSON-B.
+ */
+final class Cbor {
+
+    public static final String APPLICATION_CBOR = "application/cbor";
+
+    private static final int UNSIGNED = 0;
+    private static final int NEGATIVE = 1;
+    private static final int BYTES = 2;
+    private static final int TEXT = 3;
+    private static final int ARRAY = 4;
+    private static final int MAP = 5;
+    private static final int TAG = 6;
+    private static final int SIMPLE = 7;
+
+    private static final int TAG_POSITIVE_BIGNUM = 2;
+    private static final int TAG_NEGATIVE_BIGNUM = 3;
+    private static final int TAG_DECIMAL_FRACTION = 4;
+
+    private static final int INDEFINITE = 31;
+    private static final int BREAK = 0xFF;
+    private static final int MAX_DEPTH = 64;
+
+    private Cbor() {
+    }
+
+    /**
+     * Buffered CBOR encoder. Maps and arrays of unknown size are written with indefinite
+     * length and closed with {@link #end()}.
+     */
+    static final class Output {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+
+        Output(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeNull() throws IOException {
+            writeByte(SIMPLE << 5 | 22);
+        }
+
+        void writeBoolean(boolean value) throws IOException {
+            writeByte(SIMPLE << 5 | (value ? 21 : 20));
+        }
+
+        void writeLong(long value) throws IOException {
+            if (value >= 0) {
+                writeHead(UNSIGNED, value);
+            } else {
+                writeHead(NEGATIVE, -1 - value);
+            }
+        }
+
+        /**
+         * Write a double as single precision when that loses nothing.
+         */
+        void writeDouble(double value) throws IOException {
+            float single = (float) value;
+            if (single == value || Double.isNaN(value)) {
+                writeByte(SIMPLE << 5 | 26);
+                writeRaw(Float.floatToIntBits(single), 4);
+            } else {
+                writeByte(SIMPLE << 5 | 27);
+                writeRaw(Double.doubleToLongBits(value), 8);
+            }
+        }
+
+        void writeBigInteger(BigInteger value) throws IOException {
+            if (value.bitLength() < 64) {
+                writeLong(value.longValue());
+                return;
+            }
+            boolean negative = value.signum() < 0;
+            byte[] magnitude = (negative ? value.negate().subtract(BigInteger.ONE) : value).toByteArray();
+            int offset = magnitude[0] == 0 ? 1 : 0;
+            writeHead(TAG, negative ? TAG_NEGATIVE_BIGNUM : TAG_POSITIVE_BIGNUM);
+            writeHead(BYTES, magnitude.length - offset);
+            writeBytes(magnitude, offset, magnitude.length - offset);
+        }
+
+        /**
+         * Write a decimal as an integer or a double when either holds it exactly, as JSON
+         * clients read it, and as a decimal fraction otherwise so no digit is lost.
+         */
+        void writeDecimal(BigDecimal value) throws IOException {
+            if (value.scale() <= 0 || value.stripTrailingZeros().scale() <= 0) {
+                BigInteger integer = value.toBigInteger();
+                if (integer.bitLength() < 64) {
+                    writeLong(integer.longValue());
+                    return;
+                }
+            }
+            double approximation = value.doubleValue();
+            if (Double.isFinite(approximation) && BigDecimal.valueOf(approximation).compareTo(value) == 0) {
+                writeDouble(approximation);
+                return;
+            }
+            writeHead(TAG, TAG_DECIMAL_FRACTION);
+            writeHead(ARRAY, 2);
+            writeLong(-value.scale());
+            writeBigInteger(value.unscaledValue());
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeHead(TEXT, bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        void startArray(int size) throws IOException {
+            writeHead(ARRAY, size);
+        }
+
+        void startArray() throws IOException {
+            writeByte(ARRAY << 5 | INDEFINITE);
+        }
+
+        void startMap(int size) throws IOException {
+            writeHead(MAP, size);
+        }
+
+        void startMap() throws IOException {
+            writeByte(MAP << 5 | INDEFINITE);
+        }
+
+        /**
+         * Close an indefinite-length array or map.
+         */
+        void end() throws IOException {
+            writeByte(BREAK);
+        }
+
+        void flush() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+            out.flush();
+        }
+
+        private void writeHead(int majorType, long value) throws IOException {
+            int major = majorType << 5;
+            if (value < 24) {
+                writeByte(major | (int) value);
+            } else if (value <= 0xFF) {
+                writeByte(major | 24);
+                writeByte((int) value);
+            } else if (value <= 0xFFFF) {
+                writeByte(major | 25);
+                writeRaw(value, 2);
+            } else if (value <= 0xFFFF_FFFFL) {
+                writeByte(major | 26);
+                writeRaw(value, 4);
+            } else {
+                writeByte(major | 27);
+                writeRaw(value, 8);
+            }
+        }
+
+        private void writeRaw(long value, int bytes) throws IOException {
+            for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+                writeByte((int) (value >>> shift));
+            }
+        }
+
+        private void writeByte(int value) throws IOException {
+            if (position == buffer.length) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+            if (length > buffer.length - position) {
+                out.write(buffer, 0, position);
+                position = 0;
+                if (length > buffer.length) {
+                    out.write(bytes, offset, length);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+        }
+    }
+
+    /**
+     * Decode one CBOR data item into the equivalent JSON-P value. Map keys must be text;
+     * byte strings and simple values other than booleans and null have no JSON equivalent
+     * and are rejected.
+     *
+     * @throws IOException if the input is truncated or not valid CBOR
+     */
+    static JsonValue read(InputStream in) throws IOException {
+        return new Input(in).readValue(0);
+    }
+
+    private static final class Input {
+
+        private final InputStream in;
+
+        private Input(InputStream in) {
+            this.in = in;
+        }
+
+        private JsonValue readValue(int depth) throws IOException {
+            return readValue(readByte(), depth);
+        }
+
+        private JsonValue readValue(int initial, int depth) throws IOException {
+            if (depth > MAX_DEPTH) {
+                throw new IOException("CBOR nesting deeper than " + MAX_DEPTH);
+            }
+            int major = initial >>> 5;
+            int info = initial & 0x1F;
+            switch (major) {
+                case UNSIGNED:
+                    return Json.createValue(toBigInteger(readArgument(info)));
+                case NEGATIVE:
+                    return Json.createValue(BigInteger.valueOf(-1).subtract(toBigInteger(readArgument(info))));
+                case TEXT:
+                    return Json.createValue(readText(info));
+                case ARRAY:
+                    return readArray(info, depth);
+                case MAP:
+                    return readMap(info, depth);
+                case TAG:
+                    return readTagged(readArgument(info), depth);
+                case SIMPLE:
+                    return readSimple(info);
+                default:
+                    throw new IOException("CBOR byte strings are not supported");
+            }
+        }
+
+        private JsonValue readArray(int info, int depth) throws IOException {
+            JsonArrayBuilder array = Json.createArrayBuilder();
+            if (info == INDEFINITE) {
+                for (int initial = readByte(); initial != BREAK; initial = readByte()) {
+                    array.add(readValue(initial, depth + 1));
+                }
+            } else {
+                for (long i = readArgument(info); i > 0; i--) {
+                    array.add(readValue(depth + 1));
+                }
+            }
+            return array.build();
+        }
+
+        private JsonObject readMap(int info, int depth) throws IOException {
+            JsonObjectBuilder object = Json.createObjectBuilder();
+            if (info == INDEFINITE) {
+                for (int initial = readByte(); initial != BREAK; initial = readByte()) {
+                    object.add(readKey(initial), readValue(depth + 1));
+                }
+            } else {
+                for (long i = readArgument(info); i > 0; i--) {
+                    object.add(readKey(readByte()), readValue(depth + 1));
+                }
+            }
+            return object.build();
+        }
+
+        private String readKey(int initial) throws IOException {
+            if (initial >>> 5 != TEXT) {
+                throw new IOException("CBOR map keys must be text strings");
+            }
+            return readText(initial & 0x1F);
+        }
+
+        private JsonValue readTagged(long tag, int depth) throws IOException {
+            int initial = readByte();
+            if (tag == TAG_POSITIVE_BIGNUM || tag == TAG_NEGATIVE_BIGNUM) {
+                if (initial >>> 5 != BYTES || (initial & 0x1F) == INDEFINITE) {
+                    throw new IOException("CBOR bignum must be a definite byte string");
+                }
+                BigInteger magnitude = new BigInteger(1, readBytes(readArgument(initial & 0x1F)));
+                return Json.createValue(tag == TAG_POSITIVE_BIGNUM ? magnitude : BigInteger.valueOf(-1).subtract(magnitude));
+            }
+            JsonValue content = readValue(initial, depth + 1);
+            if (tag == TAG_DECIMAL_FRACTION) {
+                if (!(content instanceof JsonArray fraction) || fraction.size() != 2
+                    || !(fraction.get(0) instanceof JsonNumber exponent)
+                    || !(fraction.get(1) instanceof JsonNumber mantissa)) {
+                    throw new IOException("CBOR decimal fraction must be [exponent, mantissa]");
+                }
+                return Json.createValue(new BigDecimal(mantissa.bigIntegerValueExact(), -exponent.intValueExact()));
+            }
+            // Other tags, such as date strings, only annotate their content
+            return content;
+        }
+
+        private JsonValue readSimple(int info) throws IOException {
+            switch (info) {
+                case 20:
+                    return JsonValue.FALSE;
+                case 21:
+                    return JsonValue.TRUE;
+                case 22:
+                case 23:
+                    return JsonValue.NULL;
+                case 25:
+                    return Json.createValue(Float.float16ToFloat((short) readRaw(2)));
+                case 26:
+                    return Json.createValue(Float.intBitsToFloat((int) readRaw(4)));
+                case 27:
+                    return Json.createValue(Double.longBitsToDouble(readRaw(8)));
+                default:
+                    throw new IOException("Unsupported CBOR simple value " + info);
+            }
+        }
+
+        private String readText(int info) throws IOException {
+            if (info != INDEFINITE) {
+                return new String(readBytes(readArgument(info)), StandardCharsets.UTF_8);
+            }
+            StringBuilder text = new StringBuilder();
+            for (int initial = readByte(); initial != BREAK; initial = readByte()) {
+                if (initial >>> 5 != TEXT || (initial & 0x1F) == INDEFINITE) {
+                    throw new IOException("CBOR text chunks must be definite text strings");
+                }
+                text.append(readText(initial & 0x1F));
+            }
+            return text.toString();
+        }
+
+        private long readArgument(int info) throws IOException {
+            if (info < 24) {
+                return info;
+            }
+            return switch (info) {
+                case 24 -> readRaw(1);
+                case 25 -> readRaw(2);
+                case 26 -> readRaw(4);
+                case 27 -> readRaw(8);
+                default -> throw new IOException("Invalid CBOR length " + info);
+            };
+        }
+
+        private long readRaw(int bytes) throws IOException {
+            long value = 0;
+            for (int i = 0; i < bytes; i++) {
+                value = value << 8 | readByte();
+            }
+            return value;
+        }
+
+        private int readByte() throws IOException {
+            int value = in.read();
+            if (value < 0) {
+                throw new EOFException("Truncated CBOR input");
+            }
+            return value;
+        }
+
+        private byte[] readBytes(long length) throws IOException {
+            if (length < 0 || length > Integer.MAX_VALUE - 8) {
+                throw new IOException("CBOR string too long");
+            }
+            byte[] bytes = in.readNBytes((int) length);
+            if (bytes.length < length) {
+                throw new EOFException("Truncated CBOR input");
+            }
+            return bytes;
+        }
+
+        private static BigInteger toBigInteger(long unsigned) {
+            return unsigned >= 0 ? BigInteger.valueOf(unsigned) : new BigInteger(Long.toUnsignedString(unsigned));
+        }
+    }
+}
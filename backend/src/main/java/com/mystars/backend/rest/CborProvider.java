@@ -0,0 +1,267 @@
+package com.mystars.backend.rest;
+
+import com.mystars.backend.catalog.CategoryTreeNode;
+import com.mystars.backend.catalog.CategoryView;
+import com.mystars.backend.catalog.ProductView;
+import com.mystars.backend.dto.OrderItemView;
+import com.mystars.backend.dto.OrderSummary;
+import com.mystars.backend.dto.OrderView;
+import com.mystars.backend.dto.UserView;
+import com.mystars.backend.repository.Page;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonStructure;
+import jakarta.json.JsonValue;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.json.bind.JsonbException;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import org.eclipse.yasson.YassonJsonb;
+
+/**
+ * Reads and writes {@code application/cbor}, a compact binary equivalent of our JSON for
+ * machine-to-machine clients that ask for it with {@code Accept}. Read models are encoded by
+ * hand-written field tables without reflection; anything else goes through JSON-B so it has
+ * exactly the shape and property rules of its JSON. Request bodies are decoded to JSON-P and
+ * bound by JSON-B, so entities are read the same way in both formats.
+ */
+@Provider
+@Produces(Cbor.APPLICATION_CBOR)
+@Consumes(Cbor.APPLICATION_CBOR)
+public class CborProvider implements MessageBodyWriter<Object>, MessageBodyReader<Object> {
+
+    private static final YassonJsonb JSONB = (YassonJsonb) JsonbBuilder.create();
+    private static final Map<Class<?>, Map<String, Function<Object, Object>>> CODECS = codecs();
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return !StreamingOutput.class.isAssignableFrom(type) && !byte[].class.equals(type)
+            && !InputStream.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        httpHeaders.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        Cbor.Output out = new Cbor.Output(entityStream);
+        write(entity, out);
+        out.flush();
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return !InputStream.class.isAssignableFrom(type) && !byte[].class.equals(type);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        JsonValue value;
+        try {
+            value = Cbor.read(entityStream);
+        } catch (IOException e) {
+            throw new BadRequestException("Invalid CBOR body: " + e.getMessage(), e);
+        }
+        if (!(value instanceof JsonStructure structure)) {
+            throw new BadRequestException("CBOR body must be a map or an array");
+        }
+        try {
+            return JSONB.fromJsonStructure(structure, genericType);
+        } catch (JsonbException e) {
+            throw new BadRequestException("Invalid CBOR body: " + e.getMessage(), e);
+        }
+    }
+
+    private static void write(Object value, Cbor.Output out) throws IOException {
+        if (value == null) {
+            out.writeNull();
+        } else if (value instanceof String string) {
+            out.writeString(string);
+        } else if (value instanceof Boolean bool) {
+            out.writeBoolean(bool);
+        } else if (value instanceof BigDecimal decimal) {
+            out.writeDecimal(decimal);
+        } else if (value instanceof BigInteger integer) {
+            out.writeBigInteger(integer);
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Number number) {
+            out.writeLong(number.longValue());
+        } else if (value instanceof UUID) {
+            out.writeString(value.toString());
+        } else if (value instanceof Enum<?> constant) {
+            out.writeString(constant.name());
+        } else if (value instanceof LocalDateTime dateTime) {
+            out.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime));
+        } else if (value instanceof TemporalAccessor) {
+            out.writeString(value.toString());
+        } else if (value instanceof Page<?> page) {
+            writePage(page, out);
+        } else if (value instanceof Map<?, ?> map) {
+            out.startMap(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                out.writeString(String.valueOf(entry.getKey()));
+                write(entry.getValue(), out);
+            }
+        } else if (value instanceof Collection<?> collection) {
+            out.startArray(collection.size());
+            for (Object item : collection) {
+                write(item, out);
+            }
+        } else {
+            Map<String, Function<Object, Object>> codec = CODECS.get(value.getClass());
+            if (codec != null) {
+                writeObject(value, codec, out);
+            } else {
+                writeJson(JSONB.toJsonStructure(value), out);
+            }
+        }
+    }
+
+    /**
+     * Write the non-null properties of a read model, as JSON-B does.
+     */
+    private static void writeObject(Object value, Map<String, Function<Object, Object>> codec, Cbor.Output out)
+            throws IOException {
+        out.startMap();
+        for (Map.Entry<String, Function<Object, Object>> property : codec.entrySet()) {
+            Object propertyValue = property.getValue().apply(value);
+            if (propertyValue != null) {
+                out.writeString(property.getKey());
+                write(propertyValue, out);
+            }
+        }
+        out.end();
+    }
+
+    private static void writePage(Page<?> page, Cbor.Output out) throws IOException {
+        out.startMap(page.getNextCursor() != null ? 4 : 3);
+        out.writeString("data");
+        write(page.getData(), out);
+        out.writeString("hasMore");
+        out.writeBoolean(page.isHasMore());
+        if (page.getNextCursor() != null) {
+            out.writeString("nextCursor");
+            out.writeString(page.getNextCursor());
+        }
+        out.writeString("size");
+        out.writeLong(page.getSize());
+    }
+
+    private static void writeJson(JsonValue value, Cbor.Output out) throws IOException {
+        switch (value.getValueType()) {
+            case OBJECT -> {
+                JsonObject object = value.asJsonObject();
+                out.startMap(object.size());
+                for (Map.Entry<String, JsonValue> property : object.entrySet()) {
+                    out.writeString(property.getKey());
+                    writeJson(property.getValue(), out);
+                }
+            }
+            case ARRAY -> {
+                JsonArray array = value.asJsonArray();
+                out.startArray(array.size());
+                for (JsonValue item : array) {
+                    writeJson(item, out);
+                }
+            }
+            case STRING -> out.writeString(((JsonString) value).getString());
+            case NUMBER -> {
+                JsonNumber number = (JsonNumber) value;
+                if (number.isIntegral()) {
+                    out.writeBigInteger(number.bigIntegerValue());
+                } else {
+                    out.writeDecimal(number.bigDecimalValue());
+                }
+            }
+            case TRUE -> out.writeBoolean(true);
+            case FALSE -> out.writeBoolean(false);
+            case NULL -> out.writeNull();
+        }
+    }
+
+    /**
+     * Field tables of the read models served in bulk, in their JSON property names.
+     */
+    private static Map<Class<?>, Map<String, Function<Object, Object>>> codecs() {
+        Map<Class<?>, Map<String, Function<Object, Object>>> codecs = new HashMap<>();
+        register(codecs, ProductView.class, ProductView.FIELDS);
+        register(codecs, CategoryView.class, CategoryView.FIELDS);
+        register(codecs, OrderSummary.class, OrderSummary.FIELDS);
+        register(codecs, OrderView.class, OrderView.FIELDS);
+
+        Map<String, Function<ProductView.CategoryRef, Object>> categoryRef = new LinkedHashMap<>();
+        categoryRef.put("id", ProductView.CategoryRef::getId);
+        categoryRef.put("name", ProductView.CategoryRef::getName);
+        register(codecs, ProductView.CategoryRef.class, categoryRef);
+
+        Map<String, Function<OrderItemView, Object>> orderItem = new LinkedHashMap<>();
+        orderItem.put("id", OrderItemView::getId);
+        orderItem.put("productId", OrderItemView::getProductId);
+        orderItem.put("productName", OrderItemView::getProductName);
+        orderItem.put("productSku", OrderItemView::getProductSku);
+        orderItem.put("quantity", OrderItemView::getQuantity);
+        orderItem.put("unitPrice", OrderItemView::getUnitPrice);
+        orderItem.put("discount", OrderItemView::getDiscount);
+        orderItem.put("subtotal", OrderItemView::getSubtotal);
+        register(codecs, OrderItemView.class, orderItem);
+
+        Map<String, Function<UserView, Object>> user = new LinkedHashMap<>();
+        user.put("id", UserView::getId);
+        user.put("email", UserView::getEmail);
+        user.put("firstName", UserView::getFirstName);
+        user.put("lastName", UserView::getLastName);
+        user.put("phone", UserView::getPhone);
+        user.put("isActive", UserView::getIsActive);
+        user.put("role", UserView::getRole);
+        user.put("createdAt", UserView::getCreatedAt);
+        user.put("updatedAt", UserView::getUpdatedAt);
+        user.put("version", UserView::getVersion);
+        register(codecs, UserView.class, user);
+
+        Map<String, Function<CategoryTreeNode, Object>> treeNode = new LinkedHashMap<>();
+        treeNode.put("id", CategoryTreeNode::getId);
+        treeNode.put("name", CategoryTreeNode::getName);
+        treeNode.put("description", CategoryTreeNode::getDescription);
+        treeNode.put("imageUrl", CategoryTreeNode::getImageUrl);
+        treeNode.put("isActive", CategoryTreeNode::getIsActive);
+        treeNode.put("displayOrder", CategoryTreeNode::getDisplayOrder);
+        treeNode.put("children", CategoryTreeNode::getChildren);
+        register(codecs, CategoryTreeNode.class, treeNode);
+        return Map.copyOf(codecs);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void register(Map<Class<?>, Map<String, Function<Object, Object>>> codecs, Class<T> type,
+                                     Map<String, ? extends Function<? super T, Object>> getters) {
+        Map<String, Function<Object, Object>> codec = new LinkedHashMap<>();
+        getters.forEach((name, getter) -> codec.put(name, value -> getter.apply((T) value)));
+        codecs.put(type, codec);
+    }
+}
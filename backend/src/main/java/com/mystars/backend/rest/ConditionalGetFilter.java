@@ -0,0 +1,47 @@
+package com.mystars.backend.rest;
+
+import com.mystars.backend.repository.ChangeStamp;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import java.util.Date;
+
+/**
+ * Adds ETag and Last-Modified to successful GET responses whose entity is versioned and
+ * turns them into 304 Not Modified when the client's copy is current, skipping serialization.
+ * Resources that can check validators before loading data set the ETag themselves and are left alone.
+ */
+@Provider
+public class ConditionalGetFilter implements ContainerResponseFilter {
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        String method = requestContext.getMethod();
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)) {
+            return;
+        }
+        if (responseContext.getStatus() != Response.Status.OK.getStatusCode()
+            || responseContext.getHeaders().containsKey(HttpHeaders.ETAG)) {
+            return;
+        }
+        ChangeStamp stamp = ConditionalRequests.stampOf(responseContext.getEntity());
+        if (stamp == null) {
+            return;
+        }
+
+        responseContext.getHeaders().putSingle(HttpHeaders.ETAG, ConditionalRequests.entityTag(stamp));
+        responseContext.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, ConditionalRequests.cacheControl());
+        Date lastModified = ConditionalRequests.lastModified(stamp);
+        if (lastModified != null) {
+            responseContext.getHeaders().putSingle(HttpHeaders.LAST_MODIFIED, lastModified);
+        }
+        if (ConditionalRequests.evaluate(requestContext.getRequest(), stamp) != null) {
+            responseContext.setStatus(Response.Status.NOT_MODIFIED.getStatusCode());
+            responseContext.setEntity(null);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.mystars.backend.rest;
+
+import com.mystars.backend.entity.Versioned;
+import com.mystars.backend.repository.ChangeStamp;
+import com.mystars.backend.repository.Page;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
+import java.util.function.Supplier;
+
+/**
+ * Helpers for conditional GET: ETags and Last-Modified dates derived from {@link ChangeStamp}s,
+ * and 304 responses when the client's copy is still current. The ETags are weak, since the
+ * same stamp validates the JSON, CBOR and gzip representations of a resource.
+ */
+public final class ConditionalRequests {
+
+    private static final CacheControl REVALIDATE = revalidate();
+
+    private ConditionalRequests() {
+    }
+
+    private static CacheControl revalidate() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        return cacheControl;
+    }
+
+    /**
+     * Respond 304 if the client's validators match the stamp; otherwise produce the entity
+     * and respond 200 with the validators. The entity is only built when it is needed.
+     */
+    public static Response respond(Request request, ChangeStamp stamp, Supplier<?> entity) {
+        if (stamp == null) {
+            return Response.ok(entity.get()).build();
+        }
+        Response.ResponseBuilder notModified = evaluate(request, stamp);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return withValidators(Response.ok(entity.get()), stamp).build();
+    }
+
+    /**
+     * A 304 response builder if the client's validators match the stamp, or null.
+     */
+    public static Response.ResponseBuilder evaluate(Request request, ChangeStamp stamp) {
+        Date lastModified = lastModified(stamp);
+        Response.ResponseBuilder builder = lastModified != null
+            ? request.evaluatePreconditions(lastModified, entityTag(stamp))
+            : request.evaluatePreconditions(entityTag(stamp));
+        return builder != null ? withValidators(builder, stamp) : null;
+    }
+
+    public static Response.ResponseBuilder withValidators(Response.ResponseBuilder builder, ChangeStamp stamp) {
+        builder.tag(entityTag(stamp)).cacheControl(REVALIDATE);
+        Date lastModified = lastModified(stamp);
+        if (lastModified != null) {
+            builder.lastModified(lastModified);
+        }
+        return builder;
+    }
+
+    public static EntityTag entityTag(ChangeStamp stamp) {
+        return new EntityTag(stamp.getTag(), true);
+    }
+
+    public static CacheControl cacheControl() {
+        return REVALIDATE;
+    }
+
+    public static Date lastModified(ChangeStamp stamp) {
+        LocalDateTime updatedAt = stamp.getLastModified();
+        return updatedAt != null ? Date.from(updatedAt.atZone(ZoneId.systemDefault()).toInstant()) : null;
+    }
+
+    /**
+     * Stamp of a response entity: a versioned entity, or a page or collection of them.
+     * Returns null for anything else.
+     */
+    public static ChangeStamp stampOf(Object entity) {
+        if (entity instanceof Versioned versioned) {
+            return ChangeStamp.of(versioned.getId(), versioned.getVersion(), versioned.getUpdatedAt());
+        }
+        if (entity instanceof Page<?> page) {
+            return stampOfCollection(page.getData());
+        }
+        if (entity instanceof Collection<?> collection) {
+            return stampOfCollection(collection);
+        }
+        return null;
+    }
+
+    private static ChangeStamp stampOfCollection(Collection<?> items) {
+        LocalDateTime lastUpdate = null;
+        for (Object item : items) {
+            if (!(item instanceof Versioned versioned)) {
+                return null;
+            }
+            LocalDateTime updatedAt = versioned.getUpdatedAt();
+            if (updatedAt != null && (lastUpdate == null || updatedAt.isAfter(lastUpdate))) {
+                lastUpdate = updatedAt;
+            }
+        }
+        return ChangeStamp.ofCollection(items.size(), lastUpdate);
+    }
+}
@@ -0,0 +1,141 @@
+package com.mystars.backend.rest;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the database work of resources on virtual threads, at most as many at a time as the
+ * JDBC pool has connections. Container request threads are released while the work waits for
+ * a permit or for Postgres, so a slow database cannot stall endpoints served from memory.
+ * Work that waits too long for a permit is answered with 503 and Retry-After.
+ */
+@ApplicationScoped
+public class DatabaseBulkhead {
+
+    /**
+     * System property holding the JDBC pool size; the datasource's max-pool-size by default.
+     */
+    public static final String POOL_SIZE_PROPERTY = "mystars.db.pool-size";
+
+    private static final int DEFAULT_POOL_SIZE = 20;
+    private static final long PERMIT_TIMEOUT_MS = 5_000;
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    @Inject
+    private IdempotentRequest idempotentRequest;
+
+    private final ExecutorService executor =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("db-work-", 0).factory());
+    private final Semaphore permits = new Semaphore(Integer.getInteger(POOL_SIZE_PROPERTY, DEFAULT_POOL_SIZE), true);
+
+    /**
+     * Run the work on a virtual thread once a connection permit is free. The stage completes
+     * with the work's result or exception as thrown, so resources can return it directly.
+     * If the request claimed an idempotency key, the key is acquired first without holding a
+     * permit, a duplicate is answered without running the work, and the key is given up if
+     * the work throws.
+     */
+    public <T> CompletionStage<T> supply(Supplier<T> work) {
+        IdempotencyGuard.Claim claim = idempotentRequest.take();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                Response answer = claim != null ? claim.acquire() : null;
+                if (answer != null) {
+                    result.completeExceptionally(new WebApplicationException(answer));
+                    return;
+                }
+                result.complete(withPermit(work));
+            } catch (Throwable e) {
+                if (claim != null) {
+                    claim.abandon();
+                }
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Run the work on a virtual thread once a connection permit is free, outside any request.
+     */
+    public CompletionStage<Void> run(Runnable work) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                withPermit(() -> {
+                    work.run();
+                    return null;
+                });
+                result.complete(null);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Run the work on the calling thread, which must be one of the bulkhead's, once a
+     * connection permit is free.
+     */
+    public <T> T withPermit(Supplier<T> work) {
+        try {
+            if (!permits.tryAcquire(PERMIT_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw busy();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw busy();
+        }
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Response body that holds a connection permit while it is written, for bodies that read
+     * from the database as they go, such as exports. Bodies are written on the container
+     * thread, so the permit is not waited for: without a free one the request gets 503
+     * before anything is written.
+     */
+    public StreamingOutput streaming(StreamingOutput body) {
+        return output -> {
+            if (!permits.tryAcquire()) {
+                throw busy();
+            }
+            try {
+                body.write(output);
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ServiceUnavailableException busy() {
+        return new ServiceUnavailableException(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+            .entity(new UserResource.ErrorResponse("Database busy, retry later"))
+            .build());
+    }
+}
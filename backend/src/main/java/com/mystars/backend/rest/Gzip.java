@@ -0,0 +1,50 @@
+package com.mystars.backend.rest;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.HttpHeaders;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip content coding for responses that are encoded once and served many times.
+ */
+final class Gzip {
+
+    static final String CODING = "gzip";
+
+    private Gzip() {
+    }
+
+    static byte[] encode(byte[] identity) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, identity.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(identity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Whether the request's Accept-Encoding allows gzip, that is lists it without q=0.
+     */
+    static boolean isAccepted(ContainerRequestContext requestContext) {
+        return isAccepted(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    static boolean isAccepted(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(CODING)
+                && !(parts.length > 1 && parts[1].replace(" ", "").matches("q=0(\\.0*)?"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
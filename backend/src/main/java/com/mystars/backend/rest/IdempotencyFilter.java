@@ -0,0 +1,155 @@
+package com.mystars.backend.rest;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.Providers;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handles the {@code Idempotency-Key} header of {@link Idempotent} endpoints. The first request
+ * with a key claims it in the database and its response is stored under the key once it
+ * finishes; a retry with the same key and request gets the stored response without the resource
+ * running, and one with a different request is refused with 422. The filter only reads the key
+ * and fingerprints the request; the claim is acquired and settled by {@link IdempotencyGuard}
+ * on the {@link DatabaseBulkhead} thread that runs the resource's work. Responses with a 5xx
+ * status, and work that throws, are not stored, so a retry runs the request again.
+ */
+@Provider
+@Idempotent
+@Priority(Priorities.USER)
+public class IdempotencyFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    /**
+     * Request header carrying the client's idempotency key.
+     */
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    /**
+     * Response header set on replayed responses.
+     */
+    public static final String REPLAYED = "Idempotent-Replayed";
+
+    private static final Logger LOGGER = Logger.getLogger(IdempotencyFilter.class.getName());
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String CLAIM_PROPERTY = IdempotencyFilter.class.getName() + ".claim";
+
+    @Inject
+    private IdempotencyGuard guard;
+
+    @Inject
+    private IdempotentRequest idempotentRequest;
+
+    @Context
+    private Providers providers;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        String key = requestContext.getHeaderString(IDEMPOTENCY_KEY);
+        if (key == null) {
+            return;
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            requestContext.abortWith(IdempotencyGuard.error(Response.Status.BAD_REQUEST.getStatusCode(),
+                IDEMPOTENCY_KEY + " must be 1 to " + MAX_KEY_LENGTH + " characters"));
+            return;
+        }
+        // The body is read here for the fingerprint and replayed to the resource
+        byte[] body = requestContext.hasEntity() ? requestContext.getEntityStream().readAllBytes() : new byte[0];
+        requestContext.setEntityStream(new ByteArrayInputStream(body));
+
+        IdempotencyGuard.Claim claim = guard.claim(key, fingerprintOf(requestContext, body));
+        idempotentRequest.offer(claim);
+        requestContext.setProperty(CLAIM_PROPERTY, claim);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        IdempotencyGuard.Claim claim = (IdempotencyGuard.Claim) requestContext.getProperty(CLAIM_PROPERTY);
+        if (claim == null || !claim.isHeld()) {
+            return;
+        }
+        if (responseContext.getStatus() >= Response.Status.INTERNAL_SERVER_ERROR.getStatusCode()) {
+            claim.abandon();
+            return;
+        }
+        MediaType mediaType = responseContext.getMediaType();
+        byte[] body;
+        try {
+            body = serialize(providers, responseContext);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not store response for idempotency key " + claim.getKey(), e);
+            claim.abandon();
+            return;
+        }
+        if (body != null) {
+            responseContext.setEntity(body, null, mediaType);
+        }
+        claim.finish(responseContext.getStatus(), mediaType != null ? mediaType.toString() : null, body);
+    }
+
+    /**
+     * Bytes of the response entity in its negotiated media type, written by the provider
+     * that would otherwise write it, or null if there is no entity.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static byte[] serialize(Providers providers, ContainerResponseContext responseContext) throws IOException {
+        Object entity = responseContext.getEntity();
+        if (entity == null) {
+            return null;
+        }
+        MediaType mediaType = responseContext.getMediaType();
+        MessageBodyWriter writer = providers.getMessageBodyWriter(responseContext.getEntityClass(),
+            responseContext.getEntityType(), responseContext.getEntityAnnotations(), mediaType);
+        if (writer == null) {
+            throw new IOException("No writer for " + responseContext.getEntityClass().getName() + " as " + mediaType);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(entity, responseContext.getEntityClass(), responseContext.getEntityType(),
+            responseContext.getEntityAnnotations(), mediaType, responseContext.getHeaders(), out);
+        return out.toByteArray();
+    }
+
+    /**
+     * SHA-256 of the method, path, query parameters sorted by name, and body, so a key
+     * reused for a different request is caught.
+     */
+    private static String fingerprintOf(ContainerRequestContext requestContext, byte[] body) {
+        MultivaluedMap<String, String> parameters = requestContext.getUriInfo().getQueryParameters();
+        StringBuilder request = new StringBuilder(requestContext.getMethod())
+            .append(' ').append(requestContext.getUriInfo().getPath());
+        char separator = '?';
+        for (String name : parameters.keySet().stream().sorted().toList()) {
+            for (String value : parameters.get(name)) {
+                request.append(separator).append(name).append('=').append(value);
+                separator = '&';
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
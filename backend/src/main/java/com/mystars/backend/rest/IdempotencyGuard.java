@@ -0,0 +1,215 @@
+package com.mystars.backend.rest;
+
+import com.mystars.backend.entity.IdempotencyRecord;
+import com.mystars.backend.service.IdempotencyService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Claims, waits for and settles the idempotency keys of {@link Idempotent} requests. All of it
+ * runs on {@link DatabaseBulkhead} threads, so neither the database round trips nor waiting for
+ * a duplicate hold a container thread. A duplicate that arrives while the first request is
+ * running waits for it, on a local flight when it runs in this instance and by polling its
+ * record otherwise, and gets 409 with Retry-After if it takes too long. A flight older than the
+ * claim lease is taken to be dead, as its claim in the database is.
+ */
+@ApplicationScoped
+public class IdempotencyGuard {
+
+    private static final Logger LOGGER = Logger.getLogger(IdempotencyGuard.class.getName());
+    private static final long MAX_WAIT_MS = 10_000;
+    private static final long POLL_INTERVAL_MS = 100;
+    private static final long FLIGHT_LEASE_NANOS = TimeUnit.SECONDS.toNanos(IdempotencyService.LEASE_SECONDS);
+    private static final int RETRY_AFTER_SECONDS = 1;
+    private static final int UNPROCESSABLE_ENTITY = 422;
+
+    @Inject
+    private IdempotencyService idempotencyService;
+
+    @Inject
+    private DatabaseBulkhead database;
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * A claim on the key for a request with the given fingerprint, not yet acquired.
+     */
+    public Claim claim(String key, String fingerprint) {
+        return new Claim(key, fingerprint);
+    }
+
+    /**
+     * A request running with a key in this instance; duplicates wait until it lands.
+     */
+    private record Flight(CompletableFuture<Void> landed, long startedAt) {
+
+        boolean isStale() {
+            return System.nanoTime() - startedAt - FLIGHT_LEASE_NANOS >= 0;
+        }
+    }
+
+    /**
+     * One request's claim on its key. It is held from a successful {@link #acquire} until it is
+     * settled by {@link #finish} or {@link #abandon}, whichever comes first.
+     */
+    public final class Claim {
+        private final String key;
+        private final String fingerprint;
+        private final AtomicReference<Flight> held = new AtomicReference<>();
+        private long token;
+
+        private Claim(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        boolean isHeld() {
+            return held.get() != null;
+        }
+
+        /**
+         * Claim the key, waiting for a request already holding it. Blocks, so it is only called
+         * on a bulkhead thread.
+         *
+         * @return null if the request may run, else the response to answer it with
+         */
+        Response acquire() {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_WAIT_MS);
+            while (true) {
+                Flight flight = new Flight(new CompletableFuture<>(), System.nanoTime());
+                Flight pending = flights.putIfAbsent(key, flight);
+                if (pending != null && pending.isStale()) {
+                    flights.remove(key, pending);
+                    continue;
+                }
+                if (pending != null) {
+                    // Running in this instance: wait for it, then read what it stored
+                    await(pending.landed(), deadline);
+                } else {
+                    IdempotencyService.Attempt attempt;
+                    try {
+                        attempt = database.withPermit(() -> idempotencyService.begin(key, fingerprint));
+                    } catch (RuntimeException e) {
+                        land(flight);
+                        throw e;
+                    }
+                    if (attempt.isClaimed()) {
+                        token = attempt.token();
+                        held.set(flight);
+                        return null;
+                    }
+                    land(flight);
+                    IdempotencyRecord record = attempt.holder();
+                    if (!record.getFingerprint().equals(fingerprint)) {
+                        return error(UNPROCESSABLE_ENTITY,
+                            IdempotencyFilter.IDEMPOTENCY_KEY + " was already used for a different request");
+                    }
+                    if (record.isCompleted()) {
+                        return replay(record);
+                    }
+                    // Running in another instance: poll its record
+                    pause(deadline);
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    return Response.status(Response.Status.CONFLICT)
+                        .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                        .entity(new UserResource.ErrorResponse("A request with this "
+                            + IdempotencyFilter.IDEMPOTENCY_KEY + " is still in progress"))
+                        .type(MediaType.APPLICATION_JSON_TYPE)
+                        .build();
+                }
+            }
+        }
+
+        /**
+         * Store the request's response under the key, in the background. Duplicates waiting in
+         * this instance are let go once it is stored.
+         */
+        void finish(int statusCode, String mediaType, byte[] body) {
+            settle(() -> {
+                try {
+                    idempotencyService.complete(key, token, statusCode, mediaType, body);
+                } catch (RuntimeException e) {
+                    idempotencyService.release(key, token);
+                    throw e;
+                }
+            });
+        }
+
+        /**
+         * Give up the key, in the background, so a retry runs the request again.
+         */
+        void abandon() {
+            settle(() -> idempotencyService.release(key, token));
+        }
+
+        private void settle(Runnable work) {
+            Flight flight = held.getAndSet(null);
+            if (flight == null) {
+                return;
+            }
+            database.run(work).whenComplete((ignored, failure) -> {
+                if (failure != null) {
+                    // The claim lapses after its lease
+                    LOGGER.log(Level.WARNING, "Could not settle idempotency key " + key, failure);
+                }
+                land(flight);
+            });
+        }
+
+        private void land(Flight flight) {
+            flights.remove(key, flight);
+            flight.landed().complete(null);
+        }
+    }
+
+    static Response error(int status, String message) {
+        return Response.status(status)
+            .entity(new UserResource.ErrorResponse(message))
+            .type(MediaType.APPLICATION_JSON_TYPE)
+            .build();
+    }
+
+    private static Response replay(IdempotencyRecord record) {
+        Response.ResponseBuilder builder = Response.status(record.getStatusCode())
+            .header(IdempotencyFilter.REPLAYED, "true");
+        if (record.getBody() != null) {
+            builder.entity(record.getBody()).type(record.getMediaType());
+        }
+        return builder.build();
+    }
+
+    private static void await(CompletableFuture<Void> pending, long deadline) {
+        try {
+            pending.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Checked against the deadline by the caller
+        }
+    }
+
+    private static void pause(long deadline) {
+        try {
+            Thread.sleep(Math.min(POLL_INTERVAL_MS, Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()))));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
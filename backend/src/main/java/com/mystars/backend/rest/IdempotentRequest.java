@@ -0,0 +1,27 @@
+package com.mystars.backend.rest;
+
+import jakarta.enterprise.context.RequestScoped;
+
+/**
+ * Idempotency claim of the current request, passed from {@link IdempotencyFilter} to the
+ * {@link DatabaseBulkhead} work of the resource it guards.
+ */
+@RequestScoped
+public class IdempotentRequest {
+
+    private IdempotencyGuard.Claim claim;
+
+    public void offer(IdempotencyGuard.Claim claim) {
+        this.claim = claim;
+    }
+
+    /**
+     * The request's claim, or null if it has none. Returned once, so only the first work the
+     * resource starts acquires the key.
+     */
+    public IdempotencyGuard.Claim take() {
+        IdempotencyGuard.Claim taken = claim;
+        claim = null;
+        return taken;
+    }
+}
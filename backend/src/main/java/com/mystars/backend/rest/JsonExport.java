@@ -0,0 +1,145 @@
+package com.mystars.backend.rest;
+
+import com.mystars.backend.catalog.ProductView;
+import com.mystars.backend.dto.OrderItemView;
+import com.mystars.backend.dto.OrderView;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Streams export rows as a JSON array, writing each row to a JSON-P generator as soon as it
+ * is read so the response never holds more than one row. Rows have the same shape JSON-B
+ * gives the views in regular responses, with null properties omitted.
+ */
+final class JsonExport {
+
+    private static final JsonGeneratorFactory GENERATORS = Json.createGeneratorFactory(Map.of());
+
+    private JsonExport() {
+    }
+
+    /**
+     * Response body that runs the source, writing every row it produces as an array element.
+     */
+    static <T> StreamingOutput array(Consumer<Consumer<T>> source, BiConsumer<JsonGenerator, T> writer) {
+        return output -> {
+            try (JsonGenerator generator = GENERATORS.createGenerator(output, StandardCharsets.UTF_8)) {
+                generator.writeStartArray();
+                source.accept(row -> writer.accept(generator, row));
+                generator.writeEnd();
+            }
+        };
+    }
+
+    static void writeProduct(JsonGenerator generator, ProductView product) {
+        generator.writeStartObject();
+        write(generator, "id", product.getId());
+        write(generator, "name", product.getName());
+        write(generator, "description", product.getDescription());
+        write(generator, "price", product.getPrice());
+        write(generator, "stockQuantity", product.getStockQuantity());
+        write(generator, "sku", product.getSku());
+        write(generator, "imageUrl", product.getImageUrl());
+        write(generator, "isActive", product.getIsActive());
+        if (product.getCategory() != null) {
+            generator.writeStartObject("category");
+            write(generator, "id", product.getCategory().getId());
+            write(generator, "name", product.getCategory().getName());
+            generator.writeEnd();
+        }
+        if (product.getWeight() != null) {
+            generator.write("weight", product.getWeight());
+        }
+        write(generator, "dimensions", product.getDimensions());
+        write(generator, "createdAt", product.getCreatedAt());
+        write(generator, "updatedAt", product.getUpdatedAt());
+        write(generator, "version", product.getVersion());
+        generator.writeEnd();
+    }
+
+    static void writeOrder(JsonGenerator generator, OrderView order) {
+        generator.writeStartObject();
+        write(generator, "id", order.getId());
+        write(generator, "userId", order.getUserId());
+        write(generator, "userEmail", order.getUserEmail());
+        write(generator, "status", order.getStatus() != null ? order.getStatus().name() : null);
+        write(generator, "totalAmount", order.getTotalAmount());
+        write(generator, "orderDate", order.getOrderDate());
+        write(generator, "shippedDate", order.getShippedDate());
+        write(generator, "deliveredDate", order.getDeliveredDate());
+        write(generator, "trackingNumber", order.getTrackingNumber());
+        write(generator, "shippingAddress", order.getShippingAddress());
+        write(generator, "billingAddress", order.getBillingAddress());
+        write(generator, "notes", order.getNotes());
+        generator.writeStartArray("items");
+        for (OrderItemView item : order.getItems()) {
+            generator.writeStartObject();
+            write(generator, "id", item.getId());
+            write(generator, "productId", item.getProductId());
+            write(generator, "productName", item.getProductName());
+            write(generator, "productSku", item.getProductSku());
+            write(generator, "quantity", item.getQuantity());
+            write(generator, "unitPrice", item.getUnitPrice());
+            write(generator, "discount", item.getDiscount());
+            write(generator, "subtotal", item.getSubtotal());
+            generator.writeEnd();
+        }
+        generator.writeEnd();
+        write(generator, "createdAt", order.getCreatedAt());
+        write(generator, "updatedAt", order.getUpdatedAt());
+        write(generator, "version", order.getVersion());
+        generator.writeEnd();
+    }
+
+    private static void write(JsonGenerator generator, String name, String value) {
+        if (value != null) {
+            generator.write(name, value);
+        }
+    }
+
+    private static void write(JsonGenerator generator, String name, UUID value) {
+        if (value != null) {
+            generator.write(name, value.toString());
+        }
+    }
+
+    private static void write(JsonGenerator generator, String name, LocalDateTime value) {
+        if (value != null) {
+            generator.write(name, DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+        }
+    }
+
+    private static void write(JsonGenerator generator, String name, BigDecimal value) {
+        if (value != null) {
+            generator.write(name, value);
+        }
+    }
+
+    private static void write(JsonGenerator generator, String name, Integer value) {
+        if (value != null) {
+            generator.write(name, value);
+        }
+    }
+
+    private static void write(JsonGenerator generator, String name, Long value) {
+        if (value != null) {
+            generator.write(name, value);
+        }
+    }
+
+    private static void write(JsonGenerator generator, String name, Boolean value) {
+        if (value != null) {
+            generator.write(name, value);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.mystars.backend.rest;
+
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.core.util.Yaml;
+import io.swagger.v3.jaxrs2.Reader;
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.info.Contact;
+import io.swagger.v3.oas.models.info.Info;
+import io.swagger.v3.oas.models.info.License;
+import io.swagger.v3.oas.models.security.SecurityRequirement;
+import io.swagger.v3.oas.models.security.SecurityScheme;
+import io.swagger.v3.oas.models.servers.Server;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The OpenAPI specification, generated once from the resource annotations and kept as
+ * pre-serialized JSON and YAML bytes with their gzip encodings. The spec only changes
+ * with a new deployment, so it is built at startup instead of on every request.
+ */
+@ApplicationScoped
+public class OpenAPIDocument {
+
+    private static final Logger LOGGER = Logger.getLogger(OpenAPIDocument.class.getName());
+
+    private volatile Rendered rendered;
+
+    /**
+     * Build the spec when the application starts, so the first docs request does not pay for it.
+     */
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        try {
+            rendered();
+        } catch (RuntimeException e) {
+            // Retried on the first request
+            LOGGER.log(Level.WARNING, "Could not generate OpenAPI specification", e);
+        }
+    }
+
+    public Representation json() {
+        return rendered().json;
+    }
+
+    public Representation yaml() {
+        return rendered().yaml;
+    }
+
+    private Rendered rendered() {
+        Rendered current = rendered;
+        if (current == null) {
+            synchronized (this) {
+                current = rendered;
+                if (current == null) {
+                    current = render();
+                    rendered = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static Rendered render() {
+        OpenAPI openAPI = new OpenAPI()
+            .info(new Info()
+                .title("ShopOne E-Commerce API")
+                .description("REST API for ShopOne E-Commerce Platform. " +
+                    "This API provides endpoints for managing products, categories, orders, and users. " +
+                    "Authentication is required for most endpoints using JWT Bearer token.")
+                .version("v1")
+                .contact(new Contact()
+                    .name("ShopOne Team")
+                    .email("support@shopone.com")
+                    .url("https://shopone.com"))
+                .license(new License()
+                    .name("Proprietary")
+                    .url("https://shopone.com/license")))
+            // Relative to the host serving the spec, so one document serves every host name
+            .servers(List.of(
+                new Server()
+                    .url("/api")
+                    .description("API Endpoint")))
+            .addSecurityItem(new SecurityRequirement().addList("bearerAuth"))
+            .components(new Components()
+                .addSecuritySchemes("bearerAuth", new SecurityScheme()
+                    .type(SecurityScheme.Type.HTTP)
+                    .scheme("bearer")
+                    .bearerFormat("JWT")
+                    .description("JWT token obtained from /auth/login or /auth/register endpoints")));
+
+        // Scan the JAX-RS annotations of the REST resources
+        openAPI = new Reader(openAPI).read(Set.of(
+            AuthResource.class,
+            UserResource.class,
+            ProductResource.class,
+            CategoryResource.class,
+            OrderResource.class,
+            ReservationResource.class));
+
+        try {
+            byte[] json = Json.pretty().writeValueAsString(openAPI).getBytes(StandardCharsets.UTF_8);
+            byte[] yaml = Yaml.pretty().writeValueAsString(openAPI).getBytes(StandardCharsets.UTF_8);
+            return new Rendered(Representation.of(json), Representation.of(yaml));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Rendered(Representation json, Representation yaml) {
+    }
+
+    /**
+     * One serialization of the spec: its bytes, their gzip encoding and an ETag derived from
+     * the content, served weak since it validates both encodings.
+     */
+    public static final class Representation {
+        private final byte[] identity;
+        private final byte[] gzip;
+        private final String entityTag;
+
+        private Representation(byte[] identity, byte[] gzip, String entityTag) {
+            this.identity = identity;
+            this.gzip = gzip;
+            this.entityTag = entityTag;
+        }
+
+        static Representation of(byte[] identity) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(identity);
+                return new Representation(identity, Gzip.encode(identity),
+                    HexFormat.of().formatHex(digest, 0, 16));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        public byte[] body(boolean gzip) {
+            return gzip ? this.gzip : identity;
+        }
+
+        public String getEntityTag() {
+            return entityTag;
+        }
+    }
+}
@@ -1,87 +1,44 @@
 package com.mystars.backend.rest;
 
-import io.swagger.v3.core.converter.ModelConverters;
-import io.swagger.v3.core.converter.ResolvedSchema;
-import io.swagger.v3.core.util.Json;
-import io.swagger.v3.jaxrs2.Reader;
-import io.swagger.v3.oas.models.Components;
-import io.swagger.v3.oas.models.OpenAPI;
-import io.swagger.v3.oas.models.info.Contact;
-import io.swagger.v3.oas.models.info.Info;
-import io.swagger.v3.oas.models.info.License;
-import io.swagger.v3.oas.models.security.SecurityRequirement;
-import io.swagger.v3.oas.models.security.SecurityScheme;
-import io.swagger.v3.oas.models.servers.Server;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.CacheControl;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
-import jakarta.ws.rs.core.UriInfo;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
 
 /**
- * OpenAPI resource to dynamically generate and serve the API documentation.
- * Uses Swagger annotations from the REST resources to build the spec.
+ * OpenAPI resource serving the API documentation.
+ * The spec is generated once from the Swagger annotations of the REST resources by
+ * {@link OpenAPIDocument}; requests only send the stored bytes, or 304 when unchanged.
  */
 @Path("/openapi")
 public class OpenAPIResource {
 
+    private static final String APPLICATION_YAML = "application/yaml";
+
+    // Clients may reuse the spec for an hour, then revalidate it with the ETag
+    private static final CacheControl CACHE_CONTROL = cacheControl();
+
+    @Inject
+    private OpenAPIDocument document;
+
+    @Context
+    private Request request;
+
     @Context
-    private UriInfo uriInfo;
+    private HttpHeaders headers;
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     public Response getOpenAPI() {
         try {
-            // Get the base URL from the request
-            String baseUrl = getBaseUrl();
-            
-            // Build the OpenAPI model
-            OpenAPI openAPI = new OpenAPI()
-                .info(new Info()
-                    .title("ShopOne E-Commerce API")
-                    .description("REST API for ShopOne E-Commerce Platform. " +
-                        "This API provides endpoints for managing products, categories, orders, and users. " +
-                        "Authentication is required for most endpoints using JWT Bearer token.")
-                    .version("v1")
-                    .contact(new Contact()
-                        .name("ShopOne Team")
-                        .email("support@shopone.com")
-                        .url("https://shopone.com"))
-                    .license(new License()
-                        .name("Proprietary")
-                        .url("https://shopone.com/license")))
-                .servers(List.of(
-                    new Server()
-                        .url(baseUrl + "/api")
-                        .description("API Endpoint")))
-                .addSecurityItem(new SecurityRequirement().addList("bearerAuth"))
-                .components(new Components()
-                    .addSecuritySchemes("bearerAuth", new SecurityScheme()
-                        .type(SecurityScheme.Type.HTTP)
-                        .scheme("bearer")
-                        .bearerFormat("JWT")
-                        .description("JWT token obtained from /auth/login or /auth/register endpoints")));
-
-            // Create a Reader to scan JAX-RS annotations
-            Reader reader = new Reader(openAPI);
-            
-            // Get all resource classes from ApplicationConfig
-            Set<Class<?>> resourceClasses = getResourceClasses();
-            
-            // Read the OpenAPI spec from the annotations
-            openAPI = reader.read(resourceClasses);
-
-            // Convert to JSON
-            String json = Json.pretty().writeValueAsString(openAPI);
-            
-            return Response.ok(json)
-                .type(MediaType.APPLICATION_JSON)
-                .build();
+            return respond(document.json(), MediaType.APPLICATION_JSON);
         } catch (Exception e) {
             return Response.serverError()
                 .entity("{\"error\": \"Failed to generate OpenAPI specification: " + e.getMessage() + "\"}")
@@ -92,71 +49,41 @@ public class OpenAPIResource {
 
     @GET
     @Path("/yaml")
-    @Produces("application/yaml")
+    @Produces(APPLICATION_YAML)
     public Response getOpenAPIYaml() {
         try {
-            String baseUrl = getBaseUrl();
-            
-            OpenAPI openAPI = new OpenAPI()
-                .info(new Info()
-                    .title("ShopOne E-Commerce API")
-                    .description("REST API for ShopOne E-Commerce Platform. " +
-                        "This API provides endpoints for managing products, categories, orders, and users. " +
-                        "Authentication is required for most endpoints using JWT Bearer token.")
-                    .version("v1")
-                    .contact(new Contact()
-                        .name("ShopOne Team")
-                        .email("support@shopone.com")
-                        .url("https://shopone.com"))
-                    .license(new License()
-                        .name("Proprietary")
-                        .url("https://shopone.com/license")))
-                .servers(List.of(
-                    new Server()
-                        .url(baseUrl + "/api")
-                        .description("API Endpoint")))
-                .addSecurityItem(new SecurityRequirement().addList("bearerAuth"))
-                .components(new Components()
-                    .addSecuritySchemes("bearerAuth", new SecurityScheme()
-                        .type(SecurityScheme.Type.HTTP)
-                        .scheme("bearer")
-                        .bearerFormat("JWT")
-                        .description("JWT token obtained from /auth/login or /auth/register endpoints")));
-
-            Reader reader = new Reader(openAPI);
-            Set<Class<?>> resourceClasses = getResourceClasses();
-            openAPI = reader.read(resourceClasses);
-
-            String yaml = io.swagger.v3.core.util.Yaml.pretty().writeValueAsString(openAPI);
-            
-            return Response.ok(yaml)
-                .type("application/yaml")
-                .build();
+            return respond(document.yaml(), APPLICATION_YAML);
         } catch (Exception e) {
             return Response.serverError()
                 .entity("# Error generating OpenAPI specification\nerror: \"" + e.getMessage() + "\"")
-                .type("application/yaml")
+                .type(APPLICATION_YAML)
                 .build();
         }
     }
 
-    private Set<Class<?>> getResourceClasses() {
-        Set<Class<?>> classes = new HashSet<>();
-        
-        // Add all REST resource classes
-        classes.add(AuthResource.class);
-        classes.add(UserResource.class);
-        classes.add(ProductResource.class);
-        classes.add(CategoryResource.class);
-        classes.add(OrderResource.class);
-        
-        return classes;
-    }
+    private Response respond(OpenAPIDocument.Representation representation, String mediaType) {
+        EntityTag entityTag = new EntityTag(representation.getEntityTag(), true);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+        if (notModified != null) {
+            return notModified.tag(entityTag).cacheControl(CACHE_CONTROL).build();
+        }
 
-    private String getBaseUrl() {
-        if (uriInfo != null) {
-            return String.valueOf(uriInfo.getBaseUri());
+        boolean gzip = Gzip.isAccepted(headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        Response.ResponseBuilder builder = Response.ok(representation.body(gzip), mediaType)
+            .tag(entityTag)
+            .cacheControl(CACHE_CONTROL)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.encoding(Gzip.CODING);
         }
-        return "";
+        return builder.build();
+    }
+
+    private static CacheControl cacheControl() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge(3600);
+        cacheControl.setNoTransform(false);
+        cacheControl.getCacheExtension().put("public", null);
+        return cacheControl;
     }
 }
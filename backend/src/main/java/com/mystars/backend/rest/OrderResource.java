@@ -1,6 +1,13 @@
 package com.mystars.backend.rest;
 
+import com.mystars.backend.dto.OrderStatusBatchResult;
+import com.mystars.backend.dto.OrderSummary;
+import com.mystars.backend.dto.OrderView;
 import com.mystars.backend.entity.Order;
+import com.mystars.backend.repository.ChangeStamp;
+import com.mystars.backend.repository.FieldSet;
+import com.mystars.backend.repository.Page;
+import com.mystars.backend.service.InsufficientStockException;
 import com.mystars.backend.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,48 +18,99 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 /**
  * REST controller for Order operations.
  */
 @Path("/orders")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, Cbor.APPLICATION_CBOR})
+@Consumes({MediaType.APPLICATION_JSON, Cbor.APPLICATION_CBOR})
 @Tag(name = "Orders", description = "Order management endpoints")
 public class OrderResource {
     
     @Inject
     private OrderService orderService;
     
+    @Inject
+    private DatabaseBulkhead database;
+    
+    /**
+     * Bulk status change request DTO.
+     */
+    @Schema(description = "Bulk order status change payload")
+    public static class StatusBatchRequest {
+        @Schema(description = "IDs of the orders to change", requiredMode = Schema.RequiredMode.REQUIRED)
+        public List<UUID> ids;
+        @Schema(description = "New order status", example = "SHIPPED", requiredMode = Schema.RequiredMode.REQUIRED)
+        public String status;
+    }
+    
     @GET
-    @Operation(summary = "Get all orders", description = "Retrieve all orders with optional filters")
+    @Operation(summary = "Get all orders", description = "Retrieve a page of orders with optional filters, using cursor pagination")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Orders retrieved successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Order.class)))
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderSummary.class))),
+        @ApiResponse(responseCode = "304", description = "Orders unchanged since the client's copy"),
+        @ApiResponse(responseCode = "400", description = "Invalid status, cursor or field")
     })
-    public List<Order> findAll(
+    public CompletionStage<Response> findAll(
+            @Context Request request,
             @Parameter(description = "Filter by order status") @QueryParam("status") String status,
             @Parameter(description = "Filter by user ID") @QueryParam("userId") UUID userId,
-            @Parameter(description = "Get recent orders") @QueryParam("recent") Boolean recent) {
-        
+            @Parameter(description = "Get recent orders") @QueryParam("recent") Boolean recent,
+            @Parameter(description = "Cursor returned by the previous page") @QueryParam("cursor") String cursor,
+            @Parameter(description = "Page size (max 100)") @QueryParam("size") @DefaultValue("20") int size,
+            @Parameter(description = "Comma-separated fields to include; the ID is always included") @QueryParam("fields") String fields) {
+        return database.supply(() -> {
+            try {
+                Order.OrderStatus orderStatus = status != null ? Order.OrderStatus.valueOf(status.toUpperCase()) : null;
+                FieldSet fieldSet = FieldSet.parse(fields, OrderSummary.FIELDS.keySet());
+                // Validators cover every order the filters can return, so they are checked before loading the page
+                ChangeStamp stamp = orderService.findChangeStamp(orderStatus, orderStatus == null ? userId : null);
+                return ConditionalRequests.respond(request, stamp, () -> fieldSet != null
+                    ? orderService.findPage(orderStatus, userId, recent != null && recent, cursor, size, fieldSet)
+                    : findPage(orderStatus, userId, recent, cursor, size));
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
+    }
+    
+    private Page<OrderSummary> findPage(Order.OrderStatus status, UUID userId, Boolean recent, String cursor, int size) {
         if (status != null) {
-            Order.OrderStatus orderStatus = Order.OrderStatus.valueOf(status.toUpperCase());
-            return orderService.findByStatus(orderStatus);
+            return orderService.findByStatus(status, cursor, size);
         }
         
         if (userId != null) {
-            return orderService.findByUser(userId);
+            return orderService.findByUser(userId, cursor, size);
         }
         
         if (recent != null && recent) {
-            return orderService.findRecent();
+            return orderService.findRecent(cursor, size);
         }
         
-        return orderService.findAll();
+        return orderService.findPage(cursor, size);
+    }
+    
+    @GET
+    @Path("/export")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Export orders", description = "Stream every order with its items as a JSON array, oldest first")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Orders streamed",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderView.class)))
+    })
+    public Response export() {
+        return Response.ok(database.streaming(JsonExport.array(orderService::export, JsonExport::writeOrder))).build();
     }
     
     @GET
@@ -60,30 +118,66 @@ public class OrderResource {
     @Operation(summary = "Get order by ID", description = "Retrieve an order by its unique identifier")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Order found",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Order.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderView.class))),
+        @ApiResponse(responseCode = "304", description = "Order unchanged since the client's copy"),
+        @ApiResponse(responseCode = "400", description = "Unknown field"),
         @ApiResponse(responseCode = "404", description = "Order not found")
     })
-    public Response findById(@Parameter(description = "Order UUID") @PathParam("id") UUID id) {
-        return orderService.findById(id)
-            .map(order -> Response.ok(order).build())
-            .orElse(Response.status(Response.Status.NOT_FOUND).build());
+    public CompletionStage<Response> findById(@Context Request request, @Parameter(description = "Order UUID") @PathParam("id") UUID id,
+                                              @Parameter(description = "Comma-separated fields to include; the ID is always included") @QueryParam("fields") String fields) {
+        return database.supply(() -> {
+            FieldSet fieldSet;
+            try {
+                fieldSet = FieldSet.parse(fields, OrderView.FIELDS.keySet());
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+            // Check validators against the version column before projecting the order and its items
+            Optional<ChangeStamp> stamp = orderService.findChangeStamp(id);
+            if (stamp.isEmpty()) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            Response.ResponseBuilder notModified = ConditionalRequests.evaluate(request, stamp.get());
+            if (notModified != null) {
+                return notModified.build();
+            }
+            if (fieldSet != null) {
+                return orderService.findById(id, fieldSet)
+                    .map(order -> ConditionalRequests.withValidators(Response.ok(order), stamp.get()).build())
+                    .orElse(Response.status(Response.Status.NOT_FOUND).build());
+            }
+            return orderService.findById(id)
+                .map(order -> ConditionalRequests.withValidators(Response.ok(order), ConditionalRequests.stampOf(order)).build())
+                .orElse(Response.status(Response.Status.NOT_FOUND).build());
+        });
     }
     
     @POST
+    @Idempotent
     @Operation(summary = "Create order", description = "Create a new order")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Order created successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Order.class))),
-        @ApiResponse(responseCode = "400", description = "Invalid request")
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderView.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid request"),
+        @ApiResponse(responseCode = "409", description = "Not enough stock for an item")
     })
-    public Response create(Order order, @Parameter(description = "User UUID") @QueryParam("userId") UUID userId) {
-        try {
-            Order created = orderService.create(order, userId);
-            return Response.status(Response.Status.CREATED).entity(created).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(new UserResource.ErrorResponse(e.getMessage())).build();
-        }
+    public CompletionStage<Response> create(
+            Order order,
+            @Parameter(description = "User UUID") @QueryParam("userId") UUID userId,
+            @Parameter(description = "Stock holds to consume") @QueryParam("reservationId") List<UUID> reservationIds) {
+        return database.supply(() -> {
+            try {
+                Order created = orderService.create(order, userId, reservationIds);
+                return Response.status(Response.Status.CREATED).entity(OrderView.from(created)).build();
+            } catch (InsufficientStockException e) {
+                return Response.status(Response.Status.CONFLICT)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     @PATCH
@@ -91,20 +185,49 @@ public class OrderResource {
     @Operation(summary = "Update order status", description = "Update the status of an order")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Order status updated successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Order.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderView.class))),
         @ApiResponse(responseCode = "400", description = "Invalid request")
     })
-    public Response updateStatus(
+    public CompletionStage<Response> updateStatus(
             @Parameter(description = "Order UUID") @PathParam("id") UUID id, 
             @Parameter(description = "New order status") @QueryParam("status") String status) {
-        try {
-            Order.OrderStatus newStatus = Order.OrderStatus.valueOf(status.toUpperCase());
-            Order updated = orderService.updateStatus(id, newStatus);
-            return Response.ok(updated).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(new UserResource.ErrorResponse(e.getMessage())).build();
-        }
+        return database.supply(() -> {
+            try {
+                Order.OrderStatus newStatus = Order.OrderStatus.valueOf(status.toUpperCase());
+                Order updated = orderService.updateStatus(id, newStatus);
+                return Response.ok(OrderView.from(updated)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
+    }
+    
+    @POST
+    @Idempotent
+    @Path("/status:batch")
+    @Operation(summary = "Update order statuses in bulk", description = "Move many orders to a status with one conditional "
+        + "update per chunk, committing in chunks. Each order gets its own result; orders whose status may not precede "
+        + "the new one are reported without stopping the others. Cancelling and refunding are not supported in bulk")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch processed; see the per-order results",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderStatusBatchResult.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid status, or empty or oversized batch")
+    })
+    public CompletionStage<Response> updateStatusBatch(StatusBatchRequest request,
+                                                       @Parameter(description = "Orders committed per transaction (max 5000)") @QueryParam("chunkSize") @DefaultValue("1000") int chunkSize) {
+        return database.supply(() -> {
+            try {
+                if (request == null || request.status == null) {
+                    throw new IllegalArgumentException("Status is required");
+                }
+                Order.OrderStatus newStatus = Order.OrderStatus.valueOf(request.status.toUpperCase());
+                return Response.ok(orderService.updateStatus(request.ids, newStatus, chunkSize)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     @POST
@@ -112,16 +235,18 @@ public class OrderResource {
     @Operation(summary = "Cancel order", description = "Cancel an existing order")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Order cancelled successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Order.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderView.class))),
         @ApiResponse(responseCode = "400", description = "Invalid request")
     })
-    public Response cancel(@Parameter(description = "Order UUID") @PathParam("id") UUID id) {
-        try {
-            Order cancelled = orderService.cancel(id);
-            return Response.ok(cancelled).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(new UserResource.ErrorResponse(e.getMessage())).build();
-        }
+    public CompletionStage<Response> cancel(@Parameter(description = "Order UUID") @PathParam("id") UUID id) {
+        return database.supply(() -> {
+            try {
+                Order cancelled = orderService.cancel(id);
+                return Response.ok(OrderView.from(cancelled)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
 }
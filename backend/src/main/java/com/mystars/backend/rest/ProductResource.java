@@ -1,6 +1,14 @@
 package com.mystars.backend.rest;
 
+import com.mystars.backend.catalog.ProductFacets;
+import com.mystars.backend.catalog.ProductSuggestion;
+import com.mystars.backend.catalog.ProductView;
+import com.mystars.backend.dto.ProductBatchResult;
 import com.mystars.backend.entity.Product;
+import com.mystars.backend.repository.FieldSet;
+import com.mystars.backend.repository.KeysetSort;
+import com.mystars.backend.repository.ProductFilter;
+import com.mystars.backend.service.InsufficientStockException;
 import com.mystars.backend.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,99 +19,269 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
 
 /**
  * REST controller for Product operations.
  */
 @Path("/products")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, Cbor.APPLICATION_CBOR})
+@Consumes({MediaType.APPLICATION_JSON, Cbor.APPLICATION_CBOR})
 @Tag(name = "Products", description = "Product management endpoints")
 public class ProductResource {
     
     @Inject
     private ProductService productService;
     
+    @Inject
+    private DatabaseBulkhead database;
+    
     @GET
-    @Operation(summary = "Get all products", description = "Retrieve all products with optional filters")
+    @CachedResponse({ResponseCache.PRODUCTS, ResponseCache.CATEGORIES})
+    @Operation(summary = "Get all products", description = "Retrieve a page of products matching all given filters, using cursor pagination")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Products retrieved successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class)))
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductView.class))),
+        @ApiResponse(responseCode = "304", description = "Catalog unchanged since the client's copy"),
+        @ApiResponse(responseCode = "400", description = "Invalid sort, cursor or field")
     })
-    public List<Product> findAll(
+    public CompletionStage<Response> findAll(
+            @Context Request request,
             @Parameter(description = "Filter by active status") @QueryParam("active") Boolean active,
-            @Parameter(description = "Filter by category ID") @QueryParam("category") UUID categoryId,
-            @Parameter(description = "Search by product name") @QueryParam("search") String search,
+            @Parameter(description = "Filter by category ID, including its subcategories") @QueryParam("category") UUID categoryId,
+            @Parameter(description = "Search by product name, description or SKU") @QueryParam("search") String search,
             @Parameter(description = "Minimum price") @QueryParam("minPrice") BigDecimal minPrice,
-            @Parameter(description = "Maximum price") @QueryParam("maxPrice") BigDecimal maxPrice) {
-        
-        if (active != null && active) {
-            return productService.findActive();
-        }
-        
+            @Parameter(description = "Maximum price") @QueryParam("maxPrice") BigDecimal maxPrice,
+            @Parameter(description = "Only products with stock") @QueryParam("inStock") boolean inStock,
+            @Parameter(description = "Sort order: name, price, -price or newest") @QueryParam("sort") @DefaultValue("name") String sort,
+            @Parameter(description = "Cursor returned by the previous page") @QueryParam("cursor") String cursor,
+            @Parameter(description = "Page size (max 100)") @QueryParam("size") @DefaultValue("20") int size,
+            @Parameter(description = "Comma-separated fields to include; the ID is always included") @QueryParam("fields") String fields) {
+        boolean inMemory = search == null ? productService.isCatalogInMemory() : productService.isSearchInMemory();
+        return read(inMemory, () -> {
+            try {
+                ProductFilter filter = buildFilter(active, categoryId, search, minPrice, maxPrice, inStock);
+                filter.setSort(parseSort(sort));
+                FieldSet fieldSet = FieldSet.parse(fields, ProductView.FIELDS.keySet());
+                
+                return ConditionalRequests.respond(request, productService.findCatalogStamp(),
+                    () -> fieldSet != null
+                        ? productService.findPage(filter, cursor, size, fieldSet)
+                        : productService.findPage(filter, cursor, size));
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
+    }
+    
+    @GET
+    @Path("/facets")
+    @CachedResponse({ResponseCache.PRODUCTS, ResponseCache.CATEGORIES})
+    @Operation(summary = "Get product facet counts", description = "Count matching products per category, price range and stock, "
+        + "each facet counted with all other filters applied")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Facet counts retrieved successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductFacets.class))),
+        @ApiResponse(responseCode = "304", description = "Catalog unchanged since the client's copy")
+    })
+    public CompletionStage<Response> findFacets(
+            @Context Request request,
+            @Parameter(description = "Filter by active status") @QueryParam("active") Boolean active,
+            @Parameter(description = "Filter by category ID, including its subcategories") @QueryParam("category") UUID categoryId,
+            @Parameter(description = "Search by product name, description or SKU") @QueryParam("search") String search,
+            @Parameter(description = "Minimum price") @QueryParam("minPrice") BigDecimal minPrice,
+            @Parameter(description = "Maximum price") @QueryParam("maxPrice") BigDecimal maxPrice,
+            @Parameter(description = "Only products with stock") @QueryParam("inStock") boolean inStock) {
+        // Cold indexes are built from the snapshot, in memory
+        return read(productService.isCatalogInMemory(), () -> {
+            ProductFilter filter = buildFilter(active, categoryId, search, minPrice, maxPrice, inStock);
+            return ConditionalRequests.respond(request, productService.findCatalogStamp(),
+                () -> productService.findFacets(filter));
+        });
+    }
+    
+    /**
+     * Run a catalog read on the request thread when it is answered from memory, else behind
+     * the database bulkhead.
+     */
+    private <T> CompletionStage<T> read(boolean inMemory, Supplier<T> read) {
+        return inMemory ? CompletableFuture.completedFuture(read.get()) : database.supply(read);
+    }
+    
+    private ProductFilter buildFilter(Boolean active, UUID categoryId, String search,
+                                      BigDecimal minPrice, BigDecimal maxPrice, boolean inStock) {
+        ProductFilter filter = new ProductFilter();
+        filter.setActive(active);
         if (categoryId != null) {
-            return productService.findByCategory(categoryId);
+            filter.setCategoryIds(productService.findCategorySubtree(categoryId));
         }
-        
-        if (search != null && !search.isEmpty()) {
-            return productService.searchByName(search);
+        filter.setMinPrice(minPrice);
+        filter.setMaxPrice(maxPrice);
+        filter.setInStock(inStock);
+        filter.setText(search);
+        return filter;
+    }
+    
+    private KeysetSort parseSort(String sort) {
+        return switch (sort) {
+            case "name" -> KeysetSort.NAME;
+            case "price", "price-low" -> KeysetSort.PRICE;
+            case "-price", "price-high" -> KeysetSort.PRICE_DESC;
+            case "newest" -> KeysetSort.CREATED_AT_DESC;
+            default -> throw new IllegalArgumentException("Invalid sort: " + sort);
+        };
+    }
+    
+    @GET
+    @Path("/search")
+    @CachedResponse({ResponseCache.PRODUCTS, ResponseCache.CATEGORIES})
+    @Operation(summary = "Search products", description = "Full-text search over product name, description and SKU, ranked by relevance")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Matching products, best match first",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductView.class)))
+    })
+    public CompletionStage<List<ProductView>> search(
+            @Parameter(description = "Search terms; the last term also matches as a prefix") @QueryParam("q") String query,
+            @Parameter(description = "Maximum number of results (max 100)") @QueryParam("limit") @DefaultValue("20") int limit) {
+        if (query == null || query.isBlank()) {
+            return CompletableFuture.completedFuture(List.of());
         }
-        
-        if (minPrice != null && maxPrice != null) {
-            return productService.findByPriceRange(minPrice, maxPrice);
+        return read(productService.isSearchInMemory(), () -> productService.search(query, limit));
+    }
+    
+    @GET
+    @Path("/suggest")
+    @CachedResponse(ResponseCache.PRODUCTS)
+    @Operation(summary = "Suggest products", description = "Typeahead completions for a product name or SKU prefix, most popular first")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Suggestions retrieved successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductSuggestion.class)))
+    })
+    public CompletionStage<List<ProductSuggestion>> suggest(
+            @Parameter(description = "Start of a product name, a word in it, or a SKU") @QueryParam("prefix") String prefix,
+            @Parameter(description = "Maximum number of suggestions (max 10)") @QueryParam("limit") @DefaultValue("10") int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return CompletableFuture.completedFuture(List.of());
         }
-        
-        return productService.findAll();
+        return read(productService.isSuggestInMemory(), () -> productService.suggest(prefix, limit));
+    }
+    
+    @GET
+    @Path("/export")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Export products", description = "Stream every product as a JSON array, oldest first")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Products streamed",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductView.class)))
+    })
+    public Response export() {
+        return Response.ok(database.streaming(JsonExport.array(productService::export, JsonExport::writeProduct))).build();
     }
     
     @GET
     @Path("/{id}")
+    @CachedResponse
     @Operation(summary = "Get product by ID", description = "Retrieve a product by its unique identifier")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Product found",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductView.class))),
+        @ApiResponse(responseCode = "304", description = "Product unchanged since the client's copy"),
+        @ApiResponse(responseCode = "400", description = "Unknown field"),
         @ApiResponse(responseCode = "404", description = "Product not found")
     })
-    public Response findById(@Parameter(description = "Product UUID") @PathParam("id") UUID id) {
-        return productService.findById(id)
-            .map(product -> Response.ok(product).build())
-            .orElse(Response.status(Response.Status.NOT_FOUND).build());
+    public CompletionStage<Response> findById(@Context Request request, @Parameter(description = "Product UUID") @PathParam("id") UUID id,
+                       @Parameter(description = "Comma-separated fields to include; the ID is always included") @QueryParam("fields") String fields) {
+        return read(productService.isCatalogInMemory(), () -> {
+            try {
+                FieldSet fieldSet = FieldSet.parse(fields, ProductView.FIELDS.keySet());
+                return productService.findById(id)
+                    .map(product -> ConditionalRequests.respond(request, productService.changeStampOf(product),
+                        () -> fieldSet != null ? fieldSet.select(product, ProductView.FIELDS) : product))
+                    .orElse(Response.status(Response.Status.NOT_FOUND).build());
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     @GET
     @Path("/sku/{sku}")
+    @CachedResponse
     @Operation(summary = "Get product by SKU", description = "Retrieve a product by its SKU")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Product found",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductView.class))),
+        @ApiResponse(responseCode = "304", description = "Product unchanged since the client's copy"),
+        @ApiResponse(responseCode = "400", description = "Unknown field"),
         @ApiResponse(responseCode = "404", description = "Product not found")
     })
-    public Response findBySku(@Parameter(description = "Product SKU") @PathParam("sku") String sku) {
-        return productService.findBySku(sku)
-            .map(product -> Response.ok(product).build())
-            .orElse(Response.status(Response.Status.NOT_FOUND).build());
+    public CompletionStage<Response> findBySku(@Context Request request, @Parameter(description = "Product SKU") @PathParam("sku") String sku,
+                       @Parameter(description = "Comma-separated fields to include; the ID is always included") @QueryParam("fields") String fields) {
+        return read(productService.isCatalogInMemory(), () -> {
+            try {
+                FieldSet fieldSet = FieldSet.parse(fields, ProductView.FIELDS.keySet());
+                return productService.findBySku(sku)
+                    .map(product -> ConditionalRequests.respond(request, productService.changeStampOf(product),
+                        () -> fieldSet != null ? fieldSet.select(product, ProductView.FIELDS) : product))
+                    .orElse(Response.status(Response.Status.NOT_FOUND).build());
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     @POST
+    @Idempotent
     @Operation(summary = "Create product", description = "Create a new product")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Product created successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductView.class))),
         @ApiResponse(responseCode = "400", description = "Invalid request")
     })
-    public Response create(Product product) {
-        try {
-            Product created = productService.create(product);
-            return Response.status(Response.Status.CREATED).entity(created).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(new UserResource.ErrorResponse(e.getMessage())).build();
-        }
+    public CompletionStage<Response> create(Product product) {
+        return database.supply(() -> {
+            try {
+                Product created = productService.create(product);
+                return Response.status(Response.Status.CREATED).entity(ProductView.from(created)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
+    }
+    
+    @POST
+    @Idempotent
+    @Path("/batch")
+    @Operation(summary = "Create or update products in bulk", description = "Create the products without an ID and update "
+        + "those with one, committing in chunks. Each product gets its own result; one failing does not stop the others")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch processed; see the per-product results",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductBatchResult.class))),
+        @ApiResponse(responseCode = "400", description = "Empty or oversized batch")
+    })
+    public CompletionStage<Response> saveAll(List<Product> products,
+                                               @Parameter(description = "Products committed per transaction (max 1000)") @QueryParam("chunkSize") @DefaultValue("500") int chunkSize) {
+        return database.supply(() -> {
+            try {
+                return Response.ok(productService.saveAll(products, chunkSize)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     @PUT
@@ -111,39 +289,47 @@ public class ProductResource {
     @Operation(summary = "Update product", description = "Update an existing product")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Product updated successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductView.class))),
         @ApiResponse(responseCode = "400", description = "Invalid request"),
         @ApiResponse(responseCode = "404", description = "Product not found")
     })
-    public Response update(@Parameter(description = "Product UUID") @PathParam("id") UUID id, Product product) {
-        try {
-            product.setId(id);
-            Product updated = productService.update(product);
-            return Response.ok(updated).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(new UserResource.ErrorResponse(e.getMessage())).build();
-        }
+    public CompletionStage<Response> update(@Parameter(description = "Product UUID") @PathParam("id") UUID id, Product product) {
+        return database.supply(() -> {
+            try {
+                product.setId(id);
+                Product updated = productService.update(product);
+                return Response.ok(ProductView.from(updated)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     @PATCH
     @Path("/{id}/stock")
-    @Operation(summary = "Update product stock", description = "Update the stock quantity of a product")
+    @Operation(summary = "Update product stock", description = "Add to or remove from the stock quantity of a product")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Stock updated successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
-        @ApiResponse(responseCode = "404", description = "Product not found")
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductView.class))),
+        @ApiResponse(responseCode = "404", description = "Product not found"),
+        @ApiResponse(responseCode = "409", description = "Not enough stock to remove")
     })
-    public Response updateStock(
+    public CompletionStage<Response> updateStock(
             @Parameter(description = "Product UUID") @PathParam("id") UUID id, 
             @Parameter(description = "Quantity to add (positive) or remove (negative)") @QueryParam("quantity") int quantity) {
-        try {
-            Product updated = productService.updateStock(id, quantity);
-            return Response.ok(updated).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.NOT_FOUND)
-                .entity(new UserResource.ErrorResponse(e.getMessage())).build();
-        }
+        return database.supply(() -> {
+            try {
+                Product updated = productService.updateStock(id, quantity);
+                return Response.ok(ProductView.from(updated)).build();
+            } catch (InsufficientStockException e) {
+                return Response.status(Response.Status.CONFLICT)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     @DELETE
@@ -153,14 +339,16 @@ public class ProductResource {
         @ApiResponse(responseCode = "204", description = "Product deleted successfully"),
         @ApiResponse(responseCode = "404", description = "Product not found")
     })
-    public Response delete(@Parameter(description = "Product UUID") @PathParam("id") UUID id) {
-        try {
-            productService.delete(id);
-            return Response.noContent().build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.NOT_FOUND)
-                .entity(new UserResource.ErrorResponse(e.getMessage())).build();
-        }
+    public CompletionStage<Response> delete(@Parameter(description = "Product UUID") @PathParam("id") UUID id) {
+        return database.supply(() -> {
+            try {
+                productService.delete(id);
+                return Response.noContent().build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     @PATCH
@@ -168,16 +356,18 @@ public class ProductResource {
     @Operation(summary = "Deactivate product", description = "Deactivate a product (soft delete)")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Product deactivated successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductView.class))),
         @ApiResponse(responseCode = "404", description = "Product not found")
     })
-    public Response deactivate(@Parameter(description = "Product UUID") @PathParam("id") UUID id) {
-        try {
-            Product deactivated = productService.deactivate(id);
-            return Response.ok(deactivated).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.NOT_FOUND)
-                .entity(new UserResource.ErrorResponse(e.getMessage())).build();
-        }
+    public CompletionStage<Response> deactivate(@Parameter(description = "Product UUID") @PathParam("id") UUID id) {
+        return database.supply(() -> {
+            try {
+                Product deactivated = productService.deactivate(id);
+                return Response.ok(ProductView.from(deactivated)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
 }
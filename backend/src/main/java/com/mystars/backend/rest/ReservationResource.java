@@ -0,0 +1,123 @@
+package com.mystars.backend.rest;
+
+import com.mystars.backend.dto.ReservationView;
+import com.mystars.backend.dto.StockAvailability;
+import com.mystars.backend.entity.StockReservation;
+import com.mystars.backend.service.InsufficientStockException;
+import com.mystars.backend.service.ReservationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * REST controller for cart stock holds.
+ */
+@Path("/reservations")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@Tag(name = "Reservations", description = "Cart stock hold endpoints")
+public class ReservationResource {
+    
+    @Inject
+    private ReservationService reservationService;
+    
+    @Inject
+    private DatabaseBulkhead database;
+    
+    /**
+     * Reservation request DTO.
+     */
+    @Schema(description = "Stock hold request payload")
+    public static class ReservationRequest {
+        @Schema(description = "Product ID", requiredMode = Schema.RequiredMode.REQUIRED)
+        public UUID productId;
+        @Schema(description = "Quantity to hold", example = "1", requiredMode = Schema.RequiredMode.REQUIRED)
+        public int quantity;
+        @Schema(description = "Seconds until the hold expires (max 3600)", example = "900")
+        public Integer ttlSeconds;
+    }
+    
+    @POST
+    @Idempotent
+    @Operation(summary = "Create reservation", description = "Hold a quantity of a product for checkout until it expires")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Stock held successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReservationView.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid request"),
+        @ApiResponse(responseCode = "409", description = "Not enough stock")
+    })
+    public CompletionStage<Response> create(ReservationRequest request) {
+        return database.supply(() -> {
+            if (request == null) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse("Request body is required")).build();
+            }
+            try {
+                StockReservation created = reservationService.create(request.productId, request.quantity, request.ttlSeconds);
+                return Response.status(Response.Status.CREATED).entity(ReservationView.from(created)).build();
+            } catch (InsufficientStockException e) {
+                return Response.status(Response.Status.CONFLICT)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
+    }
+    
+    @GET
+    @Path("/availability")
+    @Operation(summary = "Get stock availability", description = "Get the stock of products available to new holds and checkouts")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Availability of the products found",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = StockAvailability.class)))
+    })
+    public CompletionStage<List<StockAvailability>> findAvailability(
+            @Parameter(description = "Product UUIDs") @QueryParam("productId") List<UUID> productIds) {
+        return database.supply(() -> reservationService.findAvailability(productIds));
+    }
+    
+    @GET
+    @Path("/{id}")
+    @Operation(summary = "Get reservation by ID", description = "Retrieve a stock hold by its ID")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Reservation found",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReservationView.class))),
+        @ApiResponse(responseCode = "404", description = "Reservation not found")
+    })
+    public CompletionStage<Response> findById(@Parameter(description = "Reservation UUID") @PathParam("id") UUID id) {
+        return database.supply(() -> reservationService.findById(id)
+            .map(reservation -> Response.ok(ReservationView.from(reservation)).build())
+            .orElse(Response.status(Response.Status.NOT_FOUND).build()));
+    }
+    
+    @DELETE
+    @Path("/{id}")
+    @Operation(summary = "Release reservation", description = "Release a stock hold before it expires")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Reservation released"),
+        @ApiResponse(responseCode = "404", description = "Reservation not found")
+    })
+    public CompletionStage<Response> release(@Parameter(description = "Reservation UUID") @PathParam("id") UUID id) {
+        return database.supply(() -> {
+            try {
+                reservationService.release(id);
+                return Response.noContent().build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new UserResource.ErrorResponse(e.getMessage())).build();
+            }
+        });
+    }
+}
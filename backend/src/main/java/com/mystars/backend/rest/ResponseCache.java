@@ -0,0 +1,256 @@
+package com.mystars.backend.rest;
+
+import com.mystars.backend.service.CategoryChangedEvent;
+import com.mystars.backend.service.ProductChangedEvent;
+import com.mystars.backend.service.ProductsSavedEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.interceptor.Interceptor;
+import jakarta.ws.rs.core.EntityTag;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size-bounded cache of serialized responses. Each entry keeps the JSON body and its gzip
+ * encoding in one direct buffer outside the Java heap, and is evicted least recently used
+ * first once the total size exceeds {@link #MAX_BYTES}. Entries are tagged, and committed
+ * product and category writes evict exactly the entries whose tags they touch.
+ * Concurrent misses for the same key are coalesced: the first computes the entry while the
+ * others wait a bounded time for it.
+ */
+@ApplicationScoped
+public class ResponseCache {
+
+    /**
+     * Tag of responses that list products, or are computed over all of them.
+     */
+    public static final String PRODUCTS = "products";
+
+    /**
+     * Tag of responses that list categories or embed category names.
+     */
+    public static final String CATEGORIES = "categories";
+
+    static final long MAX_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Entries larger than this are not cached, so one response cannot flush the whole cache.
+     */
+    static final int MAX_ENTRY_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * Longest a miss waits for a concurrent miss on the same key before computing its own response.
+     * Cached endpoints mostly answer from memory within a few milliseconds; a slower miss is not
+     * worth holding request threads for, so later misses stop waiting on it after this.
+     */
+    static final long MAX_FLIGHT_WAIT_MS = 50;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Set<String>> keysByTag = new HashMap<>();
+    private long totalBytes;
+    private long generation;
+    private final Map<String, CompletableFuture<Entry>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Tag of responses that contain the product with the given ID.
+     */
+    public static String productTag(UUID id) {
+        return "product:" + id;
+    }
+
+    /**
+     * Tag of responses that contain the category with the given ID.
+     */
+    public static String categoryTag(UUID id) {
+        return "category:" + id;
+    }
+
+    /**
+     * Cached entry for a key, or null.
+     */
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Current eviction generation. A response built after reading the generation may only be
+     * stored with it, so a response computed from data that changed meanwhile is never cached.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Register a computation of the entry for a key, to be completed with the stored entry or
+     * with null. Returns the computation already pending for the key, if any, in which case the
+     * given one is not registered. A computation is dropped once complete or after
+     * {@link #MAX_FLIGHT_WAIT_MS}, so one that never completes does not hold up later misses.
+     */
+    public CompletableFuture<Entry> startFlight(String key, CompletableFuture<Entry> flight) {
+        CompletableFuture<Entry> pending = flights.putIfAbsent(key, flight);
+        if (pending == null) {
+            flight.orTimeout(MAX_FLIGHT_WAIT_MS, TimeUnit.MILLISECONDS)
+                .whenComplete((entry, error) -> flights.remove(key, flight));
+        }
+        return pending;
+    }
+
+    /**
+     * Store an entry unless an eviction happened since the given generation was read.
+     * Returns whether it was stored.
+     */
+    public synchronized boolean put(String key, Entry entry, long seenGeneration) {
+        if (seenGeneration != generation || entry.size() > MAX_ENTRY_BYTES) {
+            return false;
+        }
+        remove(key);
+        entries.put(key, entry);
+        totalBytes += entry.size();
+        for (String tag : entry.tags) {
+            keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+        }
+        
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > MAX_BYTES && eldest.hasNext()) {
+            Map.Entry<String, Entry> next = eldest.next();
+            eldest.remove();
+            forget(next.getKey(), next.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * Evict every entry carrying any of the tags.
+     */
+    public synchronized void evict(String... tags) {
+        generation++;
+        for (String tag : tags) {
+            Set<String> keys = keysByTag.remove(tag);
+            if (keys != null) {
+                for (String key : keys) {
+                    remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Evict everything.
+     */
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+        keysByTag.clear();
+        totalBytes = 0;
+    }
+
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    // Runs after the catalog snapshot and category tree have applied the write
+    void onProductChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+                          @Priority(Interceptor.Priority.LIBRARY_AFTER) ProductChangedEvent event) {
+        evict(productTag(event.getId()), PRODUCTS);
+    }
+
+    void onProductsSaved(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+                         @Priority(Interceptor.Priority.LIBRARY_AFTER) ProductsSavedEvent event) {
+        List<String> tags = new ArrayList<>(event.getProducts().size() + 1);
+        tags.add(PRODUCTS);
+        event.getProducts().forEach(product -> tags.add(productTag(product.getId())));
+        evict(tags.toArray(new String[0]));
+    }
+
+    void onCategoryChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+                           @Priority(Interceptor.Priority.LIBRARY_AFTER) CategoryChangedEvent event) {
+        evict(categoryTag(event.getId()), CATEGORIES);
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            forget(key, removed);
+        }
+    }
+
+    private void forget(String key, Entry entry) {
+        totalBytes -= entry.size();
+        for (String tag : entry.tags) {
+            Set<String> keys = keysByTag.get(tag);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTag.remove(tag);
+                }
+            }
+        }
+    }
+
+    /**
+     * A serialized response: the identity and gzip bodies in one direct buffer, with the
+     * headers needed to answer conditional requests without rebuilding the entity.
+     */
+    public static final class Entry {
+        private final ByteBuffer body;
+        private final int identityLength;
+        private final String mediaType;
+        private final EntityTag entityTag;
+        private final Date lastModified;
+        private final Set<String> tags;
+
+        Entry(byte[] identity, byte[] gzip, String mediaType, EntityTag entityTag, Date lastModified, Set<String> tags) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(identity.length + gzip.length);
+            buffer.put(identity).put(gzip).flip();
+            this.body = buffer.asReadOnlyBuffer();
+            this.identityLength = identity.length;
+            this.mediaType = mediaType;
+            this.entityTag = entityTag;
+            this.lastModified = lastModified;
+            this.tags = Set.copyOf(tags);
+        }
+
+        /**
+         * A read-only view of the body in the requested encoding, with its own position.
+         */
+        ByteBuffer body(boolean gzip) {
+            ByteBuffer view = body.duplicate();
+            if (gzip) {
+                view.position(identityLength);
+            } else {
+                view.limit(identityLength);
+            }
+            return view.slice();
+        }
+
+        int size() {
+            return body.capacity();
+        }
+
+        String getMediaType() {
+            return mediaType;
+        }
+
+        EntityTag getEntityTag() {
+            return entityTag;
+        }
+
+        Date getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.mystars.backend.rest;
+
+import com.mystars.backend.catalog.CategoryTreeNode;
+import com.mystars.backend.catalog.CategoryView;
+import com.mystars.backend.catalog.ProductView;
+import com.mystars.backend.repository.FieldSet;
+import com.mystars.backend.repository.Page;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.Providers;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves {@link CachedResponse} endpoints from the {@link ResponseCache}. A hit answers the
+ * request before the resource runs, with 304 when the client's validators match or else the
+ * stored bytes, gzip-encoded when the client accepts it. On a miss the resource's 200 response
+ * is serialized once by the JSON provider that would otherwise write it, stored, and sent as
+ * those bytes. Misses that arrive while another miss for the same key is being computed wait
+ * briefly for its bytes instead of running the resource again, and run it themselves if it is
+ * not done by then or yields nothing to share; the wait is kept short because it holds the
+ * request thread.
+ * Runs after {@link ConditionalGetFilter} on responses, so stored entries carry its validators.
+ */
+@Provider
+@CachedResponse
+@Priority(Priorities.USER - 100)
+public class ResponseCacheFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final Logger LOGGER = Logger.getLogger(ResponseCacheFilter.class.getName());
+    private static final String KEY_PROPERTY = ResponseCacheFilter.class.getName() + ".key";
+    private static final String GENERATION_PROPERTY = ResponseCacheFilter.class.getName() + ".generation";
+    private static final String FLIGHT_PROPERTY = ResponseCacheFilter.class.getName() + ".flight";
+
+    @Inject
+    private ResponseCache cache;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Context
+    private Providers providers;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!HttpMethod.GET.equals(requestContext.getMethod())) {
+            return;
+        }
+        String key = keyOf(requestContext);
+        ResponseCache.Entry entry = cache.get(key);
+        // Only the client's preferred type is served from the cache, so CBOR clients still get CBOR
+        MediaType preferred = requestContext.getAcceptableMediaTypes().get(0);
+        if (entry != null && preferred.isCompatible(MediaType.valueOf(entry.getMediaType()))) {
+            requestContext.abortWith(respond(requestContext, entry));
+            return;
+        }
+        if (preferred.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+            CompletableFuture<ResponseCache.Entry> flight = new CompletableFuture<>();
+            CompletableFuture<ResponseCache.Entry> pending = cache.startFlight(key, flight);
+            if (pending == null) {
+                requestContext.setProperty(FLIGHT_PROPERTY, flight);
+            } else {
+                entry = await(pending);
+                if (entry != null) {
+                    requestContext.abortWith(respond(requestContext, entry));
+                    return;
+                }
+            }
+        }
+        requestContext.setProperty(KEY_PROPERTY, key);
+        requestContext.setProperty(GENERATION_PROPERTY, cache.generation());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        CompletableFuture<ResponseCache.Entry> flight =
+            (CompletableFuture<ResponseCache.Entry>) requestContext.getProperty(FLIGHT_PROPERTY);
+        ResponseCache.Entry stored = null;
+        try {
+            stored = store(requestContext, responseContext);
+        } finally {
+            // Waiting misses get the stored bytes, or run the resource themselves
+            if (flight != null) {
+                flight.complete(stored);
+            }
+        }
+    }
+
+    /**
+     * Serialize and cache a cacheable response and replace its entity with the bytes.
+     * Returns the stored entry, or null if nothing was stored.
+     */
+    private ResponseCache.Entry store(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        String key = (String) requestContext.getProperty(KEY_PROPERTY);
+        Object entity = responseContext.getEntity();
+        if (key == null || entity == null || responseContext.getStatus() != Response.Status.OK.getStatusCode()
+            || !MediaType.APPLICATION_JSON_TYPE.isCompatible(responseContext.getMediaType())) {
+            return null;
+        }
+
+        byte[] identity;
+        try {
+            identity = IdempotencyFilter.serialize(providers, responseContext);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not cache response for " + key, e);
+            return null;
+        }
+        byte[] gzip = Gzip.encode(identity);
+        ResponseCache.Entry entry = new ResponseCache.Entry(identity, gzip, MediaType.APPLICATION_JSON,
+            responseContext.getEntityTag(), responseContext.getLastModified(), tagsOf(entity));
+        boolean stored = cache.put(key, entry, (Long) requestContext.getProperty(GENERATION_PROPERTY));
+
+        boolean encode = Gzip.isAccepted(requestContext);
+        responseContext.setEntity(encode ? gzip : identity, null, MediaType.APPLICATION_JSON_TYPE);
+        responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (encode) {
+            responseContext.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, Gzip.CODING);
+        }
+        // An entry built across an eviction may be stale, so it is not shared either
+        return stored ? entry : null;
+    }
+
+    /**
+     * Entry computed by a concurrent miss, or null if it stored none within the bounded wait.
+     */
+    private static ResponseCache.Entry await(CompletableFuture<ResponseCache.Entry> pending) {
+        try {
+            return pending.get(ResponseCache.MAX_FLIGHT_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.log(Level.FINE, "Concurrent response not available, computing it again", e);
+            return null;
+        }
+    }
+
+    /**
+     * Request path and query parameters sorted by name, so parameter order does not matter.
+     */
+    private static String keyOf(ContainerRequestContext requestContext) {
+        MultivaluedMap<String, String> parameters = requestContext.getUriInfo().getQueryParameters();
+        StringBuilder key = new StringBuilder(requestContext.getUriInfo().getPath());
+        char separator = '?';
+        for (String name : parameters.keySet().stream().sorted().toList()) {
+            for (String value : parameters.get(name)) {
+                key.append(separator).append(name).append('=').append(value);
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    private Response respond(ContainerRequestContext requestContext, ResponseCache.Entry entry) {
+        EntityTag entityTag = entry.getEntityTag();
+        if (entityTag != null) {
+            Response.ResponseBuilder notModified = entry.getLastModified() != null
+                ? requestContext.getRequest().evaluatePreconditions(entry.getLastModified(), entityTag)
+                : requestContext.getRequest().evaluatePreconditions(entityTag);
+            if (notModified != null) {
+                return withValidators(notModified, entityTag, entry).build();
+            }
+        }
+
+        boolean encode = Gzip.isAccepted(requestContext);
+        ByteBuffer body = entry.body(encode);
+        StreamingOutput output = stream -> Channels.newChannel(stream).write(body);
+        Response.ResponseBuilder builder = Response.ok(output, entry.getMediaType())
+            .header(HttpHeaders.CONTENT_LENGTH, body.remaining())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (encode) {
+            builder.encoding(Gzip.CODING);
+        }
+        return entityTag != null ? withValidators(builder, entityTag, entry).build() : builder.build();
+    }
+
+    private static Response.ResponseBuilder withValidators(Response.ResponseBuilder builder, EntityTag entityTag,
+                                                           ResponseCache.Entry entry) {
+        builder.tag(entityTag).cacheControl(ConditionalRequests.cacheControl());
+        if (entry.getLastModified() != null) {
+            builder.lastModified(entry.getLastModified());
+        }
+        return builder;
+    }
+
+    /**
+     * Collection tags declared on the endpoint plus the tags of the entities in the response.
+     */
+    private Set<String> tagsOf(Object entity) {
+        Set<String> tags = new HashSet<>();
+        CachedResponse cached = resourceInfo.getResourceMethod().getAnnotation(CachedResponse.class);
+        if (cached != null) {
+            tags.addAll(Arrays.asList(cached.value()));
+        }
+        List<Object> items = new ArrayList<>();
+        if (entity instanceof Page<?> page) {
+            items.addAll(page.getData());
+        } else if (entity instanceof Collection<?> collection) {
+            items.addAll(collection);
+        } else {
+            items.add(entity);
+        }
+        for (Object item : items) {
+            if (item instanceof ProductView product) {
+                tags.add(ResponseCache.productTag(product.getId()));
+                if (product.getCategory() != null) {
+                    tags.add(ResponseCache.categoryTag(product.getCategory().getId()));
+                }
+            } else if (item instanceof CategoryView category) {
+                tags.add(ResponseCache.categoryTag(category.getId()));
+            } else if (item instanceof CategoryTreeNode) {
+                tags.add(ResponseCache.CATEGORIES);
+            } else if (item instanceof Map<?, ?> row && row.get(FieldSet.ID) instanceof UUID id) {
+                // A sparse row does not say what it is; IDs are unique, so tag it as either
+                tags.add(ResponseCache.productTag(id));
+                tags.add(ResponseCache.categoryTag(id));
+                if (row.get("category") instanceof ProductView.CategoryRef category) {
+                    tags.add(ResponseCache.categoryTag(category.getId()));
+                }
+            }
+        }
+        return tags;
+    }
+}
@@ -1,6 +1,8 @@
 package com.mystars.backend.rest;
 
+import com.mystars.backend.dto.UserView;
 import com.mystars.backend.entity.User;
+import com.mystars.backend.repository.Page;
 import com.mystars.backend.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -15,27 +17,42 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 /**
  * REST controller for User operations.
  */
 @Path("/users")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, Cbor.APPLICATION_CBOR})
+@Consumes({MediaType.APPLICATION_JSON, Cbor.APPLICATION_CBOR})
 @Tag(name = "Users", description = "User management endpoints")
 public class UserResource {
     
     @Inject
     private UserService userService;
     
+    @Inject
+    private DatabaseBulkhead database;
+    
     @GET
-    @Operation(summary = "Get all users", description = "Retrieve all users")
+    @Operation(summary = "Get all users", description = "Retrieve a page of users, using cursor pagination")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Users retrieved successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class)))
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserView.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor")
     })
-    public List<User> findAll() {
-        return userService.findAll();
+    public CompletionStage<Response> findAll(
+            @Parameter(description = "Cursor returned by the previous page") @QueryParam("cursor") String cursor,
+            @Parameter(description = "Page size (max 100)") @QueryParam("size") @DefaultValue("20") int size) {
+        return database.supply(() -> {
+            try {
+                Page<UserView> page = userService.findPage(cursor, size);
+                return Response.ok(page).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     @GET
@@ -43,13 +60,13 @@ public class UserResource {
     @Operation(summary = "Get user by ID", description = "Retrieve a user by its unique identifier")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "User found",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserView.class))),
         @ApiResponse(responseCode = "404", description = "User not found")
     })
-    public Response findById(@Parameter(description = "User UUID") @PathParam("id") UUID id) {
-        return userService.findById(id)
+    public CompletionStage<Response> findById(@Parameter(description = "User UUID") @PathParam("id") UUID id) {
+        return database.supply(() -> userService.findById(id)
             .map(user -> Response.ok(user).build())
-            .orElse(Response.status(Response.Status.NOT_FOUND).build());
+            .orElse(Response.status(Response.Status.NOT_FOUND).build()));
     }
     
     @GET
@@ -57,28 +74,33 @@ public class UserResource {
     @Operation(summary = "Get users by role", description = "Retrieve all users with a specific role")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Users retrieved successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class)))
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserView.class)))
     })
-    public List<User> findByRole(@Parameter(description = "User role") @PathParam("role") String role) {
-        User.UserRole userRole = User.UserRole.valueOf(role.toUpperCase());
-        return userService.findByRole(userRole);
+    public CompletionStage<List<UserView>> findByRole(@Parameter(description = "User role") @PathParam("role") String role) {
+        return database.supply(() -> {
+            User.UserRole userRole = User.UserRole.valueOf(role.toUpperCase());
+            return userService.findByRole(userRole);
+        });
     }
     
     @POST
+    @Idempotent
     @Operation(summary = "Create user", description = "Create a new user (admin only)")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "User created successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserView.class))),
         @ApiResponse(responseCode = "400", description = "Invalid request")
     })
-    public Response create(User user) {
-        try {
-            User created = userService.create(user);
-            return Response.status(Response.Status.CREATED).entity(created).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(new ErrorResponse(e.getMessage())).build();
-        }
+    public CompletionStage<Response> create(User user) {
+        return database.supply(() -> {
+            try {
+                User created = userService.create(user);
+                return Response.status(Response.Status.CREATED).entity(UserView.from(created)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     @PUT
@@ -86,19 +108,21 @@ public class UserResource {
     @Operation(summary = "Update user", description = "Update an existing user")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "User updated successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserView.class))),
         @ApiResponse(responseCode = "400", description = "Invalid request"),
         @ApiResponse(responseCode = "404", description = "User not found")
     })
-    public Response update(@Parameter(description = "User UUID") @PathParam("id") UUID id, User user) {
-        try {
-            user.setId(id);
-            User updated = userService.update(user);
-            return Response.ok(updated).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(new ErrorResponse(e.getMessage())).build();
-        }
+    public CompletionStage<Response> update(@Parameter(description = "User UUID") @PathParam("id") UUID id, User user) {
+        return database.supply(() -> {
+            try {
+                user.setId(id);
+                User updated = userService.update(user);
+                return Response.ok(UserView.from(updated)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     @DELETE
@@ -108,14 +132,16 @@ public class UserResource {
         @ApiResponse(responseCode = "204", description = "User deleted successfully"),
         @ApiResponse(responseCode = "404", description = "User not found")
     })
-    public Response delete(@Parameter(description = "User UUID") @PathParam("id") UUID id) {
-        try {
-            userService.delete(id);
-            return Response.noContent().build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.NOT_FOUND)
-                .entity(new ErrorResponse(e.getMessage())).build();
-        }
+    public CompletionStage<Response> delete(@Parameter(description = "User UUID") @PathParam("id") UUID id) {
+        return database.supply(() -> {
+            try {
+                userService.delete(id);
+                return Response.noContent().build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     @PATCH
@@ -123,17 +149,19 @@ public class UserResource {
     @Operation(summary = "Deactivate user", description = "Deactivate a user account")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "User deactivated successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserView.class))),
         @ApiResponse(responseCode = "404", description = "User not found")
     })
-    public Response deactivate(@Parameter(description = "User UUID") @PathParam("id") UUID id) {
-        try {
-            User deactivated = userService.deactivate(id);
-            return Response.ok(deactivated).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.NOT_FOUND)
-                .entity(new ErrorResponse(e.getMessage())).build();
-        }
+    public CompletionStage<Response> deactivate(@Parameter(description = "User UUID") @PathParam("id") UUID id) {
+        return database.supply(() -> {
+            try {
+                User deactivated = userService.deactivate(id);
+                return Response.ok(UserView.from(deactivated)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     @PATCH
@@ -141,17 +169,19 @@ public class UserResource {
     @Operation(summary = "Activate user", description = "Activate a user account")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "User activated successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserView.class))),
         @ApiResponse(responseCode = "404", description = "User not found")
     })
-    public Response activate(@Parameter(description = "User UUID") @PathParam("id") UUID id) {
-        try {
-            User activated = userService.activate(id);
-            return Response.ok(activated).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.NOT_FOUND)
-                .entity(new ErrorResponse(e.getMessage())).build();
-        }
+    public CompletionStage<Response> activate(@Parameter(description = "User UUID") @PathParam("id") UUID id) {
+        return database.supply(() -> {
+            try {
+                User activated = userService.activate(id);
+                return Response.ok(UserView.from(activated)).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new ErrorResponse(e.getMessage())).build();
+            }
+        });
     }
     
     /**
@@ -0,0 +1,81 @@
+package com.mystars.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+
+/**
+ * Runs the application's background work: periodic sweeps and flushes, and work kicked off
+ * after a commit. Tasks run on the container's default managed scheduled executor, so the
+ * server owns the threads and tasks get its naming and transaction context; without one, they
+ * share a small pool of daemon threads owned by this bean. Tasks are cancelled on shutdown.
+ */
+@ApplicationScoped
+public class BackgroundScheduler {
+
+    /**
+     * JNDI name of the default managed scheduled executor of a Jakarta EE server.
+     */
+    static final String MANAGED_EXECUTOR = "java:comp/DefaultManagedScheduledExecutorService";
+
+    private static final int FALLBACK_THREADS = 4;
+
+    private static final Logger LOGGER = Logger.getLogger(BackgroundScheduler.class.getName());
+
+    private final List<ScheduledFuture<?>> scheduled = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService executor;
+    private boolean owned;
+
+    @PostConstruct
+    void init() {
+        try {
+            if (new InitialContext().lookup(MANAGED_EXECUTOR) instanceof ScheduledExecutorService managed) {
+                executor = managed;
+                return;
+            }
+        } catch (NamingException e) {
+            LOGGER.log(Level.FINE, "No managed scheduled executor", e);
+        }
+        LOGGER.info("No managed scheduled executor at " + MANAGED_EXECUTOR + ", using own threads");
+        executor = Executors.newScheduledThreadPool(FALLBACK_THREADS,
+            Thread.ofPlatform().daemon().name("background-", 0).factory());
+        owned = true;
+    }
+
+    /**
+     * Run the task repeatedly, each run starting the given delay after the previous one ends.
+     *
+     * @return the scheduled task, which callers may cancel before shutdown
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long initialDelayMs, long delayMs) {
+        ScheduledFuture<?> future = executor.scheduleWithFixedDelay(task, initialDelayMs, delayMs, TimeUnit.MILLISECONDS);
+        scheduled.add(future);
+        return future;
+    }
+
+    /**
+     * Run the task once, as soon as a thread is free.
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduled.forEach(future -> future.cancel(false));
+        // A managed executor's lifecycle belongs to the server
+        if (owned) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.mystars.backend.service;
+
+import java.util.UUID;
+
+/**
+ * CDI event fired when a category is created, updated or deleted.
+ */
+public class CategoryChangedEvent {
+    
+    private final UUID id;
+    private final String name;
+    
+    public CategoryChangedEvent(UUID id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+    
+    public UUID getId() {
+        return id;
+    }
+    
+    /**
+     * Name of the category after the change, or null if it was deleted.
+     */
+    public String getName() {
+        return name;
+    }
+}
@@ -1,8 +1,13 @@
 package com.mystars.backend.service;
 
+import com.mystars.backend.catalog.CategoryHierarchy;
+import com.mystars.backend.catalog.CategoryTreeNode;
+import com.mystars.backend.catalog.CategoryView;
 import com.mystars.backend.entity.Category;
+import com.mystars.backend.repository.ChangeStamp;
 import com.mystars.backend.repository.CategoryRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.util.List;
@@ -18,11 +23,24 @@ public class CategoryService {
     @Inject
     private CategoryRepository categoryRepository;
     
+    @Inject
+    private CategoryHierarchy categoryHierarchy;
+    
+    @Inject
+    private Event<CategoryChangedEvent> categoryChanged;
+    
     /**
      * Find category by ID.
      */
-    public Optional<Category> findById(UUID id) {
-        return categoryRepository.findById(id);
+    public Optional<CategoryView> findById(UUID id) {
+        return categoryHierarchy.tree().findById(id);
+    }
+    
+    /**
+     * Count and latest update time over all categories.
+     */
+    public ChangeStamp findChangeStamp() {
+        return categoryHierarchy.tree().changeStamp();
     }
     
     /**
@@ -33,31 +51,54 @@ public class CategoryService {
     }
     
     /**
-     * Find all categories.
+     * Find all categories, parents before their children.
      */
-    public List<Category> findAll() {
-        return categoryRepository.findAll();
+    public List<CategoryView> findAll() {
+        return categoryHierarchy.tree().categories();
     }
     
     /**
      * Find active categories.
      */
-    public List<Category> findActive() {
-        return categoryRepository.findByIsActiveTrue();
+    public List<CategoryView> findActive() {
+        return categoryHierarchy.tree().categories().stream()
+            .filter(category -> Boolean.TRUE.equals(category.getIsActive()))
+            .toList();
     }
     
     /**
      * Find root categories.
      */
-    public List<Category> findRootCategories() {
-        return categoryRepository.findByParentIsNull();
+    public List<CategoryView> findRootCategories() {
+        return categoryHierarchy.tree().roots();
     }
     
     /**
      * Find subcategories.
      */
-    public List<Category> findSubcategories(UUID parentId) {
-        return categoryRepository.findByParentId(parentId);
+    public List<CategoryView> findSubcategories(UUID parentId) {
+        return categoryHierarchy.tree().children(parentId);
+    }
+    
+    /**
+     * Find the whole category hierarchy as nested nodes.
+     */
+    public List<CategoryTreeNode> findTree() {
+        return categoryHierarchy.tree().tree();
+    }
+    
+    /**
+     * Find the categories from the root down to the given one.
+     */
+    public List<CategoryView> findPath(UUID id) {
+        return categoryHierarchy.tree().path(id);
+    }
+    
+    /**
+     * IDs of a category and all of its descendants.
+     */
+    public List<UUID> findSubtreeIds(UUID id) {
+        return categoryHierarchy.tree().subtreeIds(id);
     }
     
     /**
@@ -75,7 +116,9 @@ public class CategoryService {
             category.setParent(parent);
         }
         
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        categoryChanged.fire(new CategoryChangedEvent(saved.getId(), saved.getName()));
+        return saved;
     }
     
     /**
@@ -100,18 +143,24 @@ public class CategoryService {
         
         if (category.getParent() != null && category.getParent().getId() != null) {
             // Prevent circular reference
-            if (category.getParent().getId().equals(category.getId())) {
+            UUID parentId = category.getParent().getId();
+            if (parentId.equals(category.getId())) {
                 throw new IllegalArgumentException("Category cannot be its own parent");
             }
+            if (categoryHierarchy.tree().isDescendant(parentId, category.getId())) {
+                throw new IllegalArgumentException("Category cannot be moved under its own subcategory");
+            }
             
-            Category parent = categoryRepository.findById(category.getParent().getId())
+            Category parent = categoryRepository.findById(parentId)
                 .orElseThrow(() -> new IllegalArgumentException("Parent category not found"));
             existing.setParent(parent);
         } else {
             existing.setParent(null);
         }
         
-        return categoryRepository.save(existing);
+        Category saved = categoryRepository.save(existing);
+        categoryChanged.fire(new CategoryChangedEvent(saved.getId(), saved.getName()));
+        return saved;
     }
     
     /**
@@ -128,5 +177,6 @@ public class CategoryService {
         }
         
         categoryRepository.delete(category);
+        categoryChanged.fire(new CategoryChangedEvent(id, null));
     }
 }
@@ -0,0 +1,53 @@
+package com.mystars.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.util.concurrent.ScheduledFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically deletes expired idempotency records in batches, so the table holds only the
+ * responses still replayed.
+ */
+@ApplicationScoped
+public class IdempotencyKeySweeper {
+
+    static final long SWEEP_INTERVAL_MS = 600_000;
+    static final int SWEEP_BATCH_SIZE = 1_000;
+
+    private static final Logger LOGGER = Logger.getLogger(IdempotencyKeySweeper.class.getName());
+
+    @Inject
+    private IdempotencyService idempotencyService;
+
+    @Inject
+    private BackgroundScheduler scheduler;
+
+    private ScheduledFuture<?> sweeper;
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        sweeper = scheduler.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (sweeper != null) {
+            sweeper.cancel(false);
+        }
+    }
+
+    private void sweep() {
+        try {
+            while (idempotencyService.purgeExpired(SWEEP_BATCH_SIZE) == SWEEP_BATCH_SIZE) {
+                // Keep going while full batches are deleted
+            }
+        } catch (RuntimeException e) {
+            // Expired records are never replayed, so deleting them can wait for a later sweep
+            LOGGER.log(Level.WARNING, "Could not delete expired idempotency keys", e);
+        }
+    }
+}
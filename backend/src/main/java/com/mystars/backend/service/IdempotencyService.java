@@ -0,0 +1,93 @@
+package com.mystars.backend.service;
+
+import com.mystars.backend.entity.IdempotencyRecord;
+import com.mystars.backend.repository.IdempotencyRecordRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Service layer for idempotency keys. A request claims its key before it runs and stores its
+ * response when it finishes; each step is its own short transaction, so other requests with
+ * the key see the claim while the request is still running.
+ */
+@ApplicationScoped
+public class IdempotencyService {
+    
+    /**
+     * Hours a stored response is replayed to retries.
+     */
+    public static final int RETENTION_HOURS = 24;
+    
+    /**
+     * Seconds after which a claim whose request never finished, such as one cut off by a
+     * restart, can be taken over by a retry.
+     */
+    public static final int LEASE_SECONDS = 120;
+    
+    @Inject
+    private IdempotencyRecordRepository recordRepository;
+    
+    /**
+     * Claim the key for a request with the given fingerprint.
+     *
+     * @return the claim taken, or the record of the request holding the key
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public Attempt begin(String key, String fingerprint) {
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            Optional<Long> token = recordRepository.claim(key, fingerprint,
+                now.plusHours(RETENTION_HOURS), now.minusSeconds(LEASE_SECONDS));
+            if (token.isPresent()) {
+                return new Attempt(token.get(), null);
+            }
+            Optional<IdempotencyRecord> existing = recordRepository.findByKey(key);
+            if (existing.isPresent()) {
+                return new Attempt(null, existing.get());
+            }
+            // Released since the claim failed, so claim it again
+        }
+    }
+    
+    /**
+     * Store the response of the request holding the key with the token. Nothing is stored if
+     * the claim lapsed and was taken over by a retry.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void complete(String key, long token, int statusCode, String mediaType, byte[] body) {
+        recordRepository.complete(key, token, statusCode, mediaType, body);
+    }
+    
+    /**
+     * Give up the key of a request that failed without a response worth replaying, unless its
+     * claim with the token was taken over by a retry.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void release(String key, long token) {
+        recordRepository.release(key, token);
+    }
+    
+    /**
+     * Delete up to limit expired records.
+     *
+     * @return number of records deleted
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public int purgeExpired(int limit) {
+        return recordRepository.deleteExpired(LocalDateTime.now(), limit);
+    }
+    
+    /**
+     * Outcome of {@link #begin}: the token of the claim taken, to settle it with, or else the
+     * record of the request holding the key.
+     */
+    public record Attempt(Long token, IdempotencyRecord holder) {
+        
+        public boolean isClaimed() {
+            return holder == null;
+        }
+    }
+}
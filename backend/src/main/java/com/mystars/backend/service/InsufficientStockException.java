@@ -0,0 +1,15 @@
+package com.mystars.backend.service;
+
+/**
+ * Thrown when a stock change would take a product's stock below zero. It is an
+ * {@link IllegalArgumentException} like other rejected requests, so callers that do not
+ * tell it apart still answer 400; stock endpoints answer 409 Conflict.
+ */
+public class InsufficientStockException extends IllegalArgumentException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public InsufficientStockException(String productName) {
+        super("Insufficient stock for product: " + productName);
+    }
+}
@@ -0,0 +1,16 @@
+package com.mystars.backend.service;
+
+/**
+ * In-process consumer of order lifecycle events, such as notifications or analytics. Every
+ * CDI bean implementing it receives every event from the outbox dispatcher, off the request
+ * thread. A consumer that throws has the event delivered again later, to every consumer, so
+ * consumers must tolerate repeats. Consumers run outside any transaction; a {@code @Transactional}
+ * one gets its own, whose rollback affects only that consumer's writes.
+ */
+public interface OrderEventConsumer {
+    
+    /**
+     * Handle one event.
+     */
+    void accept(OrderLifecycleEvent event);
+}
@@ -0,0 +1,65 @@
+package com.mystars.backend.service;
+
+import com.mystars.backend.entity.Order;
+import jakarta.json.bind.annotation.JsonbCreator;
+import jakarta.json.bind.annotation.JsonbProperty;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Order creation or status change, delivered through the outbox to every
+ * {@link OrderEventConsumer} after the transaction that made it commits. Delivery is at least
+ * once; an order reaches each status at most once, so the order ID and status identify an event.
+ */
+public class OrderLifecycleEvent {
+    
+    private final UUID orderId;
+    private final UUID userId;
+    private final Order.OrderStatus previousStatus;
+    private final Order.OrderStatus status;
+    private final BigDecimal totalAmount;
+    private final LocalDateTime occurredAt;
+    
+    @JsonbCreator
+    public OrderLifecycleEvent(@JsonbProperty("orderId") UUID orderId,
+                               @JsonbProperty("userId") UUID userId,
+                               @JsonbProperty("previousStatus") Order.OrderStatus previousStatus,
+                               @JsonbProperty("status") Order.OrderStatus status,
+                               @JsonbProperty("totalAmount") BigDecimal totalAmount,
+                               @JsonbProperty("occurredAt") LocalDateTime occurredAt) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.occurredAt = occurredAt;
+    }
+    
+    public UUID getOrderId() {
+        return orderId;
+    }
+    
+    public UUID getUserId() {
+        return userId;
+    }
+    
+    /**
+     * Status before the change, or null when the order was created.
+     */
+    public Order.OrderStatus getPreviousStatus() {
+        return previousStatus;
+    }
+    
+    public Order.OrderStatus getStatus() {
+        return status;
+    }
+    
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+    
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -0,0 +1,80 @@
+package com.mystars.backend.service;
+
+import com.mystars.backend.entity.Order;
+import com.mystars.backend.entity.OutboxEvent;
+import com.mystars.backend.repository.OutboxEventRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records order lifecycle events in the outbox table, in the transaction of the order change,
+ * so an event exists exactly when its change was committed. {@link OutboxDispatcher} delivers
+ * them to the {@link OrderEventConsumer}s afterwards.
+ */
+@ApplicationScoped
+public class OrderOutbox {
+    
+    /**
+     * Outbox topic of {@link OrderLifecycleEvent}s.
+     */
+    public static final String TOPIC = "order.lifecycle";
+    
+    static final Jsonb JSONB = JsonbBuilder.create();
+    
+    @Inject
+    private OutboxEventRepository outboxRepository;
+    
+    @Inject
+    private Event<Appended> appended;
+    
+    /**
+     * Record that the order was created, when previousStatus is null, or moved from it to
+     * its current status.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void append(Order order, Order.OrderStatus previousStatus) {
+        outboxRepository.save(toOutboxEvent(new OrderLifecycleEvent(order.getId(),
+            order.getUser() != null ? order.getUser().getId() : null,
+            previousStatus, order.getStatus(), order.getTotalAmount(), LocalDateTime.now())));
+        appended.fire(new Appended());
+    }
+    
+    /**
+     * Record events of orders changed together, in JDBC batches. The caller's entities stay
+     * managed.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void appendAll(List<OrderLifecycleEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<OutboxEvent> outboxEvents = new ArrayList<>(events.size());
+        for (OrderLifecycleEvent event : events) {
+            outboxEvents.add(toOutboxEvent(event));
+        }
+        outboxRepository.saveAll(outboxEvents);
+        appended.fire(new Appended());
+    }
+    
+    private static OutboxEvent toOutboxEvent(OrderLifecycleEvent event) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setTopic(TOPIC);
+        outboxEvent.setAggregateId(event.getOrderId());
+        outboxEvent.setPayload(JSONB.toJson(event));
+        outboxEvent.setAvailableAt(event.getOccurredAt());
+        return outboxEvent;
+    }
+    
+    /**
+     * Fired for each batch of recorded events, so the dispatcher can deliver it as soon as it commits.
+     */
+    static final class Appended {
+    }
+}
@@ -1,19 +1,38 @@
 package com.mystars.backend.service;
 
+import com.mystars.backend.dto.OrderStatusBatchResult;
+import com.mystars.backend.dto.OrderSummary;
+import com.mystars.backend.dto.OrderView;
 import com.mystars.backend.entity.Order;
 import com.mystars.backend.entity.OrderItem;
 import com.mystars.backend.entity.Product;
 import com.mystars.backend.entity.User;
+import com.mystars.backend.repository.ChangeStamp;
+import com.mystars.backend.repository.FieldSet;
+import com.mystars.backend.repository.KeysetSort;
 import com.mystars.backend.repository.OrderRepository;
+import com.mystars.backend.repository.Page;
 import com.mystars.backend.repository.ProductRepository;
 import com.mystars.backend.repository.UserRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Service layer for Order operations.
@@ -21,6 +40,18 @@ import java.util.UUID;
 @ApplicationScoped
 public class OrderService {
     
+    private static final Logger LOGGER = Logger.getLogger(OrderService.class.getName());
+    
+    /**
+     * Most orders accepted by one bulk status change.
+     */
+    public static final int MAX_STATUS_BATCH_SIZE = 50_000;
+    
+    /**
+     * Most orders committed in one transaction of a bulk status change.
+     */
+    public static final int MAX_STATUS_CHUNK_SIZE = 5_000;
+    
     @Inject
     private OrderRepository orderRepository;
     
@@ -30,11 +61,47 @@ public class OrderService {
     @Inject
     private ProductRepository productRepository;
     
+    @Inject
+    private StockLedger stockLedger;
+    
+    @Inject
+    private ReservationService reservationService;
+    
+    @Inject
+    private OrderOutbox orderOutbox;
+    
+    @Inject
+    private OrderStatusBatchWriter statusBatchWriter;
+    
+    @Inject
+    private Event<ProductsSavedEvent> productsSaved;
+    
+    /**
+     * Find the view of an order with its items.
+     */
+    public Optional<OrderView> findById(UUID id) {
+        return orderRepository.findViewById(id);
+    }
+    
     /**
-     * Find order by ID.
+     * Find the requested fields of an order, loading its items only when they are requested.
      */
-    public Optional<Order> findById(UUID id) {
-        return orderRepository.findByIdWithItems(id);
+    public Optional<Map<String, Object>> findById(UUID id, FieldSet fields) {
+        return orderRepository.findViewById(id, fields);
+    }
+    
+    /**
+     * Find the version and update time of an order without loading it.
+     */
+    public Optional<ChangeStamp> findChangeStamp(UUID id) {
+        return orderRepository.findChangeStamp(id);
+    }
+    
+    /**
+     * Count and latest update time of the orders matching the optional status and user filters.
+     */
+    public ChangeStamp findChangeStamp(Order.OrderStatus status, UUID userId) {
+        return orderRepository.findChangeStamp(status, userId);
     }
     
     /**
@@ -44,6 +111,38 @@ public class OrderService {
         return orderRepository.findAll();
     }
     
+    /**
+     * Pass every order with its items to the action as it is read from the database,
+     * oldest first, without holding the whole table in memory.
+     *
+     * @return number of orders exported
+     */
+    @Transactional
+    public long export(Consumer<? super OrderView> action) {
+        return orderRepository.scrollViews(action);
+    }
+    
+    /**
+     * Find a page of order summaries, oldest first.
+     */
+    public Page<OrderSummary> findPage(String cursor, int size) {
+        return orderRepository.findSummaryPage(cursor, size, KeysetSort.CREATED_AT);
+    }
+    
+    /**
+     * Find a page of order summaries holding only the requested fields. A status filter takes
+     * precedence over a user filter; pages are most recent first unless neither filter nor
+     * recent is given.
+     */
+    public Page<Map<String, Object>> findPage(Order.OrderStatus status, UUID userId, boolean recent,
+                                              String cursor, int size, FieldSet fields) {
+        if (status != null) {
+            return orderRepository.findSummaryPage(status, null, cursor, size, KeysetSort.CREATED_AT_DESC, fields);
+        }
+        KeysetSort sort = userId != null || recent ? KeysetSort.CREATED_AT_DESC : KeysetSort.CREATED_AT;
+        return orderRepository.findSummaryPage(null, userId, cursor, size, sort, fields);
+    }
+    
     /**
      * Find orders by user.
      */
@@ -51,6 +150,13 @@ public class OrderService {
         return orderRepository.findByUserId(userId);
     }
     
+    /**
+     * Find a page of order summaries by user.
+     */
+    public Page<OrderSummary> findByUser(UUID userId, String cursor, int size) {
+        return orderRepository.findByUserId(userId, cursor, size);
+    }
+    
     /**
      * Find orders by status.
      */
@@ -58,6 +164,13 @@ public class OrderService {
         return orderRepository.findByStatus(status);
     }
     
+    /**
+     * Find a page of order summaries by status.
+     */
+    public Page<OrderSummary> findByStatus(Order.OrderStatus status, String cursor, int size) {
+        return orderRepository.findByStatus(status, cursor, size);
+    }
+    
     /**
      * Find recent orders.
      */
@@ -65,11 +178,26 @@ public class OrderService {
         return orderRepository.findTop100ByOrderByCreatedAtDesc();
     }
     
+    /**
+     * Find a page of order summaries, most recent first.
+     */
+    public Page<OrderSummary> findRecent(String cursor, int size) {
+        return orderRepository.findSummaryPage(cursor, size, KeysetSort.CREATED_AT_DESC);
+    }
+    
     /**
      * Create new order.
      */
     @Transactional
     public Order create(Order order, UUID userId) {
+        return create(order, userId, List.of());
+    }
+    
+    /**
+     * Create new order, consuming the given stock holds for the quantities they cover.
+     */
+    @Transactional
+    public Order create(Order order, UUID userId, Collection<UUID> reservationIds) {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
         
@@ -77,30 +205,67 @@ public class OrderService {
         order.setStatus(Order.OrderStatus.PENDING);
         order.setOrderDate(LocalDateTime.now());
         
-        // Validate and process items
-        for (OrderItem item : order.getItems()) {
-            Product product = productRepository.findById(item.getProduct().getId())
-                .orElseThrow(() -> new IllegalArgumentException("Product not found: " + item.getProduct().getId()));
-            
+        Map<UUID, Integer> quantities = quantitiesByProduct(order);
+        // Held stock was taken from stored stock when the hold was made
+        Map<UUID, Integer> held = reservationService.consume(reservationIds, quantities);
+        Map<UUID, Integer> toTake = new HashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            int remaining = quantity - held.getOrDefault(productId, 0);
+            if (remaining > 0) {
+                toTake.put(productId, remaining);
+            }
+        });
+        // Products in the stock ledger are reserved in memory and, unless partly held, their
+        // items written to stock later
+        Set<UUID> unchanged = new HashSet<>(stockLedger.reserve(toTake));
+        Map<UUID, Integer> deltas = new HashMap<>();
+        Set<UUID> pending = new HashSet<>();
+        toTake.forEach((productId, quantity) -> {
+            if (stockLedger.isTracked(productId) && !held.containsKey(productId)) {
+                pending.add(productId);
+            } else {
+                deltas.put(productId, -quantity);
+            }
+        });
+        // Conditional updates decrement stock without reading it first; the products are read after
+        unchanged.addAll(productRepository.adjustStock(deltas));
+        List<Product> products = productRepository.findAllById(quantities.keySet());
+        Map<UUID, Product> productsById = new HashMap<>();
+        for (Product product : products) {
+            productsById.put(product.getId(), product);
+        }
+        for (UUID productId : quantities.keySet()) {
+            if (!productsById.containsKey(productId)) {
+                throw new IllegalArgumentException("Product not found: " + productId);
+            }
+        }
+        // Throwing rolls back the decrements already applied
+        for (Product product : products) {
             if (!product.getIsActive()) {
                 throw new IllegalArgumentException("Product is not available: " + product.getName());
             }
             
-            if (product.getStockQuantity() < item.getQuantity()) {
-                throw new IllegalArgumentException("Insufficient stock for product: " + product.getName());
+            if (unchanged.contains(product.getId())) {
+                throw new InsufficientStockException(product.getName());
             }
-            
+        }
+        
+        for (OrderItem item : order.getItems()) {
+            Product product = productsById.get(item.getProduct().getId());
             item.setProduct(product);
             item.setUnitPrice(product.getPrice());
             item.setOrder(order);
-            
-            // Decrease stock
-            product.setStockQuantity(product.getStockQuantity() - item.getQuantity());
-            productRepository.save(product);
+            item.setStockPending(pending.contains(product.getId()));
         }
         
         order.calculateTotal();
-        return orderRepository.save(order);
+        Order created = orderRepository.saveAndFlush(order);
+        orderOutbox.append(created, null);
+        List<Product> written = products.stream().filter(product -> deltas.containsKey(product.getId())).toList();
+        if (!written.isEmpty()) {
+            productsSaved.fire(new ProductsSavedEvent(written));
+        }
+        return created;
     }
     
     /**
@@ -133,7 +298,70 @@ public class OrderService {
                 break;
         }
         
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        orderOutbox.append(saved, currentStatus);
+        return saved;
+    }
+    
+    /**
+     * Move orders to a status that needs no per-order work, committing chunks of at most
+     * {@code chunkSize} orders. An order whose status may not precede the new one, or whose
+     * chunk fails to commit, is reported as failed without stopping the rest of the batch.
+     */
+    public OrderStatusBatchResult updateStatus(List<UUID> ids, Order.OrderStatus newStatus, int chunkSize) {
+        if (newStatus == null) {
+            throw new IllegalArgumentException("Status is required");
+        }
+        if (newStatus == Order.OrderStatus.CANCELLED || newStatus == Order.OrderStatus.REFUNDED) {
+            // These restore stock item by item
+            throw new IllegalArgumentException("Orders cannot be moved to " + newStatus + " in bulk");
+        }
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("No orders given");
+        }
+        if (ids.size() > MAX_STATUS_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_STATUS_BATCH_SIZE + " orders per batch");
+        }
+        int chunk = Math.max(1, Math.min(chunkSize, MAX_STATUS_CHUNK_SIZE));
+        Set<Order.OrderStatus> predecessors = EnumSet.noneOf(Order.OrderStatus.class);
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            if (isValidTransition(status, newStatus)) {
+                predecessors.add(status);
+            }
+        }
+        
+        OrderStatusBatchResult.Item[] results = new OrderStatusBatchResult.Item[ids.size()];
+        Set<UUID> seen = new HashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            UUID id = ids.get(i);
+            if (id == null) {
+                results[i] = OrderStatusBatchResult.Item.failed(i, null, "Missing order ID");
+            } else if (!seen.add(id)) {
+                results[i] = OrderStatusBatchResult.Item.failed(i, id, "Duplicate ID in batch: " + id);
+            }
+        }
+        
+        for (int start = 0; start < ids.size(); start += chunk) {
+            Map<Integer, UUID> pending = new LinkedHashMap<>();
+            for (int i = start; i < Math.min(start + chunk, ids.size()); i++) {
+                if (results[i] == null) {
+                    pending.put(i, ids.get(i));
+                }
+            }
+            if (pending.isEmpty()) {
+                continue;
+            }
+            try {
+                for (OrderStatusBatchResult.Item item : statusBatchWriter.write(pending, newStatus, predecessors)) {
+                    results[item.getIndex()] = item;
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Order status batch chunk starting at " + start + " rolled back", e);
+                String error = "Chunk rolled back: " + e.getMessage();
+                pending.forEach((index, id) -> results[index] = OrderStatusBatchResult.Item.failed(index, id, error));
+            }
+        }
+        return new OrderStatusBatchResult(newStatus, Arrays.asList(results));
     }
     
     /**
@@ -148,8 +376,17 @@ public class OrderService {
      * Validate status transition.
      */
     private void validateStatusTransition(Order.OrderStatus current, Order.OrderStatus next) {
+        if (!isValidTransition(current, next)) {
+            throw new IllegalArgumentException("Invalid status transition from " + current + " to " + next);
+        }
+    }
+    
+    /**
+     * Whether an order may move from the current status to the next.
+     */
+    private static boolean isValidTransition(Order.OrderStatus current, Order.OrderStatus next) {
         // Define valid transitions
-        boolean valid = switch (current) {
+        return switch (current) {
             case PENDING -> next == Order.OrderStatus.CONFIRMED 
                          || next == Order.OrderStatus.CANCELLED;
             case CONFIRMED -> next == Order.OrderStatus.PROCESSING 
@@ -159,20 +396,30 @@ public class OrderService {
             case SHIPPED -> next == Order.OrderStatus.DELIVERED;
             case DELIVERED, CANCELLED, REFUNDED -> false;
         };
-        
-        if (!valid) {
-            throw new IllegalArgumentException("Invalid status transition from " + current + " to " + next);
-        }
     }
     
     /**
      * Restore stock when order is cancelled/refunded.
      */
     private void restoreStock(Order order) {
+        Map<UUID, Integer> quantities = quantitiesByProduct(order);
+        // Restored to stored stock at once; pending items of the order are still subtracted later
+        productRepository.adjustStock(quantities);
+        stockLedger.release(quantities);
+        productsSaved.fire(new ProductsSavedEvent(productRepository.findAllById(quantities.keySet())));
+    }
+    
+    /**
+     * Total quantity ordered per product ID, so a product listed twice is counted once.
+     */
+    private static Map<UUID, Integer> quantitiesByProduct(Order order) {
+        Map<UUID, Integer> quantities = new HashMap<>();
         for (OrderItem item : order.getItems()) {
-            Product product = item.getProduct();
-            product.setStockQuantity(product.getStockQuantity() + item.getQuantity());
-            productRepository.save(product);
+            if (item.getProduct() == null || item.getProduct().getId() == null) {
+                throw new IllegalArgumentException("Order item has no product");
+            }
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
         }
+        return quantities;
     }
 }
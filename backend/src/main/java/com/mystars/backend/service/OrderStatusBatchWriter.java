@@ -0,0 +1,70 @@
+package com.mystars.backend.service;
+
+import com.mystars.backend.dto.OrderStatusBatchResult;
+import com.mystars.backend.entity.Order;
+import com.mystars.backend.repository.OrderRepository;
+import com.mystars.backend.repository.StatusChange;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Applies one chunk of a bulk order status change in its own transaction, for
+ * {@link OrderService#updateStatus(List, Order.OrderStatus, int)}. The change is one conditional
+ * statement; only the orders it skips are read, to say why.
+ */
+@ApplicationScoped
+public class OrderStatusBatchWriter {
+    
+    @Inject
+    private OrderRepository orderRepository;
+    
+    @Inject
+    private OrderOutbox orderOutbox;
+    
+    /**
+     * Move the orders, keyed by their index in the request, to the status from any status
+     * that may precede it.
+     *
+     * @return one result per order, in index order
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public List<OrderStatusBatchResult.Item> write(Map<Integer, UUID> chunk, Order.OrderStatus status,
+                                                   Set<Order.OrderStatus> predecessors) {
+        LocalDateTime now = LocalDateTime.now();
+        List<StatusChange> changes = orderRepository.transitionStatus(chunk.values(), status, predecessors, now);
+        Map<UUID, StatusChange> changed = new HashMap<>();
+        List<OrderLifecycleEvent> events = new ArrayList<>(changes.size());
+        for (StatusChange change : changes) {
+            changed.put(change.getOrderId(), change);
+            events.add(new OrderLifecycleEvent(change.getOrderId(), change.getUserId(), change.getPreviousStatus(),
+                status, change.getTotalAmount(), now));
+        }
+        orderOutbox.appendAll(events);
+        
+        List<UUID> skipped = chunk.values().stream().filter(id -> !changed.containsKey(id)).toList();
+        Map<UUID, Order.OrderStatus> current = orderRepository.findStatuses(skipped);
+        List<OrderStatusBatchResult.Item> results = new ArrayList<>(chunk.size());
+        chunk.forEach((index, id) -> {
+            StatusChange change = changed.get(id);
+            if (change != null) {
+                results.add(OrderStatusBatchResult.Item.updated(index, id, change.getPreviousStatus()));
+            } else if (!current.containsKey(id)) {
+                results.add(OrderStatusBatchResult.Item.failed(index, id, "Order not found: " + id));
+            } else {
+                results.add(OrderStatusBatchResult.Item.failed(index, id,
+                    "Invalid status transition from " + current.get(id) + " to " + status));
+            }
+        });
+        results.sort(Comparator.comparingInt(OrderStatusBatchResult.Item::getIndex));
+        return results;
+    }
+}
@@ -0,0 +1,67 @@
+package com.mystars.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drains the outbox on the {@link BackgroundScheduler}: right after a transaction that
+ * recorded events commits, and periodically for retries and events left by other instances
+ * or a restart. Instances share the work through skipped row locks.
+ */
+@ApplicationScoped
+public class OutboxDispatcher {
+
+    static final long POLL_INTERVAL_MS = 1_000;
+    static final int DISPATCH_BATCH_SIZE = 100;
+
+    private static final Logger LOGGER = Logger.getLogger(OutboxDispatcher.class.getName());
+
+    @Inject
+    private OutboxRelay relay;
+
+    @Inject
+    private BackgroundScheduler scheduler;
+
+    private final AtomicBoolean wakeUp = new AtomicBoolean();
+    private volatile ScheduledFuture<?> poller;
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        poller = scheduler.scheduleWithFixedDelay(this::drain, 0, POLL_INTERVAL_MS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (poller != null) {
+            poller.cancel(false);
+        }
+    }
+
+    void onAppended(@Observes(during = TransactionPhase.AFTER_SUCCESS) OrderOutbox.Appended event) {
+        // Commits arriving while a drain is queued are picked up by that drain
+        if (poller != null && wakeUp.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                wakeUp.set(false);
+                drain();
+            });
+        }
+    }
+
+    private void drain() {
+        try {
+            while (relay.dispatch(DISPATCH_BATCH_SIZE) == DISPATCH_BATCH_SIZE) {
+                // Keep going while full batches are due
+            }
+        } catch (RuntimeException e) {
+            // Events stay pending and are delivered by a later drain
+            LOGGER.log(Level.WARNING, "Could not dispatch outbox events", e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.mystars.backend.service;
+
+import com.mystars.backend.entity.OutboxEvent;
+import com.mystars.backend.repository.OutboxEventRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Database side of the {@link OutboxRelay}: claims a batch of due events, and afterwards
+ * deletes the delivered ones and schedules retries of the failed ones. Each call is its own
+ * transaction, so delivery between them runs outside any. Failed deliveries are retried with
+ * exponential backoff and given up after {@value #MAX_ATTEMPTS} attempts.
+ */
+@ApplicationScoped
+public class OutboxEventWriter {
+
+    /**
+     * Seconds a claimed event is hidden from other dispatchers while it is delivered; if the
+     * instance stops before recording the outcome, the event is delivered again after this.
+     */
+    static final long CLAIM_LEASE_SECONDS = 60;
+    static final int MAX_ATTEMPTS = 10;
+    static final long MAX_BACKOFF_SECONDS = 300;
+
+    private static final Logger LOGGER = Logger.getLogger(OutboxEventWriter.class.getName());
+
+    @Inject
+    private OutboxEventRepository outboxRepository;
+
+    /**
+     * Claim up to limit due events for delivery, oldest first.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public List<OutboxEvent> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = outboxRepository.lockPending(now, limit);
+        for (OutboxEvent event : events) {
+            event.setAvailableAt(now.plusSeconds(CLAIM_LEASE_SECONDS));
+        }
+        return events;
+    }
+
+    /**
+     * Delete the delivered events and schedule the failed ones for another attempt.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void settle(Collection<UUID> delivered, Map<UUID, RuntimeException> failures) {
+        outboxRepository.deleteAllById(delivered);
+        LocalDateTime now = LocalDateTime.now();
+        failures.forEach((id, failure) ->
+            outboxRepository.findById(id).ifPresent(event -> retryLater(event, failure, now)));
+    }
+
+    private void retryLater(OutboxEvent event, RuntimeException failure, LocalDateTime now) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(failure.toString());
+        if (attempts >= MAX_ATTEMPTS) {
+            event.setStatus(OutboxEvent.OutboxStatus.FAILED);
+            LOGGER.log(Level.WARNING, "Giving up outbox event " + event.getId() + " after " + attempts + " attempts",
+                failure);
+        } else {
+            event.setAvailableAt(now.plusSeconds(Math.min(1L << attempts, MAX_BACKOFF_SECONDS)));
+            LOGGER.log(Level.FINE, "Outbox event " + event.getId() + " failed, retrying later", failure);
+        }
+    }
+}
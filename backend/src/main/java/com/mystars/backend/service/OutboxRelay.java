@@ -0,0 +1,60 @@
+package com.mystars.backend.service;
+
+import com.mystars.backend.entity.OutboxEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Delivers outbox events for the {@link OutboxDispatcher}. A batch of due events is claimed in
+ * one transaction and the outcome recorded in another, by the {@link OutboxEventWriter}, while
+ * the events are delivered in between, outside any transaction. A consumer that fails, even by
+ * marking its own transaction for rollback, only has its event retried.
+ */
+@ApplicationScoped
+public class OutboxRelay {
+    
+    @Inject
+    private OutboxEventWriter writer;
+    
+    @Inject
+    @Any
+    private Instance<OrderEventConsumer> orderConsumers;
+    
+    /**
+     * Deliver up to limit due events.
+     *
+     * @return number of events attempted
+     */
+    public int dispatch(int limit) {
+        List<OutboxEvent> events = writer.claim(limit);
+        List<UUID> delivered = new ArrayList<>();
+        Map<UUID, RuntimeException> failures = new HashMap<>();
+        for (OutboxEvent event : events) {
+            try {
+                deliver(event);
+                delivered.add(event.getId());
+            } catch (RuntimeException e) {
+                failures.put(event.getId(), e);
+            }
+        }
+        writer.settle(delivered, failures);
+        return events.size();
+    }
+    
+    private void deliver(OutboxEvent event) {
+        if (!OrderOutbox.TOPIC.equals(event.getTopic())) {
+            throw new IllegalStateException("Unknown outbox topic: " + event.getTopic());
+        }
+        OrderLifecycleEvent orderEvent = OrderOutbox.JSONB.fromJson(event.getPayload(), OrderLifecycleEvent.class);
+        for (OrderEventConsumer consumer : orderConsumers) {
+            consumer.accept(orderEvent);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.mystars.backend.service;
+
+import com.mystars.backend.dto.ProductBatchResult;
+import com.mystars.backend.entity.BaseEntity;
+import com.mystars.backend.entity.Category;
+import com.mystars.backend.entity.Product;
+import com.mystars.backend.repository.CategoryRepository;
+import com.mystars.backend.repository.ProductRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes one chunk of a bulk product write in its own transaction, for
+ * {@link ProductService#saveAll}. Lookups for the whole chunk are made with one query each.
+ */
+@ApplicationScoped
+public class ProductBatchWriter {
+    
+    @Inject
+    private ProductRepository productRepository;
+    
+    @Inject
+    private CategoryRepository categoryRepository;
+    
+    @Inject
+    private StockLedger stockLedger;
+    
+    @Inject
+    private Event<ProductsSavedEvent> productsSaved;
+    
+    /**
+     * Create the products without an ID and update those with one, keyed by their index in
+     * the request. Products that fail validation are reported and the rest are written.
+     *
+     * @return one result per product, in index order
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public List<ProductBatchResult.Item> write(Map<Integer, Product> chunk) {
+        Set<String> skus = new HashSet<>();
+        Set<UUID> categoryIds = new HashSet<>();
+        Set<UUID> productIds = new HashSet<>();
+        for (Product product : chunk.values()) {
+            if (product.getSku() != null) {
+                skus.add(product.getSku());
+            }
+            if (product.getCategory() != null && product.getCategory().getId() != null) {
+                categoryIds.add(product.getCategory().getId());
+            }
+            if (product.getId() != null) {
+                productIds.add(product.getId());
+            }
+        }
+        Map<String, UUID> skuOwners = productRepository.findIdsBySku(skus);
+        Map<UUID, Category> categories = byId(categoryRepository.findAllById(categoryIds));
+        Map<UUID, Product> existing = byId(productRepository.findAllById(productIds));
+        
+        List<ProductBatchResult.Item> results = new ArrayList<>(chunk.size());
+        List<Integer> indexes = new ArrayList<>(chunk.size());
+        List<Product> toSave = new ArrayList<>(chunk.size());
+        for (Map.Entry<Integer, Product> entry : chunk.entrySet()) {
+            int index = entry.getKey();
+            Product product = entry.getValue();
+            UUID owner = product.getSku() != null ? skuOwners.get(product.getSku()) : null;
+            UUID categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+            
+            Product target = product;
+            String error = null;
+            if (product.getId() != null && (target = existing.get(product.getId())) == null) {
+                error = "Product not found: " + product.getId();
+            } else if (owner != null && !owner.equals(product.getId())) {
+                error = "SKU already exists: " + product.getSku();
+            } else if (categoryId != null && !categories.containsKey(categoryId)) {
+                error = "Category not found: " + categoryId;
+            } else if (target != product && product.getStockQuantity() != null
+                    && !stockLedger.adjust(target.getId(), product.getStockQuantity() - target.getStockQuantity())) {
+                error = "Insufficient stock for product: " + target.getName();
+            }
+            if (error != null) {
+                results.add(ProductBatchResult.Item.failed(index, product.getId(), product.getSku(), error));
+                continue;
+            }
+            
+            if (target != product) {
+                ProductService.copyFields(product, target);
+            }
+            target.setCategory(categoryId != null ? categories.get(categoryId) : null);
+            indexes.add(index);
+            toSave.add(target);
+        }
+        
+        List<Product> saved = productRepository.saveAll(toSave);
+        for (int i = 0; i < saved.size(); i++) {
+            Product product = saved.get(i);
+            boolean created = !existing.containsKey(product.getId());
+            results.add(ProductBatchResult.Item.saved(indexes.get(i), created, product.getId(), product.getSku()));
+        }
+        if (!saved.isEmpty()) {
+            productsSaved.fire(new ProductsSavedEvent(saved));
+        }
+        
+        results.sort(Comparator.comparingInt(ProductBatchResult.Item::getIndex));
+        return results;
+    }
+    
+    private static <T extends BaseEntity> Map<UUID, T> byId(List<T> entities) {
+        return entities.stream().filter(Objects::nonNull)
+            .collect(Collectors.toMap(BaseEntity::getId, Function.identity()));
+    }
+}
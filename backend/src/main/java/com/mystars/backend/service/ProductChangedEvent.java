@@ -0,0 +1,43 @@
+package com.mystars.backend.service;
+
+import com.mystars.backend.entity.Product;
+import java.util.UUID;
+
+/**
+ * CDI event fired when a product is created, updated or deleted.
+ * Observers that keep in-memory copies of the catalog should listen
+ * with {@code during = TransactionPhase.AFTER_SUCCESS}.
+ */
+public class ProductChangedEvent {
+    
+    private final UUID id;
+    private final Product product;
+    
+    private ProductChangedEvent(UUID id, Product product) {
+        this.id = id;
+        this.product = product;
+    }
+    
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(product.getId(), product);
+    }
+    
+    public static ProductChangedEvent deleted(UUID id) {
+        return new ProductChangedEvent(id, null);
+    }
+    
+    public UUID getId() {
+        return id;
+    }
+    
+    /**
+     * The saved product, or null if it was deleted.
+     */
+    public Product getProduct() {
+        return product;
+    }
+    
+    public boolean isDeleted() {
+        return product == null;
+    }
+}
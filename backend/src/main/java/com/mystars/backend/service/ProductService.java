@@ -1,16 +1,39 @@
 package com.mystars.backend.service;
 
+import com.mystars.backend.catalog.CatalogSnapshot;
+import com.mystars.backend.catalog.CategoryHierarchy;
+import com.mystars.backend.catalog.ProductCatalog;
+import com.mystars.backend.catalog.ProductFacetIndex;
+import com.mystars.backend.catalog.ProductFacets;
+import com.mystars.backend.catalog.ProductSearchIndex;
+import com.mystars.backend.catalog.ProductSuggestIndex;
+import com.mystars.backend.catalog.ProductSuggestion;
+import com.mystars.backend.catalog.ProductView;
+import com.mystars.backend.dto.ProductBatchResult;
 import com.mystars.backend.entity.Category;
 import com.mystars.backend.entity.Product;
 import com.mystars.backend.repository.CategoryRepository;
+import com.mystars.backend.repository.ChangeStamp;
+import com.mystars.backend.repository.FieldSet;
+import com.mystars.backend.repository.Page;
+import com.mystars.backend.repository.ProductFilter;
 import com.mystars.backend.repository.ProductRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Service layer for Product operations.
@@ -18,24 +41,93 @@ import java.util.UUID;
 @ApplicationScoped
 public class ProductService {
     
+    private static final Logger LOGGER = Logger.getLogger(ProductService.class.getName());
+    
+    /**
+     * Most products accepted by one bulk write.
+     */
+    public static final int MAX_BATCH_SIZE = 10_000;
+    
+    /**
+     * Most products committed in one transaction of a bulk write.
+     */
+    public static final int MAX_CHUNK_SIZE = 1_000;
+    
     @Inject
     private ProductRepository productRepository;
     
     @Inject
     private CategoryRepository categoryRepository;
     
+    @Inject
+    private CategoryHierarchy categoryHierarchy;
+    
+    @Inject
+    private ProductCatalog productCatalog;
+    
+    @Inject
+    private ProductSearchIndex searchIndex;
+    
+    @Inject
+    private ProductFacetIndex facetIndex;
+    
+    @Inject
+    private ProductSuggestIndex suggestIndex;
+    
+    @Inject
+    private ProductSkuIndex skuIndex;
+    
+    @Inject
+    private ProductBatchWriter batchWriter;
+    
+    @Inject
+    private StockLedger stockLedger;
+    
+    @Inject
+    private Event<ProductChangedEvent> productChanged;
+    
+    /**
+     * Whether catalog reads are answered from memory, without a database round trip.
+     * Reads that are not should run behind the database bulkhead.
+     */
+    public boolean isCatalogInMemory() {
+        return productCatalog.isLoaded() && categoryHierarchy.isLoaded();
+    }
+    
+    /**
+     * Whether text searches of the catalog are answered from memory.
+     */
+    public boolean isSearchInMemory() {
+        return isCatalogInMemory() && searchIndex.isLoaded();
+    }
+    
     /**
-     * Find product by ID.
+     * Whether typeahead suggestions are answered from memory.
      */
-    public Optional<Product> findById(UUID id) {
-        return productRepository.findById(id);
+    public boolean isSuggestInMemory() {
+        return suggestIndex.isLoaded();
     }
     
     /**
-     * Find product by SKU.
+     * Find product by ID, served from the catalog snapshot when loaded.
      */
-    public Optional<Product> findBySku(String sku) {
-        return productRepository.findBySku(sku);
+    public Optional<ProductView> findById(UUID id) {
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        if (snapshot != null) {
+            return snapshot.findById(id);
+        }
+        return productRepository.findById(id).map(ProductView::from);
+    }
+    
+    /**
+     * Find product by SKU, served from the catalog snapshot when loaded.
+     */
+    public Optional<ProductView> findBySku(String sku) {
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        if (snapshot != null) {
+            return snapshot.findBySku(sku);
+        }
+        return productRepository.findBySku(sku).map(ProductView::from);
     }
     
     /**
@@ -45,6 +137,89 @@ public class ProductService {
         return productRepository.findAll();
     }
     
+    /**
+     * Pass every product to the action as it is read from the database, oldest first,
+     * without holding the whole table in memory.
+     *
+     * @return number of products exported
+     */
+    @Transactional
+    public long export(Consumer<? super ProductView> action) {
+        return productRepository.scrollViews(action);
+    }
+    
+    /**
+     * Count and latest update time over the whole catalog, including the categories whose
+     * names appear in product responses, or null if the catalog snapshot is not loaded.
+     */
+    public ChangeStamp findCatalogStamp() {
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        if (snapshot == null) {
+            return null;
+        }
+        return snapshot.changeStamp().combine(categoryHierarchy.tree().changeStamp());
+    }
+    
+    /**
+     * Version stamp of a product response, including its category's name.
+     */
+    public ChangeStamp changeStampOf(ProductView product) {
+        ChangeStamp stamp = ChangeStamp.of(product.getId(), product.getVersion(), product.getUpdatedAt());
+        if (product.getCategory() == null) {
+            return stamp;
+        }
+        return categoryHierarchy.tree().findById(product.getCategory().getId())
+            .map(category -> stamp.combine(ChangeStamp.of(category.getId(), category.getVersion(), category.getUpdatedAt())))
+            .orElse(stamp);
+    }
+    
+    /**
+     * Find a page of products matching every criterion of the filter.
+     * Served from the catalog snapshot when loaded, otherwise by a single database query.
+     */
+    public Page<ProductView> findPage(ProductFilter filter, String cursor, int size) {
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        if (snapshot != null && (filter.getText() == null || searchIndex.isLoaded())) {
+            Set<UUID> textMatches = filter.getText() != null ? searchIndex.match(filter.getText()) : null;
+            return snapshot.page(cursor, size, snapshot.select(filter, textMatches), filter.getSort());
+        }
+        return productRepository.findPage(filter, cursor, size);
+    }
+    
+    /**
+     * Find a page of products holding only the requested fields. The snapshot's views are
+     * narrowed in memory; the database fallback selects only the requested columns.
+     */
+    public Page<Map<String, Object>> findPage(ProductFilter filter, String cursor, int size, FieldSet fields) {
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        if (snapshot != null && (filter.getText() == null || searchIndex.isLoaded())) {
+            return findPage(filter, cursor, size).map(product -> fields.select(product, ProductView.FIELDS));
+        }
+        return productRepository.findPage(filter, cursor, size, fields);
+    }
+    
+    /**
+     * Count products per category, price range and stock for a filter selection.
+     * Answered from the in-memory bitmap indexes.
+     */
+    public ProductFacets findFacets(ProductFilter filter) {
+        facetIndex.load();
+        Set<UUID> textMatches = null;
+        if (filter.getText() != null) {
+            searchIndex.load();
+            textMatches = searchIndex.match(filter.getText());
+        }
+        return facetIndex.facets(filter, textMatches, categoryHierarchy.tree());
+    }
+    
+    /**
+     * IDs of a category and all of its descendants, from the materialized category tree.
+     */
+    public List<UUID> findCategorySubtree(UUID categoryId) {
+        List<UUID> subtree = categoryHierarchy.tree().subtreeIds(categoryId);
+        return subtree.isEmpty() ? List.of(categoryId) : subtree;
+    }
+    
     /**
      * Find active products.
      */
@@ -66,6 +241,39 @@ public class ProductService {
         return productRepository.findByNameContainingIgnoreCase(name);
     }
     
+    /**
+     * Search products by relevance, best match first.
+     */
+    public List<ProductView> search(String query, int limit) {
+        int max = Page.clampSize(limit);
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        if (snapshot != null && searchIndex.isLoaded()) {
+            return searchIndex.search(query, max).stream()
+                .map(snapshot::findById)
+                .flatMap(Optional::stream)
+                .toList();
+        }
+        return productRepository.findByNameContainingIgnoreCase(query).stream()
+            .limit(max)
+            .map(ProductView::from)
+            .toList();
+    }
+    
+    /**
+     * Typeahead completions for a name or SKU prefix, most popular first.
+     */
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        int max = Math.max(1, Math.min(limit, ProductSuggestIndex.MAX_SUGGESTIONS));
+        if (suggestIndex.isLoaded()) {
+            return suggestIndex.suggest(prefix, max);
+        }
+        return productRepository.findByNameContainingIgnoreCase(prefix).stream()
+            .filter(product -> Boolean.TRUE.equals(product.getIsActive()))
+            .limit(max)
+            .map(product -> new ProductSuggestion(product.getId(), product.getName(), product.getSku()))
+            .toList();
+    }
+    
     /**
      * Find products by price range.
      */
@@ -78,7 +286,7 @@ public class ProductService {
      */
     @Transactional
     public Product create(Product product) {
-        if (product.getSku() != null && productRepository.findBySku(product.getSku()).isPresent()) {
+        if (product.getSku() != null && skuIndex.isTaken(product.getSku(), null)) {
             throw new IllegalArgumentException("SKU already exists: " + product.getSku());
         }
         
@@ -88,7 +296,9 @@ public class ProductService {
             product.setCategory(category);
         }
         
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productChanged.fire(ProductChangedEvent.saved(saved));
+        return saved;
     }
     
     /**
@@ -101,20 +311,17 @@ public class ProductService {
         
         // Check SKU uniqueness
         if (product.getSku() != null && !product.getSku().equals(existing.getSku())) {
-            if (productRepository.findBySku(product.getSku()).isPresent()) {
+            if (skuIndex.isTaken(product.getSku(), existing.getId())) {
                 throw new IllegalArgumentException("SKU already exists: " + product.getSku());
             }
         }
         
-        existing.setName(product.getName());
-        existing.setDescription(product.getDescription());
-        existing.setPrice(product.getPrice());
-        existing.setStockQuantity(product.getStockQuantity());
-        existing.setSku(product.getSku());
-        existing.setImageUrl(product.getImageUrl());
-        existing.setIsActive(product.getIsActive());
-        existing.setWeight(product.getWeight());
-        existing.setDimensions(product.getDimensions());
+        // Available stock of a ledger product moves with its stored stock
+        if (product.getStockQuantity() != null
+                && !stockLedger.adjust(existing.getId(), product.getStockQuantity() - existing.getStockQuantity())) {
+            throw new InsufficientStockException(existing.getName());
+        }
+        copyFields(product, existing);
         
         if (product.getCategory() != null && product.getCategory().getId() != null) {
             Category category = categoryRepository.findById(product.getCategory().getId())
@@ -124,19 +331,96 @@ public class ProductService {
             existing.setCategory(null);
         }
         
-        return productRepository.save(existing);
+        Product saved = productRepository.save(existing);
+        productChanged.fire(ProductChangedEvent.saved(saved));
+        return saved;
+    }
+    
+    /**
+     * Create the products without an ID and update those with one, committing every
+     * {@code chunkSize} products. A product that fails validation, or whose chunk fails to
+     * commit, is reported as failed without stopping the rest of the batch.
+     */
+    public ProductBatchResult saveAll(List<Product> products, int chunkSize) {
+        if (products == null || products.isEmpty()) {
+            throw new IllegalArgumentException("No products given");
+        }
+        if (products.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " products per batch");
+        }
+        int chunk = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+        
+        // SKUs and IDs must also be unique within the batch, which the database checks cannot see
+        ProductBatchResult.Item[] results = new ProductBatchResult.Item[products.size()];
+        Set<String> skus = new HashSet<>();
+        Set<UUID> ids = new HashSet<>();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            if (product == null) {
+                results[i] = ProductBatchResult.Item.failed(i, null, null, "Missing product");
+            } else if (product.getSku() != null && !skus.add(product.getSku())) {
+                results[i] = ProductBatchResult.Item.failed(i, product.getId(), product.getSku(),
+                    "Duplicate SKU in batch: " + product.getSku());
+            } else if (product.getId() != null && !ids.add(product.getId())) {
+                results[i] = ProductBatchResult.Item.failed(i, product.getId(), product.getSku(),
+                    "Duplicate ID in batch: " + product.getId());
+            }
+        }
+        
+        for (int start = 0; start < products.size(); start += chunk) {
+            Map<Integer, Product> pending = new LinkedHashMap<>();
+            for (int i = start; i < Math.min(start + chunk, products.size()); i++) {
+                if (results[i] == null) {
+                    pending.put(i, products.get(i));
+                }
+            }
+            if (pending.isEmpty()) {
+                continue;
+            }
+            try {
+                for (ProductBatchResult.Item item : batchWriter.write(pending)) {
+                    results[item.getIndex()] = item;
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Product batch chunk starting at " + start + " rolled back", e);
+                String error = "Chunk rolled back: " + e.getMessage();
+                pending.forEach((index, product) ->
+                    results[index] = ProductBatchResult.Item.failed(index, product.getId(), product.getSku(), error));
+            }
+        }
+        return new ProductBatchResult(Arrays.asList(results));
     }
     
     /**
-     * Update stock quantity.
+     * Copy the writable fields of a product, except its category, onto an existing one.
+     */
+    static void copyFields(Product source, Product target) {
+        target.setName(source.getName());
+        target.setDescription(source.getDescription());
+        target.setPrice(source.getPrice());
+        target.setStockQuantity(source.getStockQuantity());
+        target.setSku(source.getSku());
+        target.setImageUrl(source.getImageUrl());
+        target.setIsActive(source.getIsActive());
+        target.setWeight(source.getWeight());
+        target.setDimensions(source.getDimensions());
+    }
+    
+    /**
+     * Add a quantity to the stock of a product, negative to remove stock, with a conditional
+     * update that holds the row lock only until commit and never takes the stock below zero.
      */
     @Transactional
     public Product updateStock(UUID id, int quantity) {
+        boolean applied = stockLedger.adjust(id, quantity)
+            && productRepository.adjustStock(Map.of(id, quantity)).isEmpty();
         Product product = productRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Product not found: " + id));
-        
-        product.setStockQuantity(quantity);
-        return productRepository.save(product);
+        if (!applied) {
+            throw new InsufficientStockException(product.getName());
+        }
+        productChanged.fire(ProductChangedEvent.saved(product));
+        return product;
     }
     
     /**
@@ -147,6 +431,7 @@ public class ProductService {
         Product product = productRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Product not found: " + id));
         productRepository.delete(product);
+        productChanged.fire(ProductChangedEvent.deleted(id));
     }
     
     /**
@@ -157,6 +442,8 @@ public class ProductService {
         Product product = productRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Product not found: " + id));
         product.setIsActive(false);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productChanged.fire(ProductChangedEvent.saved(saved));
+        return saved;
     }
 }
@@ -0,0 +1,66 @@
+package com.mystars.backend.service;
+
+import com.mystars.backend.entity.Product;
+import com.mystars.backend.repository.ProductRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory SKU to product ID index used for SKU uniqueness checks.
+ */
+@ApplicationScoped
+public class ProductSkuIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(ProductSkuIndex.class.getName());
+
+    private static final int MAX_NEGATIVE_ENTRIES = 10_000;
+
+    @Inject
+    private ProductRepository productRepository;
+
+    private final UniqueKeyIndex index = new UniqueKeyIndex(MAX_NEGATIVE_ENTRIES);
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        try {
+            index.load(productRepository.findAllSkuIds());
+        } catch (RuntimeException e) {
+            // Misses are looked up and cached one by one instead
+            LOGGER.log(Level.WARNING, "Could not load product SKU index", e);
+        }
+    }
+
+    /**
+     * ID of the product with the given SKU.
+     */
+    public Optional<UUID> findId(String sku) {
+        return index.find(sku, productRepository::findIdBySku);
+    }
+
+    /**
+     * Whether the SKU belongs to a product other than {@code productId} (null for a new product).
+     */
+    public boolean isTaken(String sku, UUID productId) {
+        return index.isTaken(sku, productId, productRepository::findIdBySku);
+    }
+
+    void onProductChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            index.remove(event.getId());
+        } else {
+            index.put(event.getId(), event.getProduct().getSku());
+        }
+    }
+
+    void onProductsSaved(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProductsSavedEvent event) {
+        for (Product product : event.getProducts()) {
+            index.put(product.getId(), product.getSku());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.mystars.backend.service;
+
+import com.mystars.backend.entity.Product;
+import java.util.List;
+
+/**
+ * CDI event fired once for products written together, such as a committed chunk of a bulk
+ * write or the stock changes of a checkout, instead of one {@link ProductChangedEvent} per
+ * product, so in-memory copies of the catalog can apply them at once. Observers should listen with
+ * {@code during = TransactionPhase.AFTER_SUCCESS}.
+ */
+public class ProductsSavedEvent {
+    
+    private final List<Product> products;
+    
+    public ProductsSavedEvent(List<Product> products) {
+        this.products = List.copyOf(products);
+    }
+    
+    /**
+     * The created and updated products, with their categories loaded.
+     */
+    public List<Product> getProducts() {
+        return products;
+    }
+}
@@ -0,0 +1,180 @@
+package com.mystars.backend.service;
+
+import com.mystars.backend.dto.StockAvailability;
+import com.mystars.backend.entity.Product;
+import com.mystars.backend.entity.StockReservation;
+import com.mystars.backend.repository.ProductRepository;
+import com.mystars.backend.repository.StockReservationRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Service layer for cart stock holds. A hold takes its quantity from the product's stock when
+ * it is made, so checkouts that consume it cannot run short, and the stock shown to other
+ * shoppers already excludes it. Holds that are released or expire give their quantity back.
+ */
+@ApplicationScoped
+public class ReservationService {
+    
+    /**
+     * Lifetime of a hold when none is requested.
+     */
+    public static final int DEFAULT_TTL_SECONDS = 900;
+    
+    /**
+     * Longest lifetime a hold may be given.
+     */
+    public static final int MAX_TTL_SECONDS = 3_600;
+    
+    @Inject
+    private StockReservationRepository reservationRepository;
+    
+    @Inject
+    private ProductRepository productRepository;
+    
+    @Inject
+    private StockLedger stockLedger;
+    
+    @Inject
+    private Event<ProductsSavedEvent> productsSaved;
+    
+    /**
+     * Find hold by ID.
+     */
+    public Optional<StockReservation> findById(UUID id) {
+        return reservationRepository.findById(id);
+    }
+    
+    /**
+     * Stock available to new holds and checkouts for each of the given products that exists,
+     * and the quantity of its active holds.
+     */
+    public List<StockAvailability> findAvailability(Collection<UUID> productIds) {
+        Map<UUID, Long> reserved = reservationRepository.sumActive(productIds, LocalDateTime.now());
+        List<StockAvailability> availability = new ArrayList<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            // Tracked products are read from the ledger, which also excludes pending order items
+            long available = stockLedger.available(product.getId()).orElse(product.getStockQuantity());
+            availability.add(new StockAvailability(product.getId(), available,
+                reserved.getOrDefault(product.getId(), 0L)));
+        }
+        return availability;
+    }
+    
+    /**
+     * Hold a quantity of a product for the given number of seconds, or the default lifetime.
+     */
+    @Transactional
+    public StockReservation create(UUID productId, int quantity, Integer ttlSeconds) {
+        if (productId == null) {
+            throw new IllegalArgumentException("Product ID is required");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        int ttl = ttlSeconds != null ? ttlSeconds : DEFAULT_TTL_SECONDS;
+        if (ttl <= 0 || ttl > MAX_TTL_SECONDS) {
+            throw new IllegalArgumentException("TTL must be between 1 and " + MAX_TTL_SECONDS + " seconds");
+        }
+        
+        // Taken like a checkout: a conditional decrement, and the ledger for tracked products
+        boolean taken = stockLedger.adjust(productId, -quantity)
+            && productRepository.adjustStock(Map.of(productId, -quantity)).isEmpty();
+        Product product = productRepository.findById(productId)
+            .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
+        // Throwing rolls back the decrement already applied
+        if (!product.getIsActive()) {
+            throw new IllegalArgumentException("Product is not available: " + product.getName());
+        }
+        if (!taken) {
+            throw new InsufficientStockException(product.getName());
+        }
+        
+        StockReservation reservation = new StockReservation();
+        reservation.setProduct(product);
+        reservation.setQuantity(quantity);
+        reservation.setExpiresAt(LocalDateTime.now().plusSeconds(ttl));
+        reservation.setStatus(StockReservation.ReservationStatus.ACTIVE);
+        StockReservation saved = reservationRepository.save(reservation);
+        productsSaved.fire(new ProductsSavedEvent(List.of(product)));
+        return saved;
+    }
+    
+    /**
+     * Release a hold, giving its quantity back. Releasing a hold that is no longer active
+     * does nothing.
+     */
+    @Transactional
+    public void release(UUID id) {
+        Map<UUID, Integer> released = reservationRepository.release(id);
+        if (released.isEmpty()) {
+            reservationRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Reservation not found: " + id));
+            return;
+        }
+        restore(released);
+    }
+    
+    /**
+     * Consume the active holds among the given IDs for an order of the given quantities per
+     * product. Held stock beyond the ordered quantity is given back; expired or unknown holds
+     * are ignored, so the order takes that stock itself.
+     *
+     * @return quantity per product covered by the holds
+     */
+    @Transactional
+    public Map<UUID, Integer> consume(Collection<UUID> ids, Map<UUID, Integer> quantities) {
+        if (ids == null || ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, Integer> held = reservationRepository.consume(ids, LocalDateTime.now());
+        Map<UUID, Integer> covered = new HashMap<>();
+        Map<UUID, Integer> surplus = new HashMap<>();
+        held.forEach((productId, quantity) -> {
+            int ordered = quantities.getOrDefault(productId, 0);
+            covered.put(productId, Math.min(quantity, ordered));
+            if (quantity > ordered) {
+                surplus.put(productId, quantity - ordered);
+            }
+        });
+        covered.values().removeIf(quantity -> quantity == 0);
+        if (!surplus.isEmpty()) {
+            restore(surplus);
+        }
+        return covered;
+    }
+    
+    /**
+     * Expire up to limit holds past their time and give their quantities back, in a
+     * transaction of its own.
+     *
+     * @return quantity given back per product, empty if no hold had expired
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public Map<UUID, Integer> expire(int limit) {
+        Map<UUID, Integer> expired = reservationRepository.expire(LocalDateTime.now(), limit);
+        if (!expired.isEmpty()) {
+            restore(expired);
+        }
+        return expired;
+    }
+    
+    /**
+     * Add held quantities back to stored stock, and to the ledger on commit.
+     */
+    private void restore(Map<UUID, Integer> quantities) {
+        productRepository.adjustStock(quantities);
+        stockLedger.release(quantities);
+        productsSaved.fire(new ProductsSavedEvent(productRepository.findAllById(quantities.keySet())));
+    }
+}
@@ -0,0 +1,53 @@
+package com.mystars.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.util.concurrent.ScheduledFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically expires cart stock holds past their time, in batches of set-based updates,
+ * so their stock goes back on sale. Instances share the work through skipped row locks.
+ */
+@ApplicationScoped
+public class ReservationSweeper {
+
+    static final long SWEEP_INTERVAL_MS = 5_000;
+    static final int SWEEP_BATCH_SIZE = 1_000;
+
+    private static final Logger LOGGER = Logger.getLogger(ReservationSweeper.class.getName());
+
+    @Inject
+    private ReservationService reservationService;
+
+    @Inject
+    private BackgroundScheduler scheduler;
+
+    private ScheduledFuture<?> sweeper;
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        sweeper = scheduler.scheduleWithFixedDelay(this::sweep, 0, SWEEP_INTERVAL_MS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (sweeper != null) {
+            sweeper.cancel(false);
+        }
+    }
+
+    private void sweep() {
+        try {
+            while (!reservationService.expire(SWEEP_BATCH_SIZE).isEmpty()) {
+                // Keep going while expired holds remain
+            }
+        } catch (RuntimeException e) {
+            // Holds stay active and are expired by a later sweep
+            LOGGER.log(Level.WARNING, "Could not expire stock reservations", e);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.mystars.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Optional in-memory inventory for flash-sale products, named by SKU in the
+ * {@value #SKUS_PROPERTY} system property. Their available stock is held in striped atomic
+ * counters, so concurrent checkouts reserve it without waiting on the products row. Checkout
+ * journals each reservation as a pending order item, and {@link StockLedgerWriter} subtracts
+ * pending items from {@code products.stock_quantity} in periodic batched transactions.
+ * Available stock is therefore always the stored stock less the pending items, which is how
+ * it is recomputed at startup, after a crash included.
+ */
+@ApplicationScoped
+public class StockLedger {
+
+    /**
+     * System property holding the comma-separated SKUs whose stock is kept in memory.
+     */
+    public static final String SKUS_PROPERTY = "mystars.stock.ledger-skus";
+
+    static final long FLUSH_INTERVAL_MS = 200;
+    static final int FLUSH_BATCH_SIZE = 5_000;
+
+    private static final Logger LOGGER = Logger.getLogger(StockLedger.class.getName());
+
+    @Inject
+    private StockLedgerWriter writer;
+
+    @Inject
+    private Event<Change> changes;
+
+    @Inject
+    private BackgroundScheduler scheduler;
+
+    private final Map<UUID, Counter> counters = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> flusher;
+
+    /**
+     * Write items left pending by the previous run, load the counters and start the writer.
+     */
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        Set<String> skus = Arrays.stream(System.getProperty(SKUS_PROPERTY, "").split(","))
+            .map(String::trim)
+            .filter(sku -> !sku.isEmpty())
+            .collect(Collectors.toSet());
+        try {
+            flush();
+            if (!skus.isEmpty()) {
+                writer.findAvailable(skus).forEach((id, available) -> counters.put(id, new Counter(available)));
+            }
+        } catch (RuntimeException e) {
+            // Checkouts of every product go to the database instead
+            LOGGER.log(Level.WARNING, "Could not load stock ledger", e);
+            counters.clear();
+            return;
+        }
+        if (!counters.isEmpty()) {
+            flusher = scheduler.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS);
+            LOGGER.info("Stock ledger holds " + counters.size() + " products");
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (flusher != null) {
+            flusher.cancel(false);
+            flush();
+        }
+    }
+
+    /**
+     * Whether the product's available stock is held by the ledger.
+     */
+    public boolean isTracked(UUID productId) {
+        return counters.containsKey(productId);
+    }
+
+    /**
+     * Stock of a tracked product available to reserve, or empty if it is not tracked.
+     */
+    public OptionalLong available(UUID productId) {
+        Counter counter = counters.get(productId);
+        return counter != null ? OptionalLong.of(counter.sum()) : OptionalLong.empty();
+    }
+
+    /**
+     * Reserve the quantities of the tracked products among them, all or none, without
+     * blocking. Must be called inside a transaction: the reservation is released if it rolls back.
+     *
+     * @return the tracked products that lacked stock, empty if everything was reserved
+     */
+    public Set<UUID> reserve(Map<UUID, Integer> quantities) {
+        Map<UUID, Integer> reserved = new HashMap<>();
+        for (Map.Entry<UUID, Integer> entry : quantities.entrySet()) {
+            Counter counter = counters.get(entry.getKey());
+            if (counter == null) {
+                continue;
+            }
+            if (!counter.tryTake(entry.getValue())) {
+                reserved.forEach(this::credit);
+                return Set.of(entry.getKey());
+            }
+            reserved.put(entry.getKey(), entry.getValue());
+        }
+        if (!reserved.isEmpty()) {
+            changes.fire(new Change(reserved, true));
+        }
+        return Set.of();
+    }
+
+    /**
+     * Return the quantities of the tracked products among them once the current transaction
+     * commits, or at once outside a transaction.
+     */
+    public void release(Map<UUID, Integer> quantities) {
+        Map<UUID, Integer> released = new HashMap<>();
+        quantities.forEach((id, quantity) -> {
+            if (counters.containsKey(id)) {
+                released.put(id, quantity);
+            }
+        });
+        if (!released.isEmpty()) {
+            changes.fire(new Change(released, false));
+        }
+    }
+
+    /**
+     * Apply a change of a product's stored stock to its available stock: a decrease is
+     * reserved at once and an increase released on commit.
+     *
+     * @return false if a decrease of a tracked product's stock could not be reserved
+     */
+    public boolean adjust(UUID productId, int delta) {
+        if (delta < 0) {
+            return reserve(Map.of(productId, -delta)).isEmpty();
+        }
+        if (delta > 0) {
+            release(Map.of(productId, delta));
+        }
+        return true;
+    }
+
+    void onRollback(@Observes(during = TransactionPhase.AFTER_FAILURE) Change change) {
+        if (change.reserved) {
+            change.quantities.forEach(this::credit);
+        }
+    }
+
+    void onCommit(@Observes(during = TransactionPhase.AFTER_SUCCESS) Change change) {
+        if (!change.reserved) {
+            change.quantities.forEach(this::credit);
+        }
+    }
+
+    void onProductChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            counters.remove(event.getId());
+        }
+    }
+
+    private void credit(UUID productId, int quantity) {
+        Counter counter = counters.get(productId);
+        if (counter != null) {
+            counter.add(quantity);
+        }
+    }
+
+    private void flush() {
+        try {
+            while (writer.flush(FLUSH_BATCH_SIZE) == FLUSH_BATCH_SIZE) {
+                // Keep going while full batches are written
+            }
+        } catch (RuntimeException e) {
+            // Items stay pending and are written by a later flush
+            LOGGER.log(Level.WARNING, "Could not write pending stock", e);
+        }
+    }
+
+    /**
+     * Reservation or release of tracked stock by a transaction.
+     */
+    static final class Change {
+        private final Map<UUID, Integer> quantities;
+        private final boolean reserved;
+
+        Change(Map<UUID, Integer> quantities, boolean reserved) {
+            this.quantities = Map.copyOf(quantities);
+            this.reserved = reserved;
+        }
+    }
+
+    /**
+     * Available stock of one product, spread over stripes a cache line apart so concurrent
+     * reservations mostly update different lines. A reservation takes from a random stripe
+     * first and then from the others, and puts back what it took if they fall short, so near
+     * sell-out it can fail while another reservation briefly holds the remainder.
+     */
+    static final class Counter {
+        private static final int STRIPES = Math.min(64, Runtime.getRuntime().availableProcessors());
+        private static final int PADDING = 8;
+
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+        Counter(long stored) {
+            long available = Math.max(0, stored);
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                cells.set(stripe * PADDING, available / STRIPES + (stripe < available % STRIPES ? 1 : 0));
+            }
+        }
+
+        boolean tryTake(int quantity) {
+            int first = ThreadLocalRandom.current().nextInt(STRIPES);
+            long taken = 0;
+            for (int i = 0; i < STRIPES && taken < quantity; i++) {
+                int cell = ((first + i) % STRIPES) * PADDING;
+                long current = cells.get(cell);
+                while (current > 0) {
+                    long take = Math.min(current, quantity - taken);
+                    long witness = cells.compareAndExchange(cell, current, current - take);
+                    if (witness == current) {
+                        taken += take;
+                        break;
+                    }
+                    current = witness;
+                }
+            }
+            if (taken < quantity) {
+                add(taken);
+                return false;
+            }
+            return true;
+        }
+
+        long sum() {
+            long sum = 0;
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                sum += cells.get(stripe * PADDING);
+            }
+            return sum;
+        }
+
+        void add(long quantity) {
+            if (quantity != 0) {
+                cells.getAndAdd(ThreadLocalRandom.current().nextInt(STRIPES) * PADDING, quantity);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.mystars.backend.service;
+
+import com.mystars.backend.entity.Product;
+import com.mystars.backend.repository.OrderRepository;
+import com.mystars.backend.repository.PendingStock;
+import com.mystars.backend.repository.ProductRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Database side of the {@link StockLedger}: writes pending order items to their products'
+ * stored stock, and reads the stock the ledger starts from. Each call is its own transaction.
+ */
+@ApplicationScoped
+public class StockLedgerWriter {
+
+    private static final Logger LOGGER = Logger.getLogger(StockLedgerWriter.class.getName());
+
+    @Inject
+    private OrderRepository orderRepository;
+
+    @Inject
+    private ProductRepository productRepository;
+
+    @Inject
+    private Event<ProductsSavedEvent> productsSaved;
+
+    /**
+     * Subtract up to limit pending order items from their products' stock, as one batch of
+     * net deltas per product. Items of a product whose stored stock is short stay pending.
+     *
+     * @return number of items written
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public int flush(int limit) {
+        List<PendingStock> claimed = orderRepository.claimPendingStock(limit);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        Map<UUID, Integer> deltas = new HashMap<>();
+        for (PendingStock item : claimed) {
+            deltas.merge(item.getProductId(), -item.getQuantity(), Integer::sum);
+        }
+        Set<UUID> unchanged = productRepository.adjustStock(deltas);
+
+        List<UUID> stillPending = new ArrayList<>();
+        for (PendingStock item : claimed) {
+            if (unchanged.contains(item.getProductId())) {
+                stillPending.add(item.getItemId());
+            }
+        }
+        if (!stillPending.isEmpty()) {
+            // The ledger never reserves more than is stored, so only an edit outside it gets here
+            LOGGER.warning("Stored stock is short of reserved stock for products " + unchanged);
+            orderRepository.markStockPending(stillPending);
+        }
+
+        Set<UUID> written = new HashSet<>(deltas.keySet());
+        written.removeAll(unchanged);
+        if (!written.isEmpty()) {
+            productsSaved.fire(new ProductsSavedEvent(productRepository.findAllById(written)));
+        }
+        return claimed.size() - stillPending.size();
+    }
+
+    /**
+     * Stock available to reserve for each product with one of the given SKUs: its stored
+     * stock less its pending order items.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public Map<UUID, Long> findAvailable(Collection<String> skus) {
+        Collection<UUID> ids = productRepository.findIdsBySku(skus).values();
+        Map<UUID, Long> pending = orderRepository.sumPendingStock(ids);
+        Map<UUID, Long> available = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            available.put(product.getId(), product.getStockQuantity() - pending.getOrDefault(product.getId(), 0L));
+        }
+        return available;
+    }
+}
@@ -0,0 +1,121 @@
+package com.mystars.backend.service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Concurrent map from a unique key (SKU, email) to the ID of the row that owns it.
+ * Holds positive entries and negative ("no owner") entries. Once fully loaded, a key
+ * that is not in the map is known to be free, so uniqueness checks need no query.
+ * The database unique constraint remains the final check for concurrent writers.
+ */
+class UniqueKeyIndex {
+
+    private static final UUID NO_OWNER = new UUID(0L, 0L);
+
+    private final int maxNegativeEntries;
+    private final Map<String, UUID> ownerByKey = new ConcurrentHashMap<>();
+    private final Map<UUID, String> keyByOwner = new ConcurrentHashMap<>();
+    private final AtomicInteger negativeEntries = new AtomicInteger();
+    private volatile boolean complete;
+
+    UniqueKeyIndex(int maxNegativeEntries) {
+        this.maxNegativeEntries = maxNegativeEntries;
+    }
+
+    /**
+     * Replace the contents with every key currently in the database.
+     */
+    synchronized void load(Map<String, UUID> owners) {
+        ownerByKey.clear();
+        keyByOwner.clear();
+        negativeEntries.set(0);
+        owners.forEach((key, owner) -> {
+            ownerByKey.put(key, owner);
+            keyByOwner.put(owner, key);
+        });
+        complete = true;
+    }
+
+    /**
+     * Owner of a key, asking the loader only when the index cannot answer.
+     */
+    Optional<UUID> find(String key, Function<String, Optional<UUID>> loader) {
+        UUID owner = ownerByKey.get(key);
+        if (owner != null) {
+            return owner == NO_OWNER ? Optional.empty() : Optional.of(owner);
+        }
+        if (complete) {
+            return Optional.empty();
+        }
+        Optional<UUID> loaded = loader.apply(key);
+        if (loaded.isPresent()) {
+            if (ownerByKey.putIfAbsent(key, loaded.get()) == null) {
+                keyByOwner.putIfAbsent(loaded.get(), key);
+            }
+        } else {
+            cacheNoOwner(key);
+        }
+        return loaded;
+    }
+
+    /**
+     * Whether a key belongs to a row other than {@code ownerId}.
+     * A positive answer is confirmed with the loader, since conflicts are rare and a
+     * stale entry must not reject a valid write.
+     */
+    boolean isTaken(String key, UUID ownerId, Function<String, Optional<UUID>> loader) {
+        Optional<UUID> owner = find(key, loader);
+        if (owner.isEmpty() || owner.get().equals(ownerId)) {
+            return false;
+        }
+        Optional<UUID> confirmed = loader.apply(key);
+        if (confirmed.isEmpty()) {
+            ownerByKey.remove(key, owner.get());
+            cacheNoOwner(key);
+            return false;
+        }
+        return !confirmed.get().equals(ownerId);
+    }
+
+    /**
+     * Record a committed key for a row, freeing the key it had before.
+     */
+    void put(UUID ownerId, String key) {
+        String previous = key != null ? keyByOwner.put(ownerId, key) : keyByOwner.remove(ownerId);
+        if (previous != null && !previous.equals(key)) {
+            ownerByKey.put(previous, NO_OWNER);
+            negativeEntries.incrementAndGet();
+        }
+        if (key != null) {
+            ownerByKey.put(key, ownerId);
+        }
+        trimNegativeEntries();
+    }
+
+    /**
+     * Record that a row and its key were deleted.
+     */
+    void remove(UUID ownerId) {
+        put(ownerId, null);
+    }
+
+    private void cacheNoOwner(String key) {
+        if (ownerByKey.putIfAbsent(key, NO_OWNER) == null) {
+            negativeEntries.incrementAndGet();
+            trimNegativeEntries();
+        }
+    }
+
+    private void trimNegativeEntries() {
+        if (negativeEntries.get() > maxNegativeEntries) {
+            // Dropping negative entries only costs lookups; when complete, a miss already means free
+            ownerByKey.values().removeIf(owner -> owner == NO_OWNER);
+            negativeEntries.set(0);
+        }
+    }
+}
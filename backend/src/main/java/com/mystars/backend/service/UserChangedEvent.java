@@ -0,0 +1,41 @@
+package com.mystars.backend.service;
+
+import com.mystars.backend.entity.User;
+import java.util.UUID;
+
+/**
+ * CDI event fired when a user is created, updated or deleted.
+ */
+public class UserChangedEvent {
+    
+    private final UUID id;
+    private final User user;
+    
+    private UserChangedEvent(UUID id, User user) {
+        this.id = id;
+        this.user = user;
+    }
+    
+    public static UserChangedEvent saved(User user) {
+        return new UserChangedEvent(user.getId(), user);
+    }
+    
+    public static UserChangedEvent deleted(UUID id) {
+        return new UserChangedEvent(id, null);
+    }
+    
+    public UUID getId() {
+        return id;
+    }
+    
+    /**
+     * The saved user, or null if it was deleted.
+     */
+    public User getUser() {
+        return user;
+    }
+    
+    public boolean isDeleted() {
+        return user == null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.mystars.backend.service;
+
+import com.mystars.backend.repository.UserRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory email to user ID index used for email uniqueness checks.
+ */
+@ApplicationScoped
+public class UserEmailIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(UserEmailIndex.class.getName());
+
+    private static final int MAX_NEGATIVE_ENTRIES = 10_000;
+
+    @Inject
+    private UserRepository userRepository;
+
+    private final UniqueKeyIndex index = new UniqueKeyIndex(MAX_NEGATIVE_ENTRIES);
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        try {
+            index.load(userRepository.findAllEmailIds());
+        } catch (RuntimeException e) {
+            // Misses are looked up and cached one by one instead
+            LOGGER.log(Level.WARNING, "Could not load user email index", e);
+        }
+    }
+
+    /**
+     * ID of the user with the given email.
+     */
+    public Optional<UUID> findId(String email) {
+        return index.find(email, userRepository::findIdByEmail);
+    }
+
+    /**
+     * Whether the email belongs to a user other than {@code userId} (null for a new user).
+     */
+    public boolean isTaken(String email, UUID userId) {
+        return index.isTaken(email, userId, userRepository::findIdByEmail);
+    }
+
+    void onUserChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) UserChangedEvent event) {
+        if (event.isDeleted()) {
+            index.remove(event.getId());
+        } else {
+            index.put(event.getId(), event.getUser().getEmail());
+        }
+    }
+}
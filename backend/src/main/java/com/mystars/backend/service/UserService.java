@@ -1,8 +1,11 @@
 package com.mystars.backend.service;
 
+import com.mystars.backend.dto.UserView;
 import com.mystars.backend.entity.User;
+import com.mystars.backend.repository.Page;
 import com.mystars.backend.repository.UserRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.util.List;
@@ -18,11 +21,17 @@ public class UserService {
     @Inject
     private UserRepository userRepository;
     
+    @Inject
+    private UserEmailIndex emailIndex;
+    
+    @Inject
+    private Event<UserChangedEvent> userChanged;
+    
     /**
-     * Find user by ID.
+     * Find the view of a user by ID.
      */
-    public Optional<User> findById(UUID id) {
-        return userRepository.findById(id);
+    public Optional<UserView> findById(UUID id) {
+        return userRepository.findViewById(id);
     }
     
     /**
@@ -40,10 +49,17 @@ public class UserService {
     }
     
     /**
-     * Find users by role.
+     * Find a page of user views, oldest first.
      */
-    public List<User> findByRole(User.UserRole role) {
-        return userRepository.findByRole(role);
+    public Page<UserView> findPage(String cursor, int size) {
+        return userRepository.findViewPage(cursor, size);
+    }
+    
+    /**
+     * Find the views of the users with a role.
+     */
+    public List<UserView> findByRole(User.UserRole role) {
+        return userRepository.findViewsByRole(role);
     }
     
     /**
@@ -51,10 +67,12 @@ public class UserService {
      */
     @Transactional
     public User create(User user) {
-        if (userRepository.existsByEmail(user.getEmail())) {
+        if (emailIndex.isTaken(user.getEmail(), null)) {
             throw new IllegalArgumentException("Email already exists: " + user.getEmail());
         }
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userChanged.fire(UserChangedEvent.saved(saved));
+        return saved;
     }
     
     /**
@@ -67,7 +85,7 @@ public class UserService {
         
         // Don't allow email change if it would conflict
         if (!existing.getEmail().equals(user.getEmail()) 
-            && userRepository.existsByEmail(user.getEmail())) {
+            && emailIndex.isTaken(user.getEmail(), existing.getId())) {
             throw new IllegalArgumentException("Email already exists: " + user.getEmail());
         }
         
@@ -83,7 +101,9 @@ public class UserService {
             existing.setPasswordHash(user.getPasswordHash());
         }
         
-        return userRepository.save(existing);
+        User saved = userRepository.save(existing);
+        userChanged.fire(UserChangedEvent.saved(saved));
+        return saved;
     }
     
     /**
@@ -94,6 +114,7 @@ public class UserService {
         User user = userRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("User not found: " + id));
         userRepository.delete(user);
+        userChanged.fire(UserChangedEvent.deleted(id));
     }
     
     /**
@@ -122,6 +143,6 @@ public class UserService {
      * Check if email exists.
      */
     public boolean emailExists(String email) {
-        return userRepository.existsByEmail(email);
+        return emailIndex.findId(email).isPresent();
     }
 }
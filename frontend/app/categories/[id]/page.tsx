@@ -10,7 +10,7 @@ export default function CategoryDetailPage() {
   const categoryId = params.id as string;
   
   const { category, loading: categoryLoading, error: categoryError } = useCategory(categoryId);
-  const { products, loading: productsLoading, error: productsError } = useProducts({ 
+  const { products, loading: productsLoading, error: productsError, hasMore, loadMore, loadingMore } = useProducts({ 
     active: true,
     categoryId 
   });
@@ -63,11 +63,25 @@ export default function CategoryDetailPage() {
           ))}
         </div>
       ) : products.length > 0 ? (
-        <div className="grid grid-cols-1 gap-6 sm:grid-cols-2 lg:grid-cols-3">
-          {products.map((product) => (
-            <ProductCard key={product.id} product={product} />
-          ))}
-        </div>
+        <>
+          <div className="grid grid-cols-1 gap-6 sm:grid-cols-2 lg:grid-cols-3">
+            {products.map((product) => (
+              <ProductCard key={product.id} product={product} />
+            ))}
+          </div>
+          {hasMore && (
+            <div className="mt-8 text-center">
+              <button
+                type="button"
+                onClick={loadMore}
+                disabled={loadingMore}
+                className="rounded-md border px-6 py-2 text-sm font-medium hover:bg-gray-50 disabled:opacity-50"
+              >
+                {loadingMore ? 'Loading...' : 'Load more'}
+              </button>
+            </div>
+          )}
+        </>
       ) : (
         <p className="text-gray-600">No products in this category yet.</p>
       )}
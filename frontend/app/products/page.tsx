@@ -9,15 +9,10 @@ export default function ProductsPage() {
   const [sortBy, setSortBy] = useState<string>('name');
   
   const { categories, loading: categoriesLoading } = useCategories(true);
-  const { products, loading: productsLoading, error } = useProducts({ 
+  const { products: filteredProducts, loading: productsLoading, error, hasMore, loadMore, loadingMore } = useProducts({ 
     active: true,
-    categoryId: selectedCategory !== 'All' ? selectedCategory : undefined
-  });
-
-  const filteredProducts = [...products].sort((a, b) => {
-    if (sortBy === 'price-low') return a.price - b.price;
-    if (sortBy === 'price-high') return b.price - a.price;
-    return a.name.localeCompare(b.name);
+    categoryId: selectedCategory !== 'All' ? selectedCategory : undefined,
+    sort: sortBy === 'price-low' ? 'price' : sortBy === 'price-high' ? '-price' : 'name'
   });
 
   return (
@@ -107,11 +102,25 @@ export default function ProductsPage() {
               ))}
             </div>
           ) : filteredProducts.length > 0 ? (
-            <div className="grid grid-cols-1 gap-6 sm:grid-cols-2 lg:grid-cols-3">
-              {filteredProducts.map((product) => (
-                <ProductCard key={product.id} product={product} />
-              ))}
-            </div>
+            <>
+              <div className="grid grid-cols-1 gap-6 sm:grid-cols-2 lg:grid-cols-3">
+                {filteredProducts.map((product) => (
+                  <ProductCard key={product.id} product={product} />
+                ))}
+              </div>
+              {hasMore && (
+                <div className="mt-8 text-center">
+                  <button
+                    type="button"
+                    onClick={loadMore}
+                    disabled={loadingMore}
+                    className="rounded-md border px-6 py-2 text-sm font-medium hover:bg-gray-50 disabled:opacity-50"
+                  >
+                    {loadingMore ? 'Loading...' : 'Load more'}
+                  </button>
+                </div>
+              )}
+            </>
           ) : (
             <div className="py-12 text-center text-gray-600">
               No products found in this category.
@@ -1,4 +1,4 @@
-import { Product, Category, User, Order, ApiResponse, PaginatedResponse } from './types';
+import { Product, Category, User, Order, OrderSummary, ApiResponse, PaginatedResponse, ProductFacets, ProductSuggestion } from './types';
 
 const API_BASE_URL = process.env.NEXT_PUBLIC_API_URL || 'http://localhost:8080/api';
 
@@ -42,22 +42,37 @@ class ApiClient {
   }
 
   // Products
-  async getProducts(page = 0, size = 20): Promise<PaginatedResponse<Product>> {
-    return this.request(`/products?page=${page}&size=${size}`);
+  async getProducts(cursor?: string, size = 20, fields?: string[]): Promise<PaginatedResponse<Product>> {
+    const params = new URLSearchParams({ size: size.toString() });
+    if (cursor) params.set('cursor', cursor);
+    if (fields?.length) params.set('fields', fields.join(','));
+    return this.request(`/products?${params}`);
   }
 
   async getProduct(id: number): Promise<Product> {
     return this.request(`/products/${id}`);
   }
 
-  async getProductsByCategory(categoryId: number): Promise<Product[]> {
-    return this.request(`/products?categoryId=${categoryId}`);
+  async getProductsByCategory(categoryId: string, cursor?: string, size = 20): Promise<PaginatedResponse<Product>> {
+    const params = new URLSearchParams({ category: categoryId, size: size.toString() });
+    if (cursor) params.set('cursor', cursor);
+    return this.request(`/products?${params}`);
   }
 
   async searchProducts(query: string): Promise<Product[]> {
     return this.request(`/products/search?q=${encodeURIComponent(query)}`);
   }
 
+  async suggestProducts(prefix: string, limit = 10): Promise<ProductSuggestion[]> {
+    const params = new URLSearchParams({ prefix, limit: limit.toString() });
+    return this.request(`/products/suggest?${params}`);
+  }
+
+  async getProductFacets(filters: Record<string, string> = {}): Promise<ProductFacets> {
+    const params = new URLSearchParams(filters);
+    return this.request(`/products/facets?${params}`);
+  }
+
   // Categories
   async getCategories(): Promise<Category[]> {
     return this.request('/categories');
@@ -101,8 +116,10 @@ class ApiClient {
   }
 
   // Orders
-  async getOrders(): Promise<Order[]> {
-    return this.request('/orders');
+  async getOrders(cursor?: string, size = 20): Promise<PaginatedResponse<OrderSummary>> {
+    const params = new URLSearchParams({ size: size.toString() });
+    if (cursor) params.set('cursor', cursor);
+    return this.request(`/orders?${params}`);
   }
 
   async getOrder(id: number): Promise<Order> {
@@ -1,7 +1,7 @@
 'use client';
 
 import { useState, useEffect, useCallback } from 'react';
-import { Product, Category } from './types';
+import { Product, Category, PaginatedResponse } from './types';
 
 const API_BASE_URL = process.env.NEXT_PUBLIC_API_URL || 'http://localhost:8080/api';
 
@@ -12,43 +12,73 @@ export function useProducts(params?: {
   search?: string;
   minPrice?: number;
   maxPrice?: number;
+  inStock?: boolean;
+  sort?: 'name' | 'price' | '-price' | 'newest';
 }) {
   const [products, setProducts] = useState<Product[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [hasMore, setHasMore] = useState(false);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState<string | null>(null);
 
+  const fetchPage = useCallback(async (cursor?: string) => {
+    const queryParams = new URLSearchParams();
+    if (params?.active) queryParams.set('active', 'true');
+    if (params?.categoryId) queryParams.set('category', params.categoryId);
+    if (params?.search) queryParams.set('search', params.search);
+    if (params?.minPrice) queryParams.set('minPrice', params.minPrice.toString());
+    if (params?.maxPrice) queryParams.set('maxPrice', params.maxPrice.toString());
+    if (params?.inStock) queryParams.set('inStock', 'true');
+    if (params?.sort) queryParams.set('sort', params.sort);
+    if (cursor) queryParams.set('cursor', cursor);
+
+    const response = await fetch(`${API_BASE_URL}/products?${queryParams}`);
+    
+    if (!response.ok) {
+      throw new Error('Failed to fetch products');
+    }
+    
+    const page: PaginatedResponse<Product> = await response.json();
+    setNextCursor(page.nextCursor ?? null);
+    setHasMore(page.hasMore);
+    return page.data;
+  }, [params?.active, params?.categoryId, params?.search, params?.minPrice, params?.maxPrice, params?.inStock, params?.sort]);
+
   const fetchProducts = useCallback(async () => {
     setLoading(true);
     setError(null);
     
     try {
-      const queryParams = new URLSearchParams();
-      if (params?.active) queryParams.set('active', 'true');
-      if (params?.categoryId) queryParams.set('category', params.categoryId);
-      if (params?.search) queryParams.set('search', params.search);
-      if (params?.minPrice) queryParams.set('minPrice', params.minPrice.toString());
-      if (params?.maxPrice) queryParams.set('maxPrice', params.maxPrice.toString());
-
-      const response = await fetch(`${API_BASE_URL}/products?${queryParams}`);
-      
-      if (!response.ok) {
-        throw new Error('Failed to fetch products');
-      }
-      
-      const data = await response.json();
-      setProducts(data);
+      setProducts(await fetchPage());
     } catch (err) {
       setError(err instanceof Error ? err.message : 'An error occurred');
     } finally {
       setLoading(false);
     }
-  }, [params?.active, params?.categoryId, params?.search, params?.minPrice, params?.maxPrice]);
+  }, [fetchPage]);
+
+  // Appends the next page to the products already shown
+  const loadMore = useCallback(async () => {
+    if (!hasMore || !nextCursor || loadingMore) return;
+    setLoadingMore(true);
+    setError(null);
+
+    try {
+      const more = await fetchPage(nextCursor);
+      setProducts((current) => [...current, ...more]);
+    } catch (err) {
+      setError(err instanceof Error ? err.message : 'An error occurred');
+    } finally {
+      setLoadingMore(false);
+    }
+  }, [fetchPage, hasMore, nextCursor, loadingMore]);
 
   useEffect(() => {
     fetchProducts();
   }, [fetchProducts]);
 
-  return { products, loading, error, refetch: fetchProducts };
+  return { products, loading, error, refetch: fetchProducts, hasMore, loadMore, loadingMore };
 }
 
 // Custom hook for fetching a single product
@@ -31,20 +31,35 @@ export interface Product {
 // Order types
 export interface OrderItem {
   id: string;
-  product: Product;
+  productId: string;
+  productName: string;
+  productSku?: string;
   quantity: number;
-  price: number;
+  unitPrice: number;
+  discount?: number;
+  subtotal: number;
 }
 
-export interface Order {
+export interface OrderSummary {
   id: string;
-  user: User;
-  items: OrderItem[];
+  userId: string;
+  userEmail: string;
   totalAmount: number;
-  status: 'PENDING' | 'CONFIRMED' | 'SHIPPED' | 'DELIVERED' | 'CANCELLED';
+  status: 'PENDING' | 'CONFIRMED' | 'PROCESSING' | 'SHIPPED' | 'DELIVERED' | 'CANCELLED' | 'REFUNDED';
+  orderDate?: string;
+  shippedDate?: string;
+  deliveredDate?: string;
+  trackingNumber?: string;
   createdAt: string;
 }
 
+export interface Order extends OrderSummary {
+  shippingAddress?: string;
+  billingAddress?: string;
+  notes?: string;
+  items: OrderItem[];
+}
+
 // Cart types
 export interface CartItem {
   product: Product;
@@ -59,7 +74,22 @@ export interface ApiResponse<T> {
 
 export interface PaginatedResponse<T> {
   data: T[];
+  size: number;
+  nextCursor?: string | null;
+  hasMore: boolean;
+}
+
+// Facet counts for the current product filters
+export interface ProductFacets {
   total: number;
-  page: number;
-  pageSize: number;
+  inStock: number;
+  categories: { id: string; name: string; parentId?: string; count: number }[];
+  priceRanges: { min: number; max?: number | null; count: number }[];
+}
+
+// Typeahead completion
+export interface ProductSuggestion {
+  id: string;
+  name: string;
+  sku?: string;
 }